@@ -0,0 +1,529 @@
+package org.example.client.api;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.example.domain.AssignmentBatch;
+import org.example.domain.Service;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
+import org.java_websocket.handshake.ServerHandshake;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * One connection to the volunteer-matching server: preferences, optimize
+ * requests, and assignment updates by polling, long-polling or WebSocket.
+ *
+ * All state is per instance, so one JVM can run many clients (the load
+ * simulator runs one per simulated volunteer, sharing one HttpClient).
+ * The Swing UI uses a single instance through the {@link ClientAPI} façade.
+ */
+public class AssignmentClient implements AutoCloseable {
+
+    /** Passed to the callback when the volunteer's assignment was taken away. */
+    public static final String UNASSIGNED = "unassigned";
+
+    /* ------------------ Configuration ------------------ */
+
+    // How long the server may hold one long-poll request
+    private static final long LONG_POLL_WAIT_MS = 30_000;
+
+    // Reconnect/retry backoff (WebSocket and long-poll): first ceiling, and the most it grows to
+    private static final long RECONNECT_BASE_MS = 500;
+    private static final long RECONNECT_MAX_MS = 30_000;
+
+    private static final Gson G = new Gson();
+
+    private final String base;      // e.g. http://localhost:8080
+    private final URI wsUri;        // e.g. ws://localhost:8081
+    private final HttpClient http;
+
+    // Delivers assignment updates (service name) to the owner of this client
+    private volatile Consumer<String> callback;
+
+    // Polling thread that periodically fetches assignment
+    private ScheduledExecutorService poller;
+
+    // Set while the long-poll loop is running; cleared by stopPolling()
+    private volatile boolean longPolling;
+
+    // Consecutive failed long-polls; only touched by the (serial) long-poll loop
+    private volatile int longPollFailures;
+
+    private Subscription ws;
+    private Subscription dashboardWs;
+
+    // Last GET /services result and its ETag, revalidated on each getServices()
+    private volatile CachedServices services = new CachedServices(null, List.of());
+
+    /**
+     * @param base  HTTP base URL of the server, without a trailing slash.
+     * @param wsUri WebSocket URL of the server.
+     * @param http  Client for HTTP requests; may be shared between instances.
+     */
+    public AssignmentClient(String base, String wsUri, HttpClient http) {
+        this.base = base;
+        this.wsUri = URI.create(wsUri);
+        this.http = http;
+    }
+
+    /**
+     * @param base  HTTP base URL of the server, without a trailing slash.
+     * @param wsUri WebSocket URL of the server.
+     */
+    public AssignmentClient(String base, String wsUri) {
+        this(base, wsUri, HttpClient.newHttpClient());
+    }
+
+    /**
+     * Registers the function invoked with the service name whenever a new
+     * assignment is received, by whichever delivery is running, or with
+     * {@link #UNASSIGNED} when a WebSocket push removes the assignment.
+     */
+    public void setOnAssignmentReceived(Consumer<String> cb) {
+        callback = cb;
+    }
+
+
+    /* ------------------ Requests ------------------ */
+
+    /**
+     * Submits volunteer preferences (POST /preferences).
+     *
+     * @return The response, when it arrives.
+     */
+    public CompletableFuture<HttpResponse<String>> sendPreferences(String id, String name, List<String> prefs) {
+        return post("/preferences", G.toJson(new Payload(id, name, prefs)));
+    }
+
+    /**
+     * Asks the server to optimize soon (POST /optimize). The server also
+     * optimizes on its own after preference changes; this only skips its
+     * quiet window and is ignored when nothing changed.
+     *
+     * @return The response, when it arrives.
+     */
+    public CompletableFuture<HttpResponse<String>> triggerOptimization() {
+        return post("/optimize", "");
+    }
+
+    /**
+     * Fetches the current assignment synchronously (GET /assignment).
+     *
+     * @return The response body.
+     */
+    public String viewAssignmentSync(String id) throws Exception {
+        return viewAssignment(id).body();
+    }
+
+    /**
+     * Fetches the current assignment synchronously (GET /assignment).
+     *
+     * @return The response (404 while the volunteer is not assigned).
+     */
+    public HttpResponse<String> viewAssignment(String id) throws Exception {
+        HttpRequest req = HttpRequest.newBuilder()
+                .uri(URI.create(base + "/assignment?volunteerId=" + id))
+                .GET()
+                .build();
+        return http.send(req, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Fetches the services volunteers can choose from (GET /services). The
+     * last list is cached and revalidated with its ETag, so an unchanged
+     * catalog costs a bodiless 304.
+     *
+     * @return The services; the cached list if the server can't be reached
+     *         (empty if it never could).
+     */
+    public List<Service> getServices() {
+        CachedServices cached = services;
+        HttpRequest.Builder req = HttpRequest.newBuilder()
+                .uri(URI.create(base + "/services"))
+                .timeout(Duration.ofSeconds(5))
+                .GET();
+        if (cached.etag() != null) req.header("If-None-Match", cached.etag());
+        try {
+            HttpResponse<String> res = http.send(req.build(), HttpResponse.BodyHandlers.ofString());
+            if (res.statusCode() != 200) return cached.services();   // 304 or an error
+            List<Service> list = new ArrayList<>();
+            JsonArray arr = G.fromJson(res.body(), JsonObject.class).getAsJsonArray("services");
+            for (JsonElement e : arr) {
+                JsonObject o = e.getAsJsonObject();
+                list.add(new Service(o.get("name").getAsString(), o.get("capacity").getAsInt()));
+            }
+            services = new CachedServices(res.headers().firstValue("ETag").orElse(null),
+                    Collections.unmodifiableList(list));
+            return services.services();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return cached.services();
+        } catch (Exception e) {
+            System.err.println("Service list fetch failed: " + e.getMessage());
+            return cached.services();
+        }
+    }
+
+    private record CachedServices(String etag, List<Service> services) {}
+
+    private CompletableFuture<HttpResponse<String>> post(String path, String json) {
+        HttpRequest req = HttpRequest.newBuilder()
+                .uri(URI.create(base + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return http.sendAsync(req, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Routes an assignment response body to the callback; status and error
+     * bodies are dropped.
+     */
+    private void notify(String json) {
+        Consumer<String> cb = callback;
+        if (cb == null) return;
+
+        try {
+            JsonObject obj = G.fromJson(json, JsonObject.class);
+
+            // Found a real assignment result → pass it on
+            if (obj.has("assignment")) {
+                cb.accept(obj.get("assignment").getAsString());
+                return;
+            }
+
+            // Ignore system messages like {"error":...} or {"status":...}
+            if (obj.has("error") || obj.has("status")) return;
+
+        } catch (Exception ignore) {
+            // If it's not JSON, ignore it
+        }
+
+        // Fallback (should not usually happen)
+        cb.accept(json);
+    }
+
+
+    /* ------------------ Polling ------------------ */
+
+    /**
+     * Starts polling /assignment every 2 seconds and routes result to callback.
+     * Sends the last seen ETag so unchanged results come back as an empty 304.
+     */
+    public synchronized void startPolling(String id) {
+        if (poller != null) return;  // Already polling
+
+        String[] etag = {null};      // only touched by the single poller thread
+        poller = Executors.newSingleThreadScheduledExecutor();
+        poller.scheduleAtFixedRate(() -> {
+            try {
+                HttpRequest.Builder b = HttpRequest.newBuilder()
+                        .uri(URI.create(base + "/assignment?volunteerId=" + id))
+                        .GET();
+                if (etag[0] != null) b.header("If-None-Match", etag[0]);
+
+                HttpResponse<String> res =
+                        http.send(b.build(), HttpResponse.BodyHandlers.ofString());
+                if (res.statusCode() != 200) return;   // 304 unchanged / 404 not assigned yet
+
+                etag[0] = res.headers().firstValue("ETag").orElse(null);
+                notify(res.body());
+            } catch (Exception ignored) {
+                // Ignore network errors; next tick retries
+            }
+        }, 0, 2, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Starts long-polling /assignment: each request is held by the server until
+     * a newer assignment is published (or the wait expires), then immediately
+     * re-issued. Runs on HttpClient's async machinery, so no thread is parked
+     * while waiting. Meant as a fallback for networks that block WebSockets.
+     */
+    public synchronized void startLongPolling(String id) {
+        if (longPolling) return;     // Already long-polling
+        longPolling = true;
+        longPollFailures = 0;
+        longPoll(id, null);
+    }
+
+    /**
+     * Stops the polling thread and the long-poll loop.
+     */
+    public synchronized void stopPolling() {
+        if (poller != null) poller.shutdownNow();
+        poller = null;
+        longPolling = false;
+    }
+
+    /**
+     * One long-poll round trip; schedules the next one when it completes.
+     * The last ETag carries both the server epoch and the version waited
+     * past, so a restarted server answers at once instead of holding the
+     * request against a version from its previous run. A 429/5xx is retried
+     * after the server's Retry-After, and failures without one after a
+     * jittered exponential backoff.
+     */
+    private void longPoll(String id, String etag) {
+        if (!longPolling) return;
+
+        String since = (etag == null) ? "&sinceVersion=-1"
+                : "&sinceVersion=" + versionOf(etag, -1) + "&epoch=" + epochOf(etag, -1);
+        HttpRequest.Builder b = HttpRequest.newBuilder()
+                .uri(URI.create(base + "/assignment?volunteerId=" + id
+                        + since
+                        + "&waitMs=" + LONG_POLL_WAIT_MS))
+                .timeout(Duration.ofMillis(LONG_POLL_WAIT_MS + 10_000))
+                .GET();
+        if (etag != null) b.header("If-None-Match", etag);
+
+        http.sendAsync(b.build(), HttpResponse.BodyHandlers.ofString())
+                .whenComplete((res, err) -> {
+                    if (err != null || res.statusCode() == 429 || res.statusCode() >= 500) {
+                        // server down, timed out or shedding load: wait as told, else back off
+                        long delay = (err != null) ? -1 : retryAfterMs(res);
+                        if (delay < 0) delay = backoffMs(longPollFailures++);
+                        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                                .execute(() -> longPoll(id, etag));
+                        return;
+                    }
+                    longPollFailures = 0;
+                    if (res.statusCode() == 200) {
+                        notify(res.body());
+                        longPoll(id, res.headers().firstValue("ETag").orElse(etag));
+                    } else {
+                        // 304 unchanged / 404 not assigned yet: the wait expired, go again
+                        longPoll(id, etag);
+                    }
+                });
+    }
+
+    /**
+     * Delay asked for by a Retry-After header in seconds, plus up to
+     * {@link #RECONNECT_BASE_MS} of jitter so shed clients do not all return
+     * at once; -1 if absent or not a number of seconds.
+     */
+    private static long retryAfterMs(HttpResponse<?> res) {
+        try {
+            long seconds = Long.parseLong(res.headers().firstValue("Retry-After").orElse("").trim());
+            return seconds * 1000 + ThreadLocalRandom.current().nextLong(RECONNECT_BASE_MS + 1);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** Full jitter: a random delay up to min(cap, base * 2^failures). */
+    private static long backoffMs(int failures) {
+        long ceiling = Math.min(RECONNECT_MAX_MS, RECONNECT_BASE_MS << Math.min(failures, 16));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Parses the version out of a quoted ETag such as {@code "1718000000000-42"}.
+     */
+    private static long versionOf(String etag, long dflt) {
+        if (etag == null) return dflt;
+        try {
+            String tag = etag.replace("\"", "");
+            return Long.parseLong(tag.substring(tag.lastIndexOf('-') + 1));
+        } catch (NumberFormatException e) {
+            return dflt;
+        }
+    }
+
+    /**
+     * Parses the server epoch out of a quoted ETag such as {@code "1718000000000-42"}.
+     */
+    private static long epochOf(String etag, long dflt) {
+        if (etag == null) return dflt;
+        String tag = etag.replace("\"", "");
+        int dash = tag.lastIndexOf('-');
+        try {
+            return dash > 0 ? Long.parseLong(tag.substring(0, dash)) : dflt;
+        } catch (NumberFormatException e) {
+            return dflt;
+        }
+    }
+
+
+    /* ------------------ WebSocket push ------------------ */
+
+    /**
+     * Subscribes to this volunteer's updates over WebSocket, as binary
+     * batches, and routes them to the callback (a removal as
+     * {@link #UNASSIGNED}). Reconnects by itself and resumes from the last
+     * version received.
+     */
+    public synchronized void connectWebSocket(String id) {
+        if (ws != null && !ws.closed) return;
+
+        ws = new Subscription(id, true, batch -> {
+            for (AssignmentBatch.Change c : batch.getChanges()) {
+                if (id.equals(c.volunteerId())) {
+                    notify(G.toJson(Map.of("assignment", c.service() != null ? c.service() : UNASSIGNED)));
+                }
+            }
+        });
+        ws.open();
+    }
+
+    /**
+     * Subscribes to every volunteer's changes. The server sends one binary
+     * {@link AssignmentBatch} frame per optimization run. Reconnects by
+     * itself; after a reconnect the first batch holds what was missed (or,
+     * with base version 0, the complete state).
+     */
+    public synchronized void connectDashboard(Consumer<AssignmentBatch> onBatch) {
+        if (dashboardWs != null && !dashboardWs.closed) return;
+
+        dashboardWs = new Subscription("*", true, onBatch);
+        dashboardWs.open();
+    }
+
+    /**
+     * A WebSocket subscription that survives server restarts and network
+     * drops: on close it reconnects after a jittered exponential backoff (so
+     * a restarted server is not hit by every client at once) and subscribes
+     * again with the last version and server epoch it saw, so the server
+     * replays only the changes missed meanwhile. A "*" subscription also
+     * resubscribes when a batch does not start at the last version it saw.
+     */
+    private final class Subscription {
+        final String key;                        // volunteer id or "*"
+        final boolean batched;
+        final Consumer<AssignmentBatch> onBatch;
+
+        volatile long lastVersion;               // newest version received (0 = none)
+        volatile long epoch;                     // server run that version belongs to
+        volatile boolean resyncing;              // resubscribed after a gap; awaiting the ack
+        volatile boolean closed;
+        private int failures;                    // consecutive failed connects; guarded by this
+        private WebSocketClient socket;          // guarded by this
+
+        Subscription(String key, boolean batched, Consumer<AssignmentBatch> onBatch) {
+            this.key = key;
+            this.batched = batched;
+            this.onBatch = onBatch;
+        }
+
+        synchronized void open() {
+            if (closed) return;
+            socket = new WebSocketClient(wsUri, compressedDraft()) {
+
+                @Override
+                public void onOpen(ServerHandshake serverHandshake) {
+                    synchronized (Subscription.this) {
+                        failures = 0;
+                    }
+                    resyncing = false;
+                    send(subscribeMessage());
+                }
+
+                @Override
+                public void onMessage(String msg) {
+                    try {
+                        JsonObject o = G.fromJson(msg, JsonObject.class);
+                        if (o.has("subscribed") && o.has("epoch")) {
+                            long e = o.get("epoch").getAsLong();
+                            if (e != epoch) lastVersion = 0;   // new server run: old versions mean nothing
+                            epoch = e;
+                            resyncing = false;                 // the replay follows this ack
+                        } else if (o.has("volunteerId") && o.has("assignment")
+                                && key.equals(o.get("volunteerId").getAsString())) {
+                            if (o.has("version")) lastVersion = o.get("version").getAsLong();
+                            AssignmentClient.this.notify(msg);
+                        }
+                    } catch (Exception ignore) {
+                    }
+                }
+
+                @Override
+                public void onMessage(ByteBuffer bytes) {
+                    try {
+                        AssignmentBatch batch = AssignmentBatch.decode(bytes);
+                        if (resyncing) return;             // superseded by the replay after the ack
+                        if ("*".equals(key) && batch.getBaseVersion() != 0
+                                && batch.getBaseVersion() != lastVersion) {
+                            // missed a batch: subscribe again so the server replays the gap
+                            resyncing = true;
+                            send(subscribeMessage());
+                            return;
+                        }
+                        lastVersion = batch.getVersion();
+                        onBatch.accept(batch);
+                    } catch (IllegalArgumentException ignore) {
+                    }
+                }
+
+                @Override
+                public void onClose(int i, String s, boolean b) {
+                    reconnectLater();
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    // onClose follows and reconnects
+                }
+            };
+            socket.connect();
+        }
+
+        /** Subscription request resuming from the last version seen. */
+        private String subscribeMessage() {
+            return G.toJson(Map.of("subscribe", key, "batched", batched,
+                    "sinceVersion", lastVersion, "epoch", epoch));
+        }
+
+        /** Reconnects after {@link #backoffMs} for the failures so far. */
+        private synchronized void reconnectLater() {
+            if (closed) return;
+            long delay = backoffMs(failures++);
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(this::open);
+        }
+
+        synchronized void close() {
+            closed = true;
+            if (socket != null) socket.close();
+        }
+    }
+
+    /** WebSocket draft that negotiates permessage-deflate with the server. */
+    private static Draft_6455 compressedDraft() {
+        return new Draft_6455(new PerMessageDeflateExtension());
+    }
+
+    /** Stops polling and closes any WebSocket this client opened. */
+    @Override
+    public synchronized void close() {
+        stopPolling();
+        if (ws != null) ws.close();
+        if (dashboardWs != null) dashboardWs.close();
+    }
+
+
+    /* ------------------ Payload ------------------ */
+
+    /**
+     * Structure used for JSON payload to /preferences
+     */
+    private record Payload(String volunteerId, String name, List<String> prefs) {}
+}
@@ -1,70 +1,71 @@
 package org.example.client.api;
 
-import com.google.gson.Gson;           // For JSON serialization/deserialization
-import com.google.gson.JsonObject;
-import org.java_websocket.handshake.ServerHandshake;
-
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import org.example.domain.AssignmentBatch;
+import org.example.domain.Service;
+
 import java.util.List;
 import java.util.function.Consumer;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Handles communication between the client and the volunteer-matching server.
  *
+ * A static façade over one {@link AssignmentClient} for the Swing UI, which
+ * is a single volunteer per JVM. Code that needs several clients (e.g. the
+ * load simulator) creates its own {@link AssignmentClient} instances.
+ *
  * Exposed methods (used by the UI):
  * - getAllServices()
  * - sendPreferences(id, name, prefs)
  * - triggerOptimization()
  * - setOnAssignmentReceived(callback)
  * - startPolling(id)
+ * - startLongPolling(id)   (fallback when WebSockets are blocked)
+ * - connectWebSocket(id)
+ * - connectDashboard(onBatch)  (every volunteer's changes, one frame per run)
  */
 public class ClientAPI {
 
     /* ------------------ Configuration ------------------ */
 
-    // Base URL for the backend server (localhost on port 8080)
-    private static final String BASE = "http://localhost:8080";
-
-    // Shared HTTP client instance for all requests
-    private static final HttpClient HTTP = HttpClient.newHttpClient();
-
-    // Gson instance for converting objects to/from JSON
-    private static final Gson G = new Gson();
-
-    // Polling thread that periodically fetches assignment
-    private static ScheduledExecutorService poller;
+    // The UI's connection to the backend server (localhost, HTTP 8080 / WS 8081)
+    private static final AssignmentClient CLIENT =
+            new AssignmentClient("http://localhost:8080", "ws://localhost:8081");
 
 
     /* ------------------ Service List ------------------ */
 
-    // Hardcoded list of available services (used for combo boxes)
-    private static final String[] SERVICES = {
+    // Services shipped with the server; shown until GET /services answers
+    private static final String[] DEFAULT_SERVICES = {
             "Soup Kitchen", "Animal Shelter", "Senior Care", "Airport Greeter",
             "Hackathon Mentor", "Beach Cleanup", "Community Garden", "Library Assistant",
             "Youth Mentor", "Disaster Relief"
     };
 
     // Return a safe clone to avoid exposing the original array
-    public static String[] getAllServices() { return SERVICES.clone(); }
+    public static String[] getDefaultServices() { return DEFAULT_SERVICES.clone(); }
 
+    /**
+     * Names of the services on offer (used for combo boxes), fetched from
+     * GET /services so services added at runtime show up. Blocks on the
+     * network: call it off the Swing event thread. Falls back to the
+     * default list if the server has never been reachable.
+     */
+    public static String[] getAllServices() {
+        List<Service> services = CLIENT.getServices();
+        return services.isEmpty()
+                ? getDefaultServices()
+                : services.stream().map(Service::getName).toArray(String[]::new);
+    }
 
-    /* ------------------ Assignment Callback ------------------ */
 
-    // A callback to deliver assignment updates (set by UI)
-    private static Consumer<String> callback;
+    /* ------------------ Assignment Callback ------------------ */
 
     /**
      * Called by UI to register a function that will be invoked when
      * a new assignment (or related update) is received from the server.
      */
     public static void setOnAssignmentReceived(Consumer<String> cb) {
-        callback = cb;
+        CLIENT.setOnAssignmentReceived(cb);
     }
 
 
@@ -74,145 +75,60 @@ public class ClientAPI {
      * Submits volunteer preferences to the server (POST /preferences)
      */
     public static void sendPreferences(String id, String name, List<String> prefs) {
-        Payload p = new Payload(id, name, prefs);
-        String json = G.toJson(p);
-        postAsync("/preferences", json, "prefs");
+        CLIENT.sendPreferences(id, name, prefs);
     }
 
     /**
-     * Triggers server-side optimization (POST /optimize)
+     * Asks the server to optimize soon (POST /optimize). The server also
+     * optimizes on its own after preference changes; this only skips its
+     * quiet window and is ignored when nothing changed.
      */
     public static void triggerOptimization() {
-        postAsync("/optimize", "", "opt");
+        CLIENT.triggerOptimization();
     }
 
     /**
      * Optionally fetch current assignment synchronously (GET /assignment)
      */
     public static String viewAssignmentSync(String id) throws Exception {
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(BASE + "/assignment?volunteerId=" + id))
-                .GET()
-                .build();
-        return HTTP.send(req, HttpResponse.BodyHandlers.ofString()).body();
+        return CLIENT.viewAssignmentSync(id);
     }
 
-
-    /* ------------------ Internal Helpers ------------------ */
-
     /**
-     * Helper: Send asynchronous POST request and forward result to notify()
+     * Starts polling /assignment every 2 seconds and routes result to callback.
      */
-    private static void postAsync(String path, String json, String tag) {
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(BASE + path))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(json))
-                .build();
-
-        HTTP.sendAsync(req, HttpResponse.BodyHandlers.ofString())
-                .thenAccept(response -> notify(tag + ": " + response.body()));
-    }
-
-    /**
-     * Handles the response message and routes meaningful assignment updates to the callback
-     */
-    private static void notify(String json) {
-        if (callback == null) return;
-
-        // Filter out boring confirmations like "prefs: ..." or "opt: ..."
-        if (json.startsWith("prefs:") || json.startsWith("opt:")) return;
-
-        try {
-            JsonObject obj = G.fromJson(json, JsonObject.class);
-
-            // Found a real assignment result → pass to UI
-            if (obj.has("assignment")) {
-                callback.accept(obj.get("assignment").getAsString());
-                return;
-            }
-
-            // Ignore system messages like {"error":...} or {"status":...}
-            if (obj.has("error") || obj.has("status")) return;
-
-        } catch (Exception ignore) {
-            // If it's not JSON, ignore it
-        }
-
-        // Fallback (should not usually happen)
-        callback.accept(json);
+    public static void startPolling(String id) {
+        CLIENT.startPolling(id);
     }
 
     /**
-     * Starts polling /assignment every 2 seconds and routes result to callback
+     * Starts long-polling /assignment. Meant as a fallback for networks that
+     * block WebSockets.
      */
-    public static void startPolling(String id) {
-        if (poller != null) return;  // Already polling
-
-        poller = Executors.newSingleThreadScheduledExecutor();
-        poller.scheduleAtFixedRate(() -> {
-            try {
-                String json = viewAssignmentSync(id);  // GET assignment
-                notify(json);                          // push to callback/UI
-            } catch (Exception ignored) {
-                // Ignore 404 errors (not assigned yet)
-            }
-        }, 0, 2, TimeUnit.SECONDS);
+    public static void startLongPolling(String id) {
+        CLIENT.startLongPolling(id);
     }
 
     /**
-     * Stops the polling thread (optional)
+     * Stops the polling thread and the long-poll loop (optional)
      */
     public static void stopPolling() {
-        if (poller != null) poller.shutdownNow();
-        poller = null;
+        CLIENT.stopPolling();
     }
 
-    /* ------------------ Internal Payload Class ------------------ */
-
-    /**
-     * Structure used for JSON payload to /preferences
-     */
-    private record Payload(String volunteerId, String name, List<String> prefs) {}
-
-    // inside ClientAPI
     /* ---------------- websocket push ---------------- */
-    private static org.java_websocket.client.WebSocketClient ws;
-
-    public static void connectWebSocket(String id){           // call once from UI
-        if (ws!=null && ws.isOpen()) return;
 
-        try {
-            ws = new org.java_websocket.client.WebSocketClient(
-                    new java.net.URI("ws://localhost:8081")) {
-
-                @Override
-                public void onOpen(ServerHandshake serverHandshake) {
-
-                }
-
-                @Override public void onMessage(String msg){
-                    try{
-                        JsonObject o = G.fromJson(msg, JsonObject.class);
-                        if (o.has("volunteerId") && o.has("assignment")
-                                && id.equals(o.get("volunteerId").getAsString())) {
-                            ClientAPI.notify(msg);                      // reuse existing path
-                        }
-                    }catch(Exception ignore){}
-                }
-
-                @Override
-                public void onClose(int i, String s, boolean b) {
-
-                }
+    public static void connectWebSocket(String id) {           // call once from UI
+        CLIENT.connectWebSocket(id);
+    }
 
-                @Override
-                public void onError(Exception e) {
+    /* ---------------- coordinator dashboard ---------------- */
 
-                }
-            };
-            ws.connect();
-        } catch (Exception e){ e.printStackTrace(); }
+    /**
+     * Subscribes to every volunteer's changes. The server sends one binary
+     * {@link AssignmentBatch} frame per optimization run.
+     */
+    public static void connectDashboard(Consumer<AssignmentBatch> onBatch) {
+        CLIENT.connectDashboard(onBatch);
     }
-
 }
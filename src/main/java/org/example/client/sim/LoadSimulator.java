@@ -0,0 +1,223 @@
+package org.example.client.sim;
+
+import org.example.client.api.AssignmentClient;
+import org.example.domain.Service;
+import org.example.server.metrics.LatencyHistogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless load simulation: many volunteers in one JVM, each an
+ * {@link AssignmentClient} driven by its own virtual thread, against a
+ * running server.
+ *
+ * Phases:
+ * 1. every volunteer starts receiving (WebSocket, long-poll or poll, dealt
+ *    round-robin from {@code --receive});
+ * 2. every volunteer submits preferences after a random think time, and
+ *    every {@code --optimizeEvery}-th one also asks for an optimization;
+ * 3. the simulator waits until every volunteer has received an assignment,
+ *    or none arrived for {@code --quietMs} (services are full), or
+ *    {@code --timeoutSec} passes;
+ * 4. every volunteer reads its assignment {@code --reads} times.
+ *
+ * It then prints, per endpoint, the request count, errors, throughput and
+ * latency percentiles, plus the time from each volunteer's submit to its
+ * first assignment arriving, per delivery channel.
+ *
+ * Usage (server running):
+ * <pre>
+ *   mvn exec:java@run-simulator -Dexec.args="--volunteers=2000 --receive=ws,longpoll"
+ * </pre>
+ * Options: --volunteers=1000 --receive=ws,longpoll (any of ws, longpoll,
+ * poll) --optimizeEvery=100 --thinkMs=2000 --reads=3 --quietMs=5000
+ * --timeoutSec=120 --http=http://localhost:8080 --ws=ws://localhost:8081
+ */
+public final class LoadSimulator {
+
+    /** Latency, errors and the time window of one endpoint's requests. */
+    private static final class Endpoint {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        final AtomicLong first = new AtomicLong(Long.MAX_VALUE);
+        final AtomicLong last = new AtomicLong(Long.MIN_VALUE);
+
+        /** Times one blocking call; a thrown exception or a 5xx counts as an error. */
+        void time(Call call) {
+            long t0 = System.nanoTime();
+            first.accumulateAndGet(t0, Math::min);
+            try {
+                if (call.status() >= 500) errors.increment();
+            } catch (Exception e) {
+                errors.increment();
+            }
+            long t1 = System.nanoTime();
+            latency.record(t1 - t0);
+            last.accumulateAndGet(t1, Math::max);
+        }
+
+        double perSecond() {
+            long span = last.get() - first.get();
+            return span > 0 ? latency.count() * 1e9 / span : 0;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        int status() throws Exception;
+    }
+
+    private final Map<String, Endpoint> endpoints = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    private Endpoint endpoint(String name) {
+        return endpoints.computeIfAbsent(name, n -> new Endpoint());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opt = new LinkedHashMap<>();
+        for (String a : args) {
+            int eq = a.indexOf('=');
+            if (a.startsWith("--") && eq > 2) opt.put(a.substring(2, eq), a.substring(eq + 1));
+        }
+        new LoadSimulator().run(
+                Integer.parseInt(opt.getOrDefault("volunteers", "1000")),
+                opt.getOrDefault("receive", "ws,longpoll").split(","),
+                Integer.parseInt(opt.getOrDefault("optimizeEvery", "100")),
+                Integer.parseInt(opt.getOrDefault("thinkMs", "2000")),
+                Integer.parseInt(opt.getOrDefault("reads", "3")),
+                Long.parseLong(opt.getOrDefault("quietMs", "5000")),
+                Long.parseLong(opt.getOrDefault("timeoutSec", "120")),
+                opt.getOrDefault("http", "http://localhost:8080"),
+                opt.getOrDefault("ws", "ws://localhost:8081"));
+        System.exit(0);   // WebSocket client threads are not daemons
+    }
+
+    private void run(int n, String[] receive, int optimizeEvery, int thinkMs, int reads,
+                     long quietMs, long timeoutSec, String http, String ws) throws Exception {
+        HttpClient shared = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String[] services = new AssignmentClient(http, ws, shared).getServices().stream()
+                .map(Service::getName).toArray(String[]::new);
+        if (services.length < 3) throw new IllegalStateException("need at least 3 services from " + http + "/services");
+
+        List<AssignmentClient> clients = new ArrayList<>(n);
+        AtomicLongArray submittedAt = new AtomicLongArray(n);   // nanoTime of each submit
+        AtomicInteger delivered = new AtomicInteger();
+        AtomicLong lastDelivery = new AtomicLong(System.nanoTime());
+
+        // 1) start receiving before anything is submitted, so no update is missed
+        for (int i = 0; i < n; i++) {
+            String id = "sim-" + i;
+            String channel = receive[i % receive.length].trim();
+            Endpoint delivery = endpoint("assignment via " + channel);
+            AssignmentClient c = new AssignmentClient(http, ws, shared);
+            int idx = i;
+            boolean[] seen = {false};
+            c.setOnAssignmentReceived(service -> {
+                if (AssignmentClient.UNASSIGNED.equals(service)) return;   // not a delivery
+                long since = submittedAt.get(idx);
+                synchronized (seen) {
+                    if (seen[0] || since == 0) return;
+                    seen[0] = true;
+                }
+                long now = System.nanoTime();
+                delivery.latency.record(now - since);
+                delivery.first.accumulateAndGet(since, Math::min);
+                delivery.last.accumulateAndGet(now, Math::max);
+                delivered.incrementAndGet();
+                lastDelivery.set(now);
+            });
+            switch (channel) {
+                case "ws"       -> c.connectWebSocket(id);
+                case "longpoll" -> c.startLongPolling(id);
+                case "poll"     -> c.startPolling(id);
+                default         -> throw new IllegalArgumentException("unknown --receive " + channel);
+            }
+            clients.add(c);
+        }
+        System.out.printf("%d volunteers receiving via %s%n", n, String.join(", ", receive));
+
+        // 2) submit preferences (and sometimes ask for an optimization) from virtual threads
+        Endpoint prefs = endpoint("POST /preferences");
+        Endpoint optimize = endpoint("POST /optimize");
+        try (ExecutorService vt = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < n; i++) {
+                int idx = i;
+                vt.submit(() -> {
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                    Thread.sleep(rnd.nextInt(thinkMs + 1));
+                    List<String> choice = new ArrayList<>(List.of(services));
+                    Collections.shuffle(choice, rnd);
+                    List<String> ranked = choice.subList(0, 3 + rnd.nextInt(3));
+                    submittedAt.set(idx, System.nanoTime());
+                    prefs.time(() -> status(clients.get(idx).sendPreferences("sim-" + idx, "Sim " + idx, ranked)));
+                    if (idx % optimizeEvery == 0) {
+                        optimize.time(() -> status(clients.get(idx).triggerOptimization()));
+                    }
+                    return null;
+                });
+            }
+        }
+        System.out.printf("submitted; waiting for assignments%n");
+
+        // 3) wait for deliveries to finish (or stop: services have limited capacity)
+        long deadline = System.nanoTime() + timeoutSec * 1_000_000_000L;
+        while (delivered.get() < n && System.nanoTime() < deadline
+                && (delivered.get() == 0 || System.nanoTime() - lastDelivery.get() < quietMs * 1_000_000L)) {
+            Thread.sleep(100);
+        }
+        System.out.printf("%d of %d volunteers received an assignment%n", delivered.get(), n);
+
+        // 4) reads
+        Endpoint get = endpoint("GET /assignment");
+        try (ExecutorService vt = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < n; i++) {
+                int idx = i;
+                vt.submit(() -> {
+                    for (int r = 0; r < reads; r++) {
+                        get.time(() -> clients.get(idx).viewAssignment("sim-" + idx).statusCode());
+                    }
+                });
+            }
+        }
+
+        clients.forEach(AssignmentClient::close);
+        report();
+    }
+
+    private static int status(CompletableFuture<HttpResponse<String>> response) {
+        return response.join().statusCode();
+    }
+
+    private void report() {
+        System.out.printf("%n%-28s %8s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms");
+        synchronized (endpoints) {
+            endpoints.forEach((name, e) -> System.out.printf("%-28s %8d %7d %9.0f %9.1f %9.1f %9.1f %9.1f%n",
+                    name, e.latency.count(), e.errors.sum(), e.perSecond(),
+                    ms(e.latency.valueAtPercentile(50)), ms(e.latency.valueAtPercentile(90)),
+                    ms(e.latency.valueAtPercentile(99)), ms(e.latency.valueAtPercentile(99.9))));
+        }
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.client.ui;
 
+import org.example.client.api.AssignmentClient;
 import org.example.client.api.ClientAPI;
 import javax.swing.*;
 import java.awt.*;
@@ -11,6 +12,8 @@ import java.util.List;
  * and their submitted preferences in a clean, borderless design
  */
 class AssignmentsPage extends JPanel {
+    private static final long serialVersionUID = 1L;
+
     // ========== DESIGN CONSTANTS ==========
     private static final int OUTER_PADDING = 30;    // Space around edges
     private static final int INNER_PADDING = 25;    // Space inside cards
@@ -231,7 +234,7 @@ class AssignmentsPage extends JPanel {
         ClientAPI.setOnAssignmentReceived(service ->
                 SwingUtilities.invokeLater(() -> {
                     if (service == null || service.isBlank()) return;
-                    assignmentLbl.setText(service);
+                    assignmentLbl.setText(AssignmentClient.UNASSIGNED.equals(service) ? "Not assigned" : service);
                 }));
 
         // Start polling for updates
@@ -11,6 +11,8 @@ import java.awt.geom.RoundRectangle2D;
  * and shows them where they can go next with clear, inviting options.
  */
 class HomePage extends JPanel {
+    private static final long serialVersionUID = 1L;
+
     // These numbers are like the 'spice measurements' for our layout - 
     // they control how much space goes where to make everything look just right
     private static final int OUTER_PADDING = 40;    // Space between window edges and content
@@ -259,6 +261,8 @@ class HomePage extends JPanel {
      * Like a fancy picture frame for our content.
      */
     private static class RoundedBorder extends AbstractBorder {
+        private static final long serialVersionUID = 1L;
+
         private final Color color; // The color of the frame
         private final int thickness; // How thick the frame is
         private final int radius; // How round the corners are
@@ -7,7 +7,8 @@ import java.awt.*;
  * The main application window for Volunteer Matching System
  * Handles navigation between different views/pages
  */
-public class MainFrame extends JFrame {
+public final class MainFrame extends JFrame {
+    private static final long serialVersionUID = 1L;
     
     // ========== CONSTANTS ==========
     public static final Color PRIMARY = new Color(0, 120, 215);
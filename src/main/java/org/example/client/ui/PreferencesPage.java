@@ -13,6 +13,8 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * Designed with a clean, minimalist look that matches the AssignmentsPage style
  */
 class PreferencesPage extends JPanel {
+    private static final long serialVersionUID = 1L;
+
     // ========== DESIGN CONSTANTS ==========
     private static final int OUTER_PADDING = 30;    // Space around edges
     private static final int INNER_PADDING = 25;    // Space inside cards
@@ -25,6 +27,7 @@ class PreferencesPage extends JPanel {
     // ========== COMPONENTS ==========
     private final MainFrame frame;          // Reference to main window
     private final JTextField nameField;     // For volunteer's name input
+    @SuppressWarnings({"unchecked", "rawtypes"})   // no generic array creation
     private final JComboBox<String>[] boxes = new JComboBox[5]; // The 5 preference dropdowns
     private static final List<String> lastSubmitted = new CopyOnWriteArrayList<>(); // Stores submitted prefs
 
@@ -41,6 +44,7 @@ class PreferencesPage extends JPanel {
         add(createHeader(), BorderLayout.NORTH);
         add(createFormContent(), BorderLayout.CENTER);
         add(createSubmitButton(), BorderLayout.SOUTH);
+        loadServices();
     }
 
     // ========== PAGE STRUCTURE ==========
@@ -93,13 +97,45 @@ class PreferencesPage extends JPanel {
     }
 
     private JComboBox<String> createServiceDropdown() {
-        JComboBox<String> dropdown = new JComboBox<>(ClientAPI.getAllServices());
+        // the bundled list until the server's catalog arrives (see loadServices)
+        JComboBox<String> dropdown = new JComboBox<>(ClientAPI.getDefaultServices());
         dropdown.setFont(new Font("Segoe UI", Font.PLAIN, 14));
         dropdown.setMaximumSize(new Dimension(Integer.MAX_VALUE, 32));
         dropdown.setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
         return dropdown;
     }
 
+    /**
+     * Fetches the server's service catalog once, off the event thread, and
+     * swaps it into the dropdowns when it arrives (keeping any selection
+     * that is still offered). If the server is down, the defaults stay.
+     */
+    private void loadServices() {
+        new SwingWorker<String[], Void>() {
+            @Override
+            protected String[] doInBackground() {
+                return ClientAPI.getAllServices();
+            }
+
+            @Override
+            protected void done() {
+                String[] services;
+                try {
+                    services = get();
+                } catch (Exception e) {
+                    return;   // keep the defaults
+                }
+                for (JComboBox<String> box : boxes) {
+                    Object selected = box.getSelectedItem();
+                    box.setModel(new DefaultComboBoxModel<>(services));
+                    if (selected != null && Arrays.asList(services).contains(selected)) {
+                        box.setSelectedItem(selected);
+                    }
+                }
+            }
+        }.execute();
+    }
+
     private JPanel createInputCard(String label, JComponent input) {
         JPanel card = new JPanel();
         card.setLayout(new BoxLayout(card, BoxLayout.Y_AXIS));
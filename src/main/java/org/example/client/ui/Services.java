@@ -8,6 +8,8 @@ import java.awt.*;
  * in a clean, borderless design matching the rest of the application
  */
 class Services extends JPanel {
+    private static final long serialVersionUID = 1L;
+
     // ========== DESIGN CONSTANTS ==========
     private static final int OUTER_PADDING = 30;    // Space around edges
     private static final int INNER_PADDING = 25;    // Space inside cards
@@ -0,0 +1,200 @@
+package org.example.domain;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A versioned batch of assignment changes, as pushed to WebSocket subscribers
+ * in one binary frame per optimization run.
+ *
+ * A change with a {@code null} service means the volunteer no longer has an
+ * assignment. {@code baseVersion} is the version the batch applies on top of;
+ * {@code 0} means the batch is the complete state rather than a delta.
+ *
+ * Wire format (all integers are unsigned LEB128 varints):
+ * <pre>
+ *   'A' 1                      magic + format version (two bytes)
+ *   baseVersion version
+ *   serviceCount { len utf8 }  service table; changes refer to it by index
+ *   changeCount  { shared len utf8 slot }
+ * </pre>
+ * Changes are sorted by volunteer id and each id is front-coded against the
+ * previous one ({@code shared} leading bytes are reused), so ids such as
+ * {@code vol123456789...} cost only a few bytes each. {@code slot} is the
+ * service index plus one, or {@code 0} for a removal.
+ */
+public class AssignmentBatch {
+
+    private static final byte MAGIC = 'A';
+    private static final byte FORMAT = 1;
+
+    /**
+     * One volunteer's new state in a batch.
+     *
+     * @param volunteerId the volunteer
+     * @param service     name of the assigned service, or {@code null} if removed
+     */
+    public record Change(String volunteerId, String service) {}
+
+    private final long baseVersion;
+    private final long version;
+    private final List<Change> changes;
+
+    /**
+     * Constructs a batch.
+     *
+     * @param baseVersion version this batch applies on top of (0 = full state)
+     * @param version     version reached after applying the batch
+     * @param changes     the changes; copied and sorted by volunteer id
+     */
+    public AssignmentBatch(long baseVersion, long version, Collection<Change> changes) {
+        this.baseVersion = baseVersion;
+        this.version = version;
+        List<Change> sorted = new ArrayList<>(changes);
+        sorted.sort(Comparator.comparing(Change::volunteerId));
+        this.changes = Collections.unmodifiableList(sorted);
+    }
+
+    /**
+     * Gets the version this batch applies on top of.
+     *
+     * @return The base version, or 0 if the batch is the complete state.
+     */
+    public long getBaseVersion() {
+        return baseVersion;
+    }
+
+    /**
+     * Gets the version reached after applying this batch.
+     *
+     * @return The result version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the changes in this batch, sorted by volunteer id.
+     *
+     * @return An unmodifiable list of changes.
+     */
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Encodes this batch into its compact binary form.
+     *
+     * @return The encoded bytes.
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + changes.size() * 6);
+        out.write(MAGIC);
+        out.write(FORMAT);
+        writeVarLong(out, baseVersion);
+        writeVarLong(out, version);
+
+        // service table: each distinct name once, in first-seen order
+        Map<String, Integer> slots = new LinkedHashMap<>();
+        for (Change c : changes) {
+            if (c.service() != null) slots.putIfAbsent(c.service(), slots.size());
+        }
+        writeVarLong(out, slots.size());
+        for (String name : slots.keySet()) {
+            writeBytes(out, name.getBytes(StandardCharsets.UTF_8));
+        }
+
+        writeVarLong(out, changes.size());
+        byte[] prev = new byte[0];
+        for (Change c : changes) {
+            byte[] id = c.volunteerId().getBytes(StandardCharsets.UTF_8);
+            int shared = commonPrefix(prev, id);
+            writeVarLong(out, shared);
+            writeVarLong(out, id.length - shared);
+            out.write(id, shared, id.length - shared);
+            writeVarLong(out, c.service() == null ? 0 : slots.get(c.service()) + 1);
+            prev = id;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a batch produced by {@link #encode()}.
+     *
+     * @param buf The encoded frame payload.
+     * @return The decoded batch.
+     * @throws IllegalArgumentException if the payload is not a batch frame.
+     */
+    public static AssignmentBatch decode(ByteBuffer buf) {
+        try {
+            if (buf.get() != MAGIC || buf.get() != FORMAT) {
+                throw new IllegalArgumentException("not an assignment batch frame");
+            }
+            long baseVersion = readVarLong(buf);
+            long version = readVarLong(buf);
+
+            String[] services = new String[(int) readVarLong(buf)];
+            for (int i = 0; i < services.length; i++) {
+                services[i] = new String(readBytes(buf, (int) readVarLong(buf)), StandardCharsets.UTF_8);
+            }
+
+            int n = (int) readVarLong(buf);
+            List<Change> changes = new ArrayList<>(n);
+            byte[] prev = new byte[0];
+            for (int i = 0; i < n; i++) {
+                int shared = (int) readVarLong(buf);
+                byte[] suffix = readBytes(buf, (int) readVarLong(buf));
+                byte[] id = Arrays.copyOf(prev, shared + suffix.length);
+                System.arraycopy(suffix, 0, id, shared, suffix.length);
+                int slot = (int) readVarLong(buf);
+                changes.add(new Change(new String(id, StandardCharsets.UTF_8),
+                        slot == 0 ? null : services[slot - 1]));
+                prev = id;
+            }
+            return new AssignmentBatch(baseVersion, version, changes);
+        } catch (RuntimeException e) {
+            if (e instanceof IllegalArgumentException) throw e;
+            throw new IllegalArgumentException("malformed assignment batch frame", e);
+        }
+    }
+
+    /* ---------- varint helpers ---------- */
+
+    private static int commonPrefix(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        int i = 0;
+        while (i < n && a[i] == b[i]) i++;
+        return i;
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, byte[] bytes) {
+        writeVarLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static byte[] readBytes(ByteBuffer buf, int len) {
+        byte[] bytes = new byte[len];
+        buf.get(bytes);
+        return bytes;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static long readVarLong(ByteBuffer buf) {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buf.get();
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+        throw new IllegalArgumentException("varint too long");
+    }
+}
@@ -5,6 +5,7 @@ import java.util.*;
 /**
  * Represents a volunteer who can be assigned to services.
  * Each volunteer has a name, a unique ID, and a list of service preferences.
+ * Instances are immutable, so they can be shared across threads and snapshots.
  */
 public class Volunteer {
     private final String name;
@@ -21,22 +22,23 @@ public class Volunteer {
     public Volunteer(String name, String id, List<Service> preferences) {
         this.name = name;
         this.id = id;
-        this.preferences = new ArrayList<>(preferences); // Defensive copy
+        this.preferences = List.copyOf(preferences); // Defensive, unmodifiable copy
     }
 
     /**
      * Copy constructor to create a new Volunteer instance based on an existing one.
-     * The preferences list is deeply copied to ensure immutability.
+     * The preferences list is deeply copied.
      *
      * @param other The existing Volunteer instance to copy.
      */
     public Volunteer(Volunteer other) {
         this.name = other.name;
         this.id = other.id;
-        this.preferences = new ArrayList<>();
+        List<Service> prefs = new ArrayList<>();
         for (Service s : other.preferences) {
-            this.preferences.add(new Service(s));
+            prefs.add(new Service(s));
         }
+        this.preferences = List.copyOf(prefs);
     }
 
     /**
@@ -60,7 +62,7 @@ public class Volunteer {
     /**
      * Gets the list of services the volunteer prefers.
      *
-     * @return The list of preferred services.
+     * @return The unmodifiable list of preferred services.
      */
     public List<Service> getPreferences() {
         return preferences;
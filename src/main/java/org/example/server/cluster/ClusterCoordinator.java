@@ -0,0 +1,422 @@
+package org.example.server.cluster;
+
+import org.example.domain.Assignment;
+import org.example.domain.Service;
+import org.example.domain.Volunteer;
+import org.example.server.log.AsyncLog;
+import org.example.server.logic.GeneticAlgorithm;
+import org.example.server.metrics.PrometheusText;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coordinator side of distributed optimization: an island-model GA spread
+ * over worker JVMs ({@link ClusterWorker}) that connect to it over TCP.
+ *
+ * For each run, {@link #submit} ships the encoded problem
+ * ({@link ProblemCodec}) to every connected worker, and each evolves its own
+ * island. The coordinator's own GA is one more island, connected through
+ * the returned {@link Job} (a {@link GeneticAlgorithm.Migration}). Whenever
+ * an island improves on the global best, it is forwarded to every other
+ * island as an immigrant. {@link Job#merge} then waits (at most
+ * {@code waitMs}) for the workers' final results and returns the best one.
+ *
+ * Workers are untrusted for correctness: every solution is re-checked
+ * against capacities and re-scored here. A worker that disconnects, fails
+ * or stays silent only loses its island; the run always has the local one.
+ */
+public final class ClusterCoordinator implements Closeable {
+
+    private static final AsyncLog LOG = AsyncLog.get("cluster");
+
+    private final ServerSocket server;
+    private final long waitMs;
+    private final Set<WorkerLink> workers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong nextJob = new AtomicLong();
+    private volatile Job current;
+    private volatile boolean closed;
+
+    private final LongAdder jobs = new LongAdder();
+    private final LongAdder workersLost = new LongAdder();
+    private final LongAdder solutionsReceived = new LongAdder();
+    private final LongAdder solutionsRejected = new LongAdder();
+    private final LongAdder remoteWins = new LongAdder();
+
+    /**
+     * Listens for workers on loopback {@code port} (0 = any free port).
+     *
+     * @param port   TCP port for workers to connect to.
+     * @param waitMs How long {@link Job#merge} waits for workers after the local island is done.
+     * @throws IOException if the port cannot be bound.
+     */
+    public ClusterCoordinator(int port, long waitMs) throws IOException {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), waitMs);
+    }
+
+    /**
+     * Listens for workers on {@code address}. Workers are sent every
+     * volunteer of a run, so only bind where untrusted hosts cannot connect.
+     *
+     * @param address Where workers connect to (port 0 = any free port).
+     * @param waitMs  How long {@link Job#merge} waits for workers after the local island is done.
+     * @throws IOException if the address cannot be bound.
+     */
+    public ClusterCoordinator(InetSocketAddress address, long waitMs) throws IOException {
+        this.server = new ServerSocket();
+        this.server.setReuseAddress(true);
+        this.server.bind(address);
+        this.waitMs = waitMs;
+        Thread t = new Thread(this::acceptLoop, "cluster-accept");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** @return The port workers connect to. */
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    /** @return Workers currently connected. */
+    public int workers() {
+        return workers.size();
+    }
+
+    /**
+     * Starts a distributed run: sends the problem to every connected worker.
+     * Evolve the local island with the returned job as its migration, then
+     * call {@link Job#merge} (or {@link Job#cancel}).
+     *
+     * @param volunteers Volunteers to assign.
+     * @param services   Services to assign them to.
+     * @param seed       volunteerId → service name to start from (may be empty).
+     * @return The job, or {@code null} if no worker is connected.
+     */
+    public Job submit(Collection<Volunteer> volunteers, List<Service> services, Map<String, String> seed) {
+        if (workers.isEmpty()) return null;
+        Job job = new Job(nextJob.incrementAndGet(), volunteers, services);
+        byte[] problem = ProblemCodec.encode(volunteers, services, seed);
+        current = job;
+        jobs.increment();
+        for (WorkerLink w : workers) {
+            job.running.add(w);
+            w.send(new Frame(Frame.PROBLEM, job.id, 0, 0, problem));
+        }
+        LOG.info("Job %d: %d volunteers (%d bytes) sent to %d workers",
+                job.id, volunteers.size(), problem.length, job.running.size());
+        return job;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        for (WorkerLink w : workers) w.close();
+    }
+
+    /* ========== one run ========== */
+
+    /** One distributed run; the local island's {@link GeneticAlgorithm.Migration}. */
+    public final class Job implements GeneticAlgorithm.Migration {
+        final long id;
+        private final List<String> volunteerIds = new ArrayList<>();
+        private final Map<String, Volunteer> volunteersById = new LinkedHashMap<>();
+        private final List<Service> services;
+        private final Map<String, Service> servicesByName = new HashMap<>();
+        final Set<WorkerLink> running = ConcurrentHashMap.newKeySet();
+
+        // best across all islands; guarded by this
+        private Map<String, String> best;
+        private int bestAssigned = -1;
+        private int bestCost = Integer.MAX_VALUE;
+        private boolean bestIsRemote;
+
+        private final AtomicReference<Map<String, String>> immigrant = new AtomicReference<>();
+
+        private Job(long id, Collection<Volunteer> volunteers, List<Service> services) {
+            this.id = id;
+            for (Volunteer v : volunteers) {
+                volunteerIds.add(v.getId());
+                volunteersById.put(v.getId(), v);
+            }
+            this.services = List.copyOf(services);
+            for (Service s : services) servicesByName.put(s.getName(), s);
+        }
+
+        /* ---------- local island ---------- */
+
+        @Override
+        public void improved(int generation, int cost, Map<String, String> solution) {
+            offer(solution, null);
+        }
+
+        @Override
+        public Map<String, String> immigrant() {
+            return immigrant.getAndSet(null);
+        }
+
+        /**
+         * Waits for the workers' results (at most {@code waitMs}) and returns
+         * the best solution across all islands, local included.
+         *
+         * @param local The local island's result.
+         * @return The best assignment found.
+         */
+        public List<Assignment> merge(List<Assignment> local) {
+            Map<String, String> localSolution = new HashMap<>();
+            for (Assignment a : local) localSolution.put(a.getVolunteer().getId(), a.getService().getName());
+            offer(localSolution, null);
+
+            long deadline = System.nanoTime() + waitMs * 1_000_000L;
+            synchronized (this) {
+                try {
+                    for (long left; !running.isEmpty() && (left = deadline - System.nanoTime()) > 0; ) {
+                        wait(Math.max(1, left / 1_000_000L));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();   // settle for what we have
+                }
+            }
+            if (!running.isEmpty()) {
+                LOG.warn("Job %d: %d workers did not finish within %d ms", id, running.size(), waitMs);
+            }
+            Map<String, String> chosen;
+            synchronized (this) {
+                if (bestIsRemote) remoteWins.increment();
+                chosen = best;
+            }
+            cancel();
+            return chosen == null ? local : toAssignments(chosen);
+        }
+
+        /**
+         * Stops the workers still running this job.
+         *
+         * @param localBest The local island's best so far.
+         * @return The best solution across islands (to seed the next run).
+         */
+        public Map<String, String> cancel(Map<String, String> localBest) {
+            offer(localBest, null);
+            cancel();
+            synchronized (this) {
+                return best == null ? localBest : best;
+            }
+        }
+
+        private void cancel() {
+            for (WorkerLink w : running) w.send(Frame.of(Frame.CANCEL, id));
+            running.clear();
+            if (current == this) current = null;
+        }
+
+        /* ---------- worker frames (reader threads) ---------- */
+
+        void onFrame(WorkerLink from, Frame f) {
+            switch (f.type()) {
+                case Frame.BEST, Frame.DONE -> {
+                    solutionsReceived.increment();
+                    try {
+                        offer(ProblemCodec.decodeSolution(f.payload(), volunteerIds, services), from);
+                    } catch (IOException e) {
+                        solutionsRejected.increment();
+                        LOG.warn("Job %d: undecodable solution from %s: %s", id, from.name, e.getMessage());
+                    }
+                    if (f.type() == Frame.DONE) finished(from);
+                }
+                case Frame.FAILED -> {
+                    LOG.warn("Job %d: worker %s failed: %s", id, from.name,
+                            new String(f.payload(), StandardCharsets.UTF_8));
+                    finished(from);
+                }
+                default -> LOG.warn("Job %d: unexpected frame %d from %s", id, f.type(), from.name);
+            }
+        }
+
+        synchronized void finished(WorkerLink w) {
+            running.remove(w);
+            notifyAll();
+        }
+
+        /**
+         * Keeps {@code solution} if it beats the global best, and forwards it to
+         * the other islands. More volunteers placed wins first, then lower cost.
+         */
+        private void offer(Map<String, String> solution, WorkerLink from) {
+            List<Assignment> assignment = toAssignments(solution);
+            if (!fitsCapacity(assignment)) {
+                if (from != null) solutionsRejected.increment();
+                LOG.warn("Job %d: over-capacity solution from %s dropped", id, from == null ? "local" : from.name);
+                return;
+            }
+            int assigned = assignment.size();
+            int cost = GeneticAlgorithm.costOf(assignment);
+            synchronized (this) {
+                if (assigned < bestAssigned || (assigned == bestAssigned && cost >= bestCost)) return;
+                best = solution;
+                bestAssigned = assigned;
+                bestCost = cost;
+                bestIsRemote = from != null;
+            }
+            if (from != null) immigrant.set(solution);
+            byte[] encoded = null;
+            for (WorkerLink w : running) {
+                if (w == from) continue;
+                if (encoded == null) encoded = ProblemCodec.encodeSolution(volunteerIds, services, solution);
+                w.send(new Frame(Frame.MIGRANT, id, 0, cost, encoded));
+            }
+        }
+
+        private List<Assignment> toAssignments(Map<String, String> solution) {
+            List<Assignment> out = new ArrayList<>(solution.size());
+            for (String id : volunteerIds) {
+                Service s = servicesByName.get(solution.get(id));
+                if (s != null) out.add(new Assignment(volunteersById.get(id), s));
+            }
+            return out;
+        }
+
+        private static boolean fitsCapacity(List<Assignment> assignment) {
+            Map<Service, Integer> counts = new HashMap<>();
+            for (Assignment a : assignment) {
+                if (counts.merge(a.getService(), 1, Integer::sum) > a.getService().getCapacity()) return false;
+            }
+            return true;
+        }
+    }
+
+    /* ========== connections ========== */
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket s = server.accept();
+                s.setTcpNoDelay(true);
+                Thread.ofVirtual().name("cluster-link").start(() -> serve(s));
+            } catch (IOException e) {
+                if (!closed) LOG.warn("cluster accept failed: %s", e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket s) {
+        WorkerLink link;
+        DataInputStream in;
+        try {
+            in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            Frame hello = Frame.read(in);
+            if (hello.type() != Frame.HELLO) throw new IOException("expected HELLO, got " + hello.type());
+            link = new WorkerLink(s, new String(hello.payload(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            LOG.warn("rejected worker %s: %s", s.getRemoteSocketAddress(), e.getMessage());
+            closeQuietly(s);
+            return;
+        }
+        workers.add(link);
+        LOG.info("worker %s joined (%d connected)", link.name, workers.size());
+        try {
+            while (true) {
+                Frame f = Frame.read(in);
+                Job job = current;
+                if (job != null && job.id == f.job()) job.onFrame(link, f);   // late frames of old jobs are dropped
+            }
+        } catch (IOException e) {
+            // disconnected (or sent garbage): drop the worker
+        } finally {
+            link.close();
+            if (workers.remove(link) && !closed) {
+                workersLost.increment();
+                LOG.warn("worker %s left (%d connected)", link.name, workers.size());
+            }
+            Job job = current;
+            if (job != null) job.finished(link);
+        }
+    }
+
+    /** A connected worker; frames to it go through a queue so islands never block on its socket. */
+    final class WorkerLink {
+        final String name;
+        private final Socket socket;
+        private final BlockingQueue<Frame> outbox = new LinkedBlockingQueue<>();
+        private final Thread sender;
+
+        WorkerLink(Socket socket, String name) throws IOException {
+            this.socket = socket;
+            this.name = name + "@" + socket.getRemoteSocketAddress();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            this.sender = Thread.ofVirtual().name("cluster-send").start(() -> {
+                try {
+                    while (true) outbox.take().write(out);
+                } catch (IOException | InterruptedException e) {
+                    close();
+                }
+            });
+        }
+
+        void send(Frame f) {
+            outbox.add(f);
+        }
+
+        /** Closes the socket and stops the sender, which may be parked on an empty outbox. */
+        void close() {
+            closeQuietly(socket);
+            sender.interrupt();
+        }
+    }
+
+    private static void closeQuietly(Socket s) {
+        try {
+            s.close();
+        } catch (IOException ignored) {
+            // already gone
+        }
+    }
+
+    /* ========== metrics ========== */
+
+    /** @return Solutions received from workers (BEST and DONE). */
+    public long solutionsReceived() {
+        return solutionsReceived.sum();
+    }
+
+    /** @return Workers that disconnected since startup. */
+    public long workersLost() {
+        return workersLost.sum();
+    }
+
+    /** Appends worker count, jobs, received/rejected solutions, lost workers and remote wins. */
+    public void writeTo(PrometheusText out) {
+        out.header("cluster_workers", "gauge", "Worker JVMs connected to the coordinator.");
+        out.sample("cluster_workers", workers.size());
+        out.header("cluster_jobs_total", "counter", "Runs distributed to workers.");
+        out.sample("cluster_jobs_total", jobs.sum());
+        out.header("cluster_solutions_total", "counter", "Solutions received from workers, by outcome.");
+        out.sample("cluster_solutions_total", solutionsReceived.sum() - solutionsRejected.sum(), "outcome", "accepted");
+        out.sample("cluster_solutions_total", solutionsRejected.sum(), "outcome", "rejected");
+        out.header("cluster_workers_lost_total", "counter", "Workers that disconnected.");
+        out.sample("cluster_workers_lost_total", workersLost.sum());
+        out.header("cluster_remote_wins_total", "counter", "Runs whose published result came from a worker island.");
+        out.sample("cluster_remote_wins_total", remoteWins.sum());
+    }
+}
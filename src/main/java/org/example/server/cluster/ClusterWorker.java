@@ -0,0 +1,212 @@
+package org.example.server.cluster;
+
+import org.example.domain.Assignment;
+import org.example.domain.Volunteer;
+import org.example.server.log.AsyncLog;
+import org.example.server.logic.CancellationToken;
+import org.example.server.logic.GeneticAlgorithm;
+import org.example.server.logic.RunCancelledException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Worker side of distributed optimization: connects to a
+ * {@link ClusterCoordinator} and evolves one GA island per job it is sent,
+ * streaming every improvement back and taking in the coordinator's
+ * immigrants. A newer job or a CANCEL stops the current island.
+ *
+ * The worker reconnects (with jittered backoff) whenever the coordinator
+ * goes away, so workers and server can be restarted independently.
+ *
+ * Run one per JVM:
+ * <pre>
+ *   java -cp target/classes:&lt;gson.jar&gt; org.example.server.cluster.ClusterWorker localhost:9100 [name]
+ * </pre>
+ */
+public final class ClusterWorker implements Closeable {
+
+    private static final AsyncLog LOG = AsyncLog.get("cluster");
+    private static final long MAX_BACKOFF_MS = 10_000;
+
+    private final String host;
+    private final int port;
+    private final String name;
+    private volatile boolean closed;
+    private volatile Socket socket;
+    private DataOutputStream out;   // guarded by this
+
+    /** The island running now, if any. */
+    private record Island(long job, CancellationToken token, AtomicReference<Map<String, String>> immigrant) {}
+
+    private volatile Island island;
+
+    /**
+     * @param host Coordinator host.
+     * @param port Coordinator port.
+     * @param name Name reported to the coordinator (for its logs).
+     */
+    public ClusterWorker(String host, int port, String name) {
+        this.host = host;
+        this.port = port;
+        this.name = name;
+    }
+
+    /** Connects in the background and serves jobs until {@link #close}. */
+    public void start() {
+        Thread t = new Thread(this::connectLoop, "cluster-worker-" + name);
+        t.setDaemon(true);
+        t.start();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        stopIsland();
+        Socket s = socket;
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException ignored) {
+                // closing anyway
+            }
+        }
+    }
+
+    private void connectLoop() {
+        long backoff = 250;
+        while (!closed) {
+            try (Socket s = new Socket()) {
+                s.connect(new InetSocketAddress(host, port), 5_000);
+                s.setTcpNoDelay(true);
+                socket = s;
+                synchronized (this) {
+                    out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+                    new Frame(Frame.HELLO, 0, 0, 0, name.getBytes(StandardCharsets.UTF_8)).write(out);
+                }
+                LOG.info("worker %s connected to %s:%d", name, host, port);
+                backoff = 250;
+                serve(new DataInputStream(new BufferedInputStream(s.getInputStream())));
+            } catch (IOException e) {
+                if (!closed) LOG.info("worker %s: coordinator %s:%d unavailable (%s)", name, host, port, e.getMessage());
+            } finally {
+                stopIsland();
+            }
+            if (closed) return;
+            try {
+                Thread.sleep(backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+            } catch (InterruptedException e) {
+                return;
+            }
+            backoff = Math.min(MAX_BACKOFF_MS, backoff * 2);
+        }
+    }
+
+    private void serve(DataInputStream in) throws IOException {
+        ProblemCodec.Problem problem = null;
+        List<String> ids = List.of();
+        while (true) {
+            Frame f = Frame.read(in);
+            switch (f.type()) {
+                case Frame.PROBLEM -> {
+                    stopIsland();
+                    problem = ProblemCodec.decode(f.payload());
+                    ids = new ArrayList<>(problem.volunteers().size());
+                    for (Volunteer v : problem.volunteers()) ids.add(v.getId());
+                    startIsland(f.job(), problem, ids);
+                }
+                case Frame.MIGRANT -> {
+                    Island i = island;
+                    if (i != null && i.job() == f.job() && problem != null) {
+                        i.immigrant().set(ProblemCodec.decodeSolution(f.payload(), ids, problem.services()));
+                    }
+                }
+                case Frame.CANCEL -> {
+                    Island i = island;
+                    if (i != null && i.job() == f.job()) stopIsland();
+                }
+                default -> throw new IOException("unexpected frame " + f.type());
+            }
+        }
+    }
+
+    private void startIsland(long job, ProblemCodec.Problem problem, List<String> ids) {
+        Island i = new Island(job, new CancellationToken(), new AtomicReference<>());
+        island = i;
+        Thread.ofPlatform().daemon().name("island-" + job).start(() -> {
+            GeneticAlgorithm ga = new GeneticAlgorithm(problem.volunteers(), problem.services());
+            GeneticAlgorithm.Migration migration = new GeneticAlgorithm.Migration() {
+                @Override
+                public void improved(int generation, int cost, Map<String, String> best) {
+                    send(new Frame(Frame.BEST, job, generation, cost,
+                            ProblemCodec.encodeSolution(ids, problem.services(), best)));
+                }
+
+                @Override
+                public Map<String, String> immigrant() {
+                    return i.immigrant().getAndSet(null);
+                }
+            };
+            try {
+                List<Assignment> result = ga.optimize(i.token(), problem.seed(), migration);
+                Map<String, String> solution = new HashMap<>();
+                for (Assignment a : result) solution.put(a.getVolunteer().getId(), a.getService().getName());
+                GeneticAlgorithm.RunStats stats = ga.getLastRunStats();
+                send(new Frame(Frame.DONE, job, stats == null ? 0 : stats.generations(),
+                        GeneticAlgorithm.costOf(result), ProblemCodec.encodeSolution(ids, problem.services(), solution)));
+            } catch (RunCancelledException e) {
+                // superseded or cancelled: the coordinator no longer wants it
+            } catch (RuntimeException e) {
+                LOG.error(e, "worker %s: job %d failed", name, job);
+                send(new Frame(Frame.FAILED, job, 0, 0, String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8)));
+            }
+        });
+    }
+
+    private void stopIsland() {
+        Island i = island;
+        if (i != null) {
+            i.token().cancel();
+            island = null;
+        }
+    }
+
+    private void send(Frame f) {
+        try {
+            synchronized (this) {
+                f.write(out);
+            }
+        } catch (IOException e) {
+            // connection lost: the read loop notices, stops the island and reconnects
+        }
+    }
+
+    /**
+     * Runs a worker until the JVM is stopped.
+     *
+     * @param args {@code host:port} of the coordinator, optionally a worker name.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1 || !args[0].contains(":")) {
+            System.err.println("usage: ClusterWorker <coordinatorHost:port> [name]");
+            System.exit(2);
+        }
+        String[] hp = args[0].split(":", 2);
+        String name = args.length > 1 ? args[1] : "worker-" + ProcessHandle.current().pid();
+        new ClusterWorker(hp[0], Integer.parseInt(hp[1]), name).start();
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.server.cluster;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * One message between coordinator and worker. Every message has the same
+ * layout, {@code type job generation cost length payload}; unused fields
+ * are 0.
+ *
+ * @param type       One of the constants below.
+ * @param job        Job the message is about (0 for HELLO).
+ * @param generation Generation of a BEST/DONE solution.
+ * @param cost       Cost the sender computed for the payload solution.
+ * @param payload    Encoded problem or solution ({@link ProblemCodec}), worker name, or error text.
+ */
+record Frame(byte type, long job, int generation, int cost, byte[] payload) {
+
+    /** worker → coordinator, first frame: payload = worker name (UTF-8). */
+    static final byte HELLO = 1;
+    /** coordinator → worker: payload = encoded problem; starts an island. */
+    static final byte PROBLEM = 2;
+    /** coordinator → worker: payload = better solution found elsewhere. */
+    static final byte MIGRANT = 3;
+    /** coordinator → worker: stop the job. */
+    static final byte CANCEL = 4;
+    /** worker → coordinator: payload = the island's new best solution. */
+    static final byte BEST = 5;
+    /** worker → coordinator: payload = the island's final solution. */
+    static final byte DONE = 6;
+    /** worker → coordinator: payload = error text; the island gave up. */
+    static final byte FAILED = 7;
+
+    private static final int MAX_PAYLOAD = 64 << 20;
+    private static final byte[] EMPTY = {};
+
+    static Frame of(byte type, long job) {
+        return new Frame(type, job, 0, 0, EMPTY);
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeByte(type);
+        out.writeLong(job);
+        out.writeInt(generation);
+        out.writeInt(cost);
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.flush();
+    }
+
+    static Frame read(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        long job = in.readLong();
+        int generation = in.readInt();
+        int cost = in.readInt();
+        int length = in.readInt();
+        if (length < 0 || length > MAX_PAYLOAD) throw new IOException("bad frame length " + length);
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return new Frame(type, job, generation, cost, payload);
+    }
+}
@@ -0,0 +1,207 @@
+package org.example.server.cluster;
+
+import org.example.domain.Service;
+import org.example.domain.Volunteer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary form of an optimization problem and of its solutions, as
+ * shipped between coordinator and workers.
+ *
+ * A problem lists each service once (name, capacity) and each volunteer as
+ * its id plus preference <em>indices</em> into that list; names are left
+ * out since the solver never reads them. A solution is one service index per
+ * volunteer, in problem order: a byte each when there are fewer than 255
+ * services, else a short (the all-ones value meaning "unassigned").
+ *
+ * <pre>
+ *   problem  := MAGIC varint(#services) { utf(name) varint(capacity) }
+ *               varint(#volunteers) { utf(id) varint(#prefs) { varint(serviceIndex) } }
+ *               bool(hasSeed) [solution]
+ *   solution := { u8 | u16 } × #volunteers
+ * </pre>
+ */
+public final class ProblemCodec {
+
+    private static final int MAGIC = 0x564D5031;   // "VMP1"
+
+    private ProblemCodec() {}
+
+    /**
+     * A decoded problem, in the order it was encoded.
+     *
+     * @param services   Services with capacities.
+     * @param volunteers Volunteers (named by id) with preferences into {@code services}.
+     * @param seed       volunteerId → service name to start from (may be empty).
+     */
+    public record Problem(List<Service> services, List<Volunteer> volunteers, Map<String, String> seed) {}
+
+    /**
+     * Encodes a problem. Preferences naming unknown services are dropped.
+     *
+     * @param volunteers Volunteers, encoded in iteration order.
+     * @param services   Services, encoded in list order.
+     * @param seed       volunteerId → service name (may be empty).
+     * @return The encoded problem.
+     */
+    public static byte[] encode(Collection<Volunteer> volunteers, List<Service> services, Map<String, String> seed) {
+        Map<String, Integer> index = serviceIndex(services);
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(64 + volunteers.size() * 24);
+        try (DataOutputStream out = new DataOutputStream(buf)) {
+            out.writeInt(MAGIC);
+            writeVarInt(out, services.size());
+            for (Service s : services) {
+                out.writeUTF(s.getName());
+                writeVarInt(out, s.getCapacity());
+            }
+            writeVarInt(out, volunteers.size());
+            List<String> ids = new ArrayList<>(volunteers.size());
+            for (Volunteer v : volunteers) {
+                out.writeUTF(v.getId());
+                ids.add(v.getId());
+                List<Integer> prefs = new ArrayList<>();
+                for (Service s : v.getPreferences()) {
+                    Integer i = index.get(s.getName());
+                    if (i != null) prefs.add(i);
+                }
+                writeVarInt(out, prefs.size());
+                for (int i : prefs) writeVarInt(out, i);
+            }
+            out.writeBoolean(!seed.isEmpty());
+            if (!seed.isEmpty()) writeSolution(out, ids, index, seed);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);   // in-memory stream
+        }
+        return buf.toByteArray();
+    }
+
+    /**
+     * Decodes {@link #encode}'s output.
+     *
+     * @param bytes The encoded problem.
+     * @return The problem.
+     * @throws IOException if the bytes are not a problem.
+     */
+    public static Problem decode(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != MAGIC) throw new IOException("not an encoded problem");
+
+        int serviceCount = readVarInt(in);
+        List<Service> services = new ArrayList<>(serviceCount);
+        for (int i = 0; i < serviceCount; i++) {
+            services.add(new Service(in.readUTF(), readVarInt(in)));
+        }
+        int volunteerCount = readVarInt(in);
+        List<Volunteer> volunteers = new ArrayList<>(volunteerCount);
+        List<String> ids = new ArrayList<>(volunteerCount);
+        for (int i = 0; i < volunteerCount; i++) {
+            String id = in.readUTF();
+            int n = readVarInt(in);
+            List<Service> prefs = new ArrayList<>(n);
+            for (int p = 0; p < n; p++) {
+                int s = readVarInt(in);
+                if (s >= serviceCount) throw new IOException("preference index out of range: " + s);
+                prefs.add(services.get(s));
+            }
+            volunteers.add(new Volunteer(id, id, prefs));
+            ids.add(id);
+        }
+        Map<String, String> seed = in.readBoolean() ? readSolution(in, ids, services) : Map.of();
+        return new Problem(services, volunteers, seed);
+    }
+
+    /**
+     * Encodes a solution relative to a problem's volunteer and service order.
+     *
+     * @param volunteerIds Volunteer ids in problem order.
+     * @param services     Services in problem order.
+     * @param solution     volunteerId → service name.
+     * @return The encoded solution.
+     */
+    public static byte[] encodeSolution(List<String> volunteerIds, List<Service> services, Map<String, String> solution) {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(volunteerIds.size() * 2);
+        try (DataOutputStream out = new DataOutputStream(buf)) {
+            writeSolution(out, volunteerIds, serviceIndex(services), solution);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buf.toByteArray();
+    }
+
+    /**
+     * Decodes {@link #encodeSolution}'s output.
+     *
+     * @param bytes        The encoded solution.
+     * @param volunteerIds Volunteer ids in problem order.
+     * @param services     Services in problem order.
+     * @return volunteerId → service name (unassigned volunteers left out).
+     * @throws IOException if the bytes do not fit the problem.
+     */
+    public static Map<String, String> decodeSolution(byte[] bytes, List<String> volunteerIds, List<Service> services)
+            throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        return readSolution(in, volunteerIds, services);
+    }
+
+    /* ---------- helpers ---------- */
+
+    private static Map<String, Integer> serviceIndex(List<Service> services) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < services.size(); i++) index.put(services.get(i).getName(), i);
+        return index;
+    }
+
+    private static void writeSolution(DataOutput out, List<String> ids, Map<String, Integer> index,
+                                      Map<String, String> solution) throws IOException {
+        boolean wide = index.size() >= 0xFF;
+        for (String id : ids) {
+            Integer s = index.get(solution.get(id));
+            int v = s == null ? (wide ? 0xFFFF : 0xFF) : s;
+            if (wide) out.writeShort(v); else out.writeByte(v);
+        }
+    }
+
+    private static Map<String, String> readSolution(DataInput in, List<String> ids, List<Service> services)
+            throws IOException {
+        boolean wide = services.size() >= 0xFF;
+        Map<String, String> solution = new HashMap<>(ids.size() * 2);
+        for (String id : ids) {
+            int s = wide ? in.readUnsignedShort() : in.readUnsignedByte();
+            if (s == (wide ? 0xFFFF : 0xFF)) continue;
+            if (s >= services.size()) throw new IOException("service index out of range: " + s);
+            solution.put(id, services.get(s).getName());
+        }
+        return solution;
+    }
+
+    static void writeVarInt(DataOutput out, int v) throws IOException {
+        while ((v & ~0x7F) != 0) {
+            out.writeByte((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int v = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("varint too long");
+    }
+}
@@ -0,0 +1,236 @@
+package org.example.server.log;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.IllegalFormatException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous, leveled, sampled logging for the server.
+ *
+ * A log call only checks the level, rolls the sampling dice and offers a
+ * small event to a lock-free {@link MpscRing}; formatting and writing to
+ * stdout happen on one background "async-log" thread, in batches. When the
+ * ring is full the event is dropped and counted ({@link #dropped()}) rather
+ * than blocking the caller. Arguments are formatted later, on the writer
+ * thread, so pass immutable values.
+ *
+ * Configuration (system properties, read when a logger is first requested):
+ *   log.level=DEBUG|INFO|WARN|ERROR     default level for every logger (INFO)
+ *   log.&lt;name&gt;.level=...              level for one logger
+ *   log.&lt;name&gt;.sample=N              keep 1 in N DEBUG/INFO events (WARN and ERROR are never sampled)
+ * e.g. {@code -Dlog.access.sample=100 -Dlog.ga.level=DEBUG}.
+ */
+public final class AsyncLog {
+
+    /** Severity, lowest first. */
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    private static final int RING_CAPACITY = 8192;
+    private static final long IDLE_PARK_NS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final DateTimeFormatter TIME =
+            DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    private record Event(long millis, Level level, String logger, String thread,
+                         String format, Object[] args, Throwable error) {}
+
+    private static final MpscRing<Event> RING = new MpscRing<>(RING_CAPACITY);
+    private static final LongAdder DROPPED = new LongAdder();
+    private static final Map<String, AsyncLog> LOGGERS = new ConcurrentHashMap<>();
+    private static final Level DEFAULT_LEVEL = parseLevel(System.getProperty("log.level"), Level.INFO);
+
+    private static volatile boolean closing;
+    private static final Thread WRITER = startWriter(System.out);
+
+    private final String name;
+    private volatile Level level;
+    private volatile int sampleEvery;
+
+    private AsyncLog(String name) {
+        this.name = name;
+        this.level = parseLevel(System.getProperty("log." + name + ".level"), DEFAULT_LEVEL);
+        this.sampleEvery = Math.max(1, parseInt(System.getProperty("log." + name + ".sample"), 1));
+    }
+
+    /**
+     * Gets (or creates) the logger for a component.
+     *
+     * @param name Short component name, used in output and in property keys.
+     * @return The shared logger for that name.
+     */
+    public static AsyncLog get(String name) {
+        return LOGGERS.computeIfAbsent(name, AsyncLog::new);
+    }
+
+    /**
+     * Sets the minimum level this logger records.
+     *
+     * @param level The new threshold.
+     */
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    /**
+     * Keeps only about one in {@code n} DEBUG/INFO events.
+     *
+     * @param n The sampling divisor; 1 keeps everything.
+     */
+    public void setSampleEvery(int n) {
+        this.sampleEvery = Math.max(1, n);
+    }
+
+    /**
+     * Checks whether events at a level would be recorded (before sampling).
+     * Guard expensive arguments with this.
+     *
+     * @param l The level.
+     * @return True if enabled.
+     */
+    public boolean isEnabled(Level l) {
+        return l.compareTo(level) >= 0;
+    }
+
+    /**
+     * Shorthand for {@code isEnabled(Level.DEBUG)}.
+     *
+     * @return True if debug output is on.
+     */
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    /** Logs at DEBUG; {@code format} uses {@link String#format} syntax. */
+    public void debug(String format, Object... args) {
+        log(Level.DEBUG, null, format, args);
+    }
+
+    /** Logs at INFO. */
+    public void info(String format, Object... args) {
+        log(Level.INFO, null, format, args);
+    }
+
+    /** Logs at WARN. */
+    public void warn(String format, Object... args) {
+        log(Level.WARN, null, format, args);
+    }
+
+    /** Logs at ERROR with the stack trace of {@code error}. */
+    public void error(Throwable error, String format, Object... args) {
+        log(Level.ERROR, error, format, args);
+    }
+
+    private void log(Level l, Throwable error, String format, Object[] args) {
+        if (!isEnabled(l)) return;
+        int n = sampleEvery;
+        if (n > 1 && l.compareTo(Level.WARN) < 0 && ThreadLocalRandom.current().nextInt(n) != 0) return;
+
+        Event e = new Event(System.currentTimeMillis(), l, name,
+                Thread.currentThread().getName(), format, args, error);
+        if (!RING.offer(e)) DROPPED.increment();
+    }
+
+    /* ---------- Metrics ---------- */
+
+    /**
+     * Gets the number of events dropped because the ring was full.
+     *
+     * @return Dropped events since startup.
+     */
+    public static long dropped() {
+        return DROPPED.sum();
+    }
+
+    /**
+     * Gets the number of events waiting for the writer.
+     *
+     * @return Approximate queue depth.
+     */
+    public static int pending() {
+        return RING.size();
+    }
+
+    /* ---------- Writer thread ---------- */
+
+    private static Thread startWriter(PrintStream out) {
+        Thread t = new Thread(() -> drainLoop(out), "async-log");
+        t.setDaemon(true);
+        t.start();
+        // give queued lines a chance to reach stdout on normal exit
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            closing = true;
+            LockSupport.unpark(t);
+            try {
+                t.join(1000);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        }, "async-log-flush"));
+        return t;
+    }
+
+    private static void drainLoop(PrintStream out) {
+        StringBuilder batch = new StringBuilder(4096);
+        while (true) {
+            Event e = RING.poll();
+            if (e != null) {
+                append(batch, e);
+                if (batch.length() < 64 * 1024) continue;
+            }
+            if (batch.length() > 0) {
+                out.print(batch);
+                out.flush();
+                batch.setLength(0);
+                continue;
+            }
+            if (closing) return;
+            LockSupport.parkNanos(IDLE_PARK_NS);
+        }
+    }
+
+    private static void append(StringBuilder sb, Event e) {
+        TIME.formatTo(Instant.ofEpochMilli(e.millis()), sb);
+        sb.append(' ').append(e.level());
+        if (e.level().name().length() == 4) sb.append(' ');
+        sb.append(" [").append(e.thread()).append("] ").append(e.logger()).append(" - ");
+        try {
+            sb.append(e.args().length == 0 ? e.format() : String.format(Locale.ROOT, e.format(), e.args()));
+        } catch (IllegalFormatException bad) {
+            sb.append(e.format());
+        }
+        sb.append(System.lineSeparator());
+        if (e.error() != null) {
+            StringWriter trace = new StringWriter();
+            e.error().printStackTrace(new PrintWriter(trace));
+            sb.append(trace);
+        }
+    }
+
+    private static Level parseLevel(String s, Level dflt) {
+        if (s == null) return dflt;
+        try {
+            return Level.valueOf(s.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return dflt;
+        }
+    }
+
+    private static int parseInt(String s, int dflt) {
+        if (s == null) return dflt;
+        try {
+            return Integer.parseInt(s.trim());
+        } catch (NumberFormatException e) {
+            return dflt;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.server.log;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, lock-free multi-producer / single-consumer ring buffer.
+ *
+ * Each slot carries a sequence number (Vyukov's bounded queue): a producer
+ * claims a slot with one CAS on the tail, writes the element, then publishes
+ * it by advancing the slot's sequence. {@link #offer} never blocks or spins
+ * on a full ring; it fails and the caller decides what to do (the log drops).
+ * Only one thread may call {@link #poll}.
+ *
+ * @param <E> element type
+ */
+public final class MpscRing<E> {
+
+    private static final VarHandle SEQ = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] sequences;
+    private final Object[] slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;                          // written by the consumer only
+
+    /**
+     * Constructs an empty ring.
+     *
+     * @param capacity The slot count; rounded up to a power of two.
+     */
+    public MpscRing(int capacity) {
+        int cap = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        sequences = new long[cap];
+        slots = new Object[cap];
+        mask = cap - 1;
+        for (int i = 0; i < cap; i++) sequences[i] = i;
+    }
+
+    /**
+     * Adds an element if there is room. Safe from any number of threads.
+     *
+     * @param e The element (not null).
+     * @return False if the ring was full.
+     */
+    public boolean offer(E e) {
+        long pos = tail.get();
+        while (true) {
+            int i = (int) pos & mask;
+            long seq = (long) SEQ.getAcquire(sequences, i);
+            long dif = seq - pos;
+            if (dif == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots[i] = e;
+                    SEQ.setRelease(sequences, i, pos + 1);   // element is visible before the sequence
+                    return true;
+                }
+                pos = tail.get();
+            } else if (dif < 0) {
+                return false;                                // consumer has not freed this slot yet
+            } else {
+                pos = tail.get();                            // another producer took it
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest published element. Single consumer only.
+     *
+     * @return The element, or {@code null} if none is ready.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        int i = (int) head & mask;
+        if ((long) SEQ.getAcquire(sequences, i) != head + 1) return null;
+        E e = (E) slots[i];
+        slots[i] = null;
+        SEQ.setRelease(sequences, i, head + slots.length);  // hand the slot back to producers
+        head++;
+        return e;
+    }
+
+    /**
+     * Gets an approximate element count.
+     *
+     * @return Elements claimed by producers and not yet polled.
+     */
+    public int size() {
+        long n = tail.get() - head;
+        return (int) Math.max(0, Math.min(n, slots.length));
+    }
+
+    /**
+     * Gets the slot count.
+     *
+     * @return The capacity.
+     */
+    public int capacity() {
+        return slots.length;
+    }
+}
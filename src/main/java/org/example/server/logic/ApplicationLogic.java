@@ -1,29 +1,83 @@
 package org.example.server.logic;
 
 import org.example.domain.*;
+import org.example.server.cluster.ClusterCoordinator;
+import org.example.server.metrics.LatencyHistogram;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * ApplicationLogic handles the optimization process for assigning volunteers to services.
- * It ensures thread safety and data isolation for concurrent operations.
+ * It ensures thread safety for concurrent operations.
+ *
+ * Volunteers and services are immutable, so the inputs are used as given (a
+ * point-in-time snapshot from the volunteer store is enough); GeneticAlgorithm
+ * builds its own normalized working copies.
+ *
+ * With a {@link ClusterCoordinator}, each run is distributed: the local GA
+ * becomes one island and every connected worker JVM evolves another.
  */
 public class ApplicationLogic {
 
     // Thread-safe lock object for guarding optimization
     private static final Object optimizationLock = new Object();
 
+    // remote islands, or null to optimize in this JVM only
+    private final ClusterCoordinator cluster;
+
+    // solver statistics across runs, read by /metrics
+    private final LatencyHistogram runDurations = new LatencyHistogram();
+    private final LongAdder stagnationStops = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder cancellations = new LongAdder();
+    private volatile GeneticAlgorithm.RunStats lastRunStats;
+
+    /**
+     * Constructs an ApplicationLogic that optimizes in this JVM only.
+     */
+    public ApplicationLogic() {
+        this(null);
+    }
+
+    /**
+     * Constructs an ApplicationLogic that distributes runs over the
+     * coordinator's workers whenever any are connected.
+     *
+     * @param cluster The coordinator, or {@code null} for local runs only.
+     */
+    public ApplicationLogic(ClusterCoordinator cluster) {
+        this.cluster = cluster;
+    }
+
     /**
      * Main entry point for running the optimization algorithm.
-     * This method is thread-safe and ensures data isolation by creating deep copies of input lists.
+     * This method is thread-safe; the inputs are only read.
+     *
+     * @param volunteers Volunteers to be assigned (e.g. a store snapshot).
+     * @param services   List of services to be assigned to.
+     * @return List of assignments resulting from the optimization process.
+     * @throws IllegalArgumentException if volunteers or services list is null or empty.
+     */
+    public List<Assignment> runOptimization(Collection<Volunteer> volunteers, List<Service> services) {
+        return runOptimization(volunteers, services, CancellationToken.NONE, Map.of());
+    }
+
+    /**
+     * Runs the optimization cancellably, optionally seeded with a previous result.
      *
-     * @param volunteers List of volunteers to be assigned.
+     * @param volunteers Volunteers to be assigned (e.g. a store snapshot).
      * @param services   List of services to be assigned to.
+     * @param token      Cancels the run at its next generation.
+     * @param seed       volunteerId → service name to start from (may be empty).
      * @return List of assignments resulting from the optimization process.
      * @throws IllegalArgumentException if volunteers or services list is null or empty.
+     * @throws RunCancelledException    if the token was cancelled (carries the best so far).
      */
-    public List<Assignment> runOptimization(List<Volunteer> volunteers, List<Service> services) {
+    public List<Assignment> runOptimization(Collection<Volunteer> volunteers, List<Service> services,
+                                            CancellationToken token, Map<String, String> seed) {
         if (volunteers == null || volunteers.isEmpty()) {
             throw new IllegalArgumentException("Volunteer list is null or empty.");
         }
@@ -32,42 +86,81 @@ public class ApplicationLogic {
             throw new IllegalArgumentException("Service list is null or empty.");
         }
 
-        // Deep copy to isolate data per thread
-        List<Volunteer> safeVolunteers = deepCopyVolunteers(volunteers);
-        List<Service> safeServices = deepCopyServices(services);
-
         // Synchronize on the lock to ensure thread-safe optimization
         synchronized (optimizationLock) {
-            GeneticAlgorithm ga = new GeneticAlgorithm(safeVolunteers, safeServices);
-            return ga.optimize(); 
+            if (token.isCancelled()) {
+                cancellations.increment();
+                throw new RunCancelledException(0, seed);   // superseded while waiting for the lock
+            }
+            GeneticAlgorithm ga = new GeneticAlgorithm(volunteers, services);
+            ClusterCoordinator.Job job = cluster == null ? null : cluster.submit(volunteers, services, seed);
+            try {
+                List<Assignment> result = job == null
+                        ? ga.optimize(token, seed)
+                        : job.merge(ga.optimize(token, seed, job));
+                recordRun(ga.getLastRunStats());
+                return result;
+            } catch (RunCancelledException e) {
+                cancellations.increment();
+                if (job == null) throw e;
+                throw new RunCancelledException(0, job.cancel(e.getBestSoFar()));   // best of all islands
+            } catch (RuntimeException e) {
+                if (job != null) job.cancel(Map.of());
+                throw e;
+            }
         }
     }
 
+    private void recordRun(GeneticAlgorithm.RunStats stats) {
+        if (stats == null) return;
+        runDurations.record(stats.durationNanos());
+        if (stats.stagnationStop()) stagnationStops.increment();
+        if (stats.usedFallback()) fallbacks.increment();
+        lastRunStats = stats;
+    }
+
     /**
-     * Creates a deep copy of the volunteers list to protect shared data from concurrent modifications.
+     * Gets the distribution of solver run times (its count is the run count).
      *
-     * @param volunteers Original list of volunteers.
-     * @return A deep copy of the volunteers list.
+     * @return The run-duration histogram.
      */
-    private List<Volunteer> deepCopyVolunteers(List<Volunteer> volunteers) {
-        List<Volunteer> copy = new ArrayList<>();
-        for (Volunteer v : volunteers) {
-            copy.add(new Volunteer(v));
-        }
-        return copy;
+    public LatencyHistogram getRunDurations() {
+        return runDurations;
     }
 
     /**
-     * Creates a deep copy of the services list to protect shared data from concurrent modifications.
+     * Gets how many runs stopped early because the best cost stagnated.
      *
-     * @param services Original list of services.
-     * @return A deep copy of the services list.
+     * @return The count since startup.
      */
-    private List<Service> deepCopyServices(List<Service> services) {
-        List<Service> copy = new ArrayList<>();
-        for (Service s : services) {
-            copy.add(new Service(s));
-        }
-        return copy;
+    public long getStagnationStops() {
+        return stagnationStops.sum();
+    }
+
+    /**
+     * Gets how many runs returned the fallback assignment.
+     *
+     * @return The count since startup.
+     */
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    /**
+     * Gets how many runs were cancelled because newer data superseded them.
+     *
+     * @return The count since startup.
+     */
+    public long getCancellations() {
+        return cancellations.sum();
+    }
+
+    /**
+     * Gets the statistics of the most recent run.
+     *
+     * @return The stats, or {@code null} before the first run.
+     */
+    public GeneticAlgorithm.RunStats getLastRunStats() {
+        return lastRunStats;
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,119 @@
+package org.example.server.logic;
+
+import org.example.domain.*;
+
+import java.util.*;
+
+/**
+ * The difference between two optimization results: which volunteers were
+ * newly assigned, which moved to a different service, and which lost their
+ * assignment. Publishing only the diff makes the broadcast cost scale with
+ * churn instead of with the number of volunteers.
+ */
+public class AssignmentDiff {
+
+    private final List<Assignment> added;
+    private final List<Assignment> moved;
+    private final List<String> removed;
+
+    private AssignmentDiff(List<Assignment> added, List<Assignment> moved, List<String> removed) {
+        this.added = added;
+        this.moved = moved;
+        this.removed = removed;
+    }
+
+    /**
+     * Computes the diff between the previous result and a new one.
+     *
+     * @param previous volunteerId → assigned service name of the previous result.
+     * @param next     The new result.
+     * @return The changes that turn {@code previous} into {@code next}.
+     */
+    public static AssignmentDiff compute(Map<String, String> previous, List<Assignment> next) {
+        List<Assignment> added = new ArrayList<>();
+        List<Assignment> moved = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+
+        for (Assignment a : next) {
+            String id = a.getVolunteer().getId();
+            seen.add(id);
+            String before = previous.get(id);
+            if (before == null) {
+                added.add(a);
+            } else if (!before.equals(a.getService().getName())) {
+                moved.add(a);
+            }
+        }
+
+        List<String> removed = new ArrayList<>();
+        for (String id : previous.keySet()) {
+            if (!seen.contains(id)) removed.add(id);
+        }
+        return new AssignmentDiff(added, moved, removed);
+    }
+
+    /**
+     * Gets the volunteers that had no assignment before.
+     *
+     * @return The new assignments.
+     */
+    public List<Assignment> getAdded() {
+        return added;
+    }
+
+    /**
+     * Gets the volunteers whose service changed.
+     *
+     * @return The changed assignments.
+     */
+    public List<Assignment> getMoved() {
+        return moved;
+    }
+
+    /**
+     * Gets the ids of volunteers that no longer have an assignment.
+     *
+     * @return The removed volunteer ids.
+     */
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Checks whether the two results were identical.
+     *
+     * @return True if nothing was added, moved or removed.
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && moved.isEmpty() && removed.isEmpty();
+    }
+
+    /**
+     * Converts the diff into batch changes (removals carry a null service).
+     *
+     * @return One change per affected volunteer.
+     */
+    public List<AssignmentBatch.Change> toChanges() {
+        List<AssignmentBatch.Change> changes = new ArrayList<>(added.size() + moved.size() + removed.size());
+        for (Assignment a : added) {
+            changes.add(new AssignmentBatch.Change(a.getVolunteer().getId(), a.getService().getName()));
+        }
+        for (Assignment a : moved) {
+            changes.add(new AssignmentBatch.Change(a.getVolunteer().getId(), a.getService().getName()));
+        }
+        for (String id : removed) {
+            changes.add(new AssignmentBatch.Change(id, null));
+        }
+        return changes;
+    }
+
+    /**
+     * Returns a short summary such as "+3 ~1 -0".
+     *
+     * @return The change counts.
+     */
+    @Override
+    public String toString() {
+        return "+" + added.size() + " ~" + moved.size() + " -" + removed.size();
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.server.logic;
+
+/**
+ * Cooperative cancellation flag for one optimization run. The run polls
+ * {@link #isCancelled()} once per generation and stops promptly, so a
+ * superseded run frees the solver within one generation.
+ */
+public final class CancellationToken {
+
+    /** A token that is never cancelled. */
+    public static final CancellationToken NONE = new CancellationToken();
+
+    private volatile boolean cancelled;
+
+    /**
+     * Requests cancellation; the run notices at its next check.
+     */
+    public void cancel() {
+        if (this != NONE) cancelled = true;
+    }
+
+    /**
+     * Checks whether cancellation was requested.
+     *
+     * @return True once {@link #cancel()} was called.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.server.logic;
+
+import org.example.domain.*;
+
+import java.util.*;
+
+/**
+ * Brings a result back within the catalog's capacities by moving as few
+ * volunteers as possible, instead of re-solving: used when a service's
+ * capacity is lowered (and as a guard on every publish).
+ *
+ * For each over-full service it displaces exactly the excess, choosing the
+ * volunteers whose move costs least: each is scored by the GA cost of their
+ * best preference that still has room minus the cost of where they are now.
+ * A volunteer with no such preference is only unassigned when nobody else
+ * can move. Everyone else keeps their assignment.
+ */
+public final class CapacityRepair {
+
+    /** Cost of a volunteer not being assigned, above any move between preferences. */
+    private static final int UNASSIGNED_COST = 1_000;
+
+    /**
+     * @param assignments The repaired result (the input itself if nothing was over capacity).
+     * @param moved       Volunteers moved to another preference.
+     * @param unassigned  Volunteers left without an assignment.
+     */
+    public record Result(List<Assignment> assignments, int moved, int unassigned) {
+
+        /** @return True if the input was already within capacity. */
+        public boolean unchanged() {
+            return moved == 0 && unassigned == 0;
+        }
+    }
+
+    private CapacityRepair() {}
+
+    /**
+     * Repairs a result against current capacities.
+     *
+     * @param result  The assignments to check.
+     * @param catalog Service name → service with its current capacity.
+     * @return The repaired result.
+     */
+    public static Result repair(List<Assignment> result, Map<String, Service> catalog) {
+        Map<String, Integer> load = new HashMap<>();
+        for (Assignment a : result) load.merge(a.getService().getName(), 1, Integer::sum);
+
+        SortedSet<String> over = new TreeSet<>();
+        load.forEach((name, n) -> {
+            if (n > capacity(catalog, name)) over.add(name);
+        });
+        if (over.isEmpty()) return new Result(result, 0, 0);
+
+        List<Assignment> out = new ArrayList<>(result.size());
+        Map<String, List<Assignment>> onOver = new HashMap<>();
+        for (Assignment a : result) {
+            String name = a.getService().getName();
+            if (over.contains(name)) onOver.computeIfAbsent(name, k -> new ArrayList<>()).add(a);
+            else out.add(a);
+        }
+
+        int moved = 0, unassigned = 0;
+        for (String name : over) {
+            int excess = load.get(name) - capacity(catalog, name);
+            PriorityQueue<Candidate> queue = new PriorityQueue<>();
+            for (Assignment a : onOver.get(name)) queue.add(Candidate.of(a, load, catalog));
+
+            while (excess > 0) {
+                Candidate c = queue.poll();
+                if (c.target != null && load.getOrDefault(c.target.getName(), 0) >= c.target.getCapacity()) {
+                    queue.add(Candidate.of(c.assignment, load, catalog));   // its target filled up meanwhile
+                    continue;
+                }
+                if (c.target != null) {
+                    out.add(new Assignment(c.assignment.getVolunteer(), c.target));
+                    load.merge(c.target.getName(), 1, Integer::sum);
+                    moved++;
+                } else {
+                    unassigned++;
+                }
+                load.merge(name, -1, Integer::sum);
+                excess--;
+            }
+            for (Candidate stay : queue) out.add(stay.assignment);
+        }
+        return new Result(out, moved, unassigned);
+    }
+
+    private static int capacity(Map<String, Service> catalog, String name) {
+        Service s = catalog.get(name);
+        return s != null ? s.getCapacity() : 0;   // a service no longer offered holds nobody
+    }
+
+    /** A volunteer on an over-full service, with the cheapest place to move them. */
+    private record Candidate(Assignment assignment, Service target, int marginal)
+            implements Comparable<Candidate> {
+
+        static Candidate of(Assignment a, Map<String, Integer> load, Map<String, Service> catalog) {
+            String here = a.getService().getName();
+            List<Service> prefs = a.getVolunteer().getPreferences();
+            int current = -1;
+            Service target = null;
+            int targetRank = -1;
+            for (int rank = 0; rank < prefs.size(); rank++) {
+                String name = prefs.get(rank).getName();
+                if (name.equals(here)) {
+                    current = rank;
+                    continue;
+                }
+                Service s = catalog.get(name);
+                if (target == null && s != null && load.getOrDefault(name, 0) < s.getCapacity()) {
+                    target = s;
+                    targetRank = rank;
+                }
+            }
+            int marginal = (target != null ? GeneticAlgorithm.rankCost(targetRank) : UNASSIGNED_COST)
+                    - GeneticAlgorithm.rankCost(current);
+            return new Candidate(a, target, marginal);
+        }
+
+        @Override
+        public int compareTo(Candidate o) {
+            int c = Integer.compare(marginal, o.marginal);
+            return c != 0 ? c : assignment.getVolunteer().getId().compareTo(o.assignment.getVolunteer().getId());
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package org.example.server.logic;
 
 import org.example.domain.*;
+import org.example.server.log.AsyncLog;
+import org.example.server.metrics.FlightEvents;
 import java.util.stream.Collectors;
 import java.util.*;
 import java.util.function.Supplier;
@@ -11,13 +13,67 @@ import java.util.function.Supplier;
  */
 public class GeneticAlgorithm {
 
+    // per-generation progress is DEBUG (-Dlog.ga.level=DEBUG to see it)
+    private static final AsyncLog LOG = AsyncLog.get("ga");
+
     private final List<Volunteer> volunteers;
     private final List<Service> services;
 
+    // precomputed once per run: service → index, capacity by index, and each
+    // volunteer's preferences as indexes, best first (same order as volunteers)
+    private final Map<Service, Integer> serviceIndex = new HashMap<>();
+    private final int[] capacity;
+    private final int[][] ranked;
+
     private final int populationSize = 100; // Number of individuals in the population
     private final int generations = 500;   // Maximum number of generations
     //private final double mutationRate = 0.02; // Mutation rate (currently commented out)
 
+    /**
+     * Summary of one {@link #optimize} run, for metrics.
+     *
+     * @param durationNanos  Wall time of the run.
+     * @param generations    Generations actually evolved.
+     * @param finalCost      Cost of the returned assignment.
+     * @param stagnationStop True if the run ended early for lack of improvement.
+     * @param usedFallback   True if the best individual was invalid and the fallback was returned.
+     */
+    public record RunStats(long durationNanos, int generations, int finalCost,
+                           boolean stagnationStop, boolean usedFallback) {}
+
+    private RunStats lastRunStats;
+
+    /**
+     * Connects a run to other islands evolving the same problem (see
+     * {@code org.example.server.cluster}). The run reports every improvement
+     * of its best individual and takes in at most one immigrant per
+     * generation, which replaces a non-elite child.
+     */
+    public interface Migration {
+        /** No other islands. */
+        Migration NONE = new Migration() {
+            @Override public void improved(int generation, int cost, Map<String, String> best) {}
+            @Override public Map<String, String> immigrant() { return null; }
+        };
+
+        /**
+         * Called on the solver thread whenever the best cost drops (and once
+         * for the initial population); must not block.
+         *
+         * @param generation Generation that found it (-1 for the initial population).
+         * @param cost       Its cost.
+         * @param best       volunteerId → service name.
+         */
+        void improved(int generation, int cost, Map<String, String> best);
+
+        /**
+         * Polled once per generation.
+         *
+         * @return volunteerId → service name to insert, or null.
+         */
+        Map<String, String> immigrant();
+    }
+
     /**
      * Constructs a GeneticAlgorithm instance with the given volunteers and services.
      * Ensures that all volunteers reference canonical service objects.
@@ -25,7 +81,9 @@ public class GeneticAlgorithm {
      * @param volunteers List of volunteers with their preferences.
      * @param services   List of available services with their capacities.
      */
-    public GeneticAlgorithm(List<Volunteer> volunteers, List<Service> services) {
+    public GeneticAlgorithm(Collection<Volunteer> volunteers, List<Service> services) {
+        FlightEvents.SolverPhase normalize = new FlightEvents.SolverPhase();
+        normalize.begin();
         Map<String, Service> serviceMap = new HashMap<>();
         for (Service s : services) {
             serviceMap.put(s.getName(), s);
@@ -33,6 +91,12 @@ public class GeneticAlgorithm {
     
         this.services = new ArrayList<>(services);
         this.volunteers = new ArrayList<>();
+        this.capacity = new int[this.services.size()];
+        for (int i = 0; i < this.services.size(); i++) {
+            serviceIndex.putIfAbsent(this.services.get(i), i);
+            capacity[i] = this.services.get(i).getCapacity();
+        }
+        this.ranked = new int[volunteers.size()][];
     
         for (Volunteer v : volunteers) {
             List<Service> normalizedPrefs = new ArrayList<>();
@@ -40,8 +104,15 @@ public class GeneticAlgorithm {
                 Service ref = serviceMap.get(s.getName());
                 if (ref != null) normalizedPrefs.add(ref);
             }
+            int[] prefs = new int[normalizedPrefs.size()];
+            for (int r = 0; r < prefs.length; r++) prefs[r] = serviceIndex.get(normalizedPrefs.get(r));
+            ranked[this.volunteers.size()] = prefs;
             this.volunteers.add(new Volunteer(v.getName(), v.getId(), normalizedPrefs));
         }
+
+        normalize.phase = "normalize";
+        normalize.volunteers = this.volunteers.size();
+        normalize.commit();
     }
 
     /**
@@ -53,6 +124,19 @@ public class GeneticAlgorithm {
         return optimize(this::generateRandomAssignment);
     }
 
+    /**
+     * Cancellable, seedable variant of {@link #optimize()}; see
+     * {@link #optimize(Supplier, CancellationToken, Map)}.
+     *
+     * @param token Checked once per generation.
+     * @param seed  volunteerId → service name to start from (may be empty).
+     * @return A list of assignments representing the optimized solution.
+     * @throws RunCancelledException if the token was cancelled.
+     */
+    public List<Assignment> optimize(CancellationToken token, Map<String, String> seed) {
+        return optimize(this::generateRandomAssignment, token, seed);
+    }
+
     /**
      * Optimizes the assignment of volunteers to services using the genetic algorithm.
      * Falls back to a provided fallback assignment generator if the final assignment is invalid.
@@ -61,52 +145,165 @@ public class GeneticAlgorithm {
      * @return A list of assignments representing the optimized solution.
      */
     public List<Assignment> optimize(Supplier<List<Assignment>> fallback) {
+        return optimize(fallback, CancellationToken.NONE, Map.of());
+    }
+
+    /**
+     * Optimizes like {@link #optimize(Supplier)}, but stops at the next
+     * generation once {@code token} is cancelled, and can start from a
+     * previous (possibly cancelled) run's best individual.
+     *
+     * @param fallback A supplier that generates a fallback assignment.
+     * @param token    Checked once per generation.
+     * @param seed     volunteerId → service name to place in the initial
+     *                 population; volunteers it does not cover (or whose
+     *                 service is full or unknown) get their usual choice.
+     * @return A list of assignments representing the optimized solution.
+     * @throws RunCancelledException if the token was cancelled; it carries the best so far.
+     */
+    public List<Assignment> optimize(Supplier<List<Assignment>> fallback,
+                                     CancellationToken token,
+                                     Map<String, String> seed) {
+        return optimize(fallback, token, seed, Migration.NONE);
+    }
+
+    /**
+     * Runs this GA as one island of several: like
+     * {@link #optimize(CancellationToken, Map)}, exchanging individuals through
+     * {@code migration}.
+     *
+     * @param token     Checked once per generation.
+     * @param seed      volunteerId → service name to start from (may be empty).
+     * @param migration Reports improvements and supplies immigrants.
+     * @return A list of assignments representing the optimized solution.
+     * @throws RunCancelledException if the token was cancelled.
+     */
+    public List<Assignment> optimize(CancellationToken token, Map<String, String> seed, Migration migration) {
+        return optimize(this::generateRandomAssignment, token, seed, migration);
+    }
+
+    private List<Assignment> optimize(Supplier<List<Assignment>> fallback,
+                                      CancellationToken token,
+                                      Map<String, String> seed,
+                                      Migration migration) {
+        long start = System.nanoTime();
+
+        FlightEvents.SolverPhase init = phase("initializePopulation");
         List<List<Assignment>> population = initializePopulation();
+        if (!seed.isEmpty()) {
+            population.set(population.size() - 1, fromSeed(seed));
+        }
         List<Assignment> best = getBest(population);
         int bestCost = calculateCost(best);
+        init.commit();
+        if (migration != Migration.NONE) migration.improved(-1, bestCost, toSeed(best));
     
         int stagnation = 0;
+        int evolved = 0;
+        boolean stagnationStop = false;
     
+        FlightEvents.SolverPhase evolve = phase("evolve");
         for (int gen = 0; gen < generations; gen++) {
+            if (token.isCancelled()) {
+                evolve.commit();
+                LOG.info("Cancelled at gen %d (best cost = %d).", gen, bestCost);
+                throw new RunCancelledException(gen, toSeed(best));
+            }
+            evolved = gen + 1;
+            FlightEvents.Generation event = new FlightEvents.Generation();
+            boolean timed = event.isEnabled();   // step timings only while recording
+            event.begin();
+
             List<List<Assignment>> newPopulation = new ArrayList<>();
             newPopulation.add(best); // Elitism: carry forward the best individual
     
             for (int i = 1; i < populationSize; i++) {
+                long t0 = timed ? System.nanoTime() : 0;
                 List<Assignment> parent1 = select(population);
                 List<Assignment> parent2 = select(population);
+                long t1 = timed ? System.nanoTime() : 0;
                 List<Assignment> child = crossover(parent1, parent2);
+                if (timed) {
+                    event.selectNanos += t1 - t0;
+                    event.crossoverNanos += System.nanoTime() - t1;
+                }
                 //mutate(child); // Mutation step (currently commented out)
                 newPopulation.add(child);
             }
+
+            Map<String, String> immigrant = migration.immigrant();
+            if (immigrant != null && populationSize > 1) {
+                newPopulation.set(1, fromSeed(immigrant));
+            }
     
             population = newPopulation;
+            long t2 = timed ? System.nanoTime() : 0;
             List<Assignment> currentBest = getBest(population);
             int cost = calculateCost(currentBest);
+            if (timed) event.costNanos = System.nanoTime() - t2;
     
-            System.out.printf("Gen %d: best cost = %d%n", gen, cost);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Gen %d: best cost = %d", gen, cost);
+            }
     
             if (cost < bestCost) {
                 bestCost = cost;
                 best = currentBest;
                 stagnation = 0;
+                if (migration != Migration.NONE) migration.improved(gen, cost, toSeed(best));
             } else {
                 stagnation++;
             }
+
+            event.generation = gen;
+            event.bestCost = bestCost;
+            event.commit();
     
             if (stagnation >= 50) {
-                System.out.println("Stopping early due to stagnation.");
+                stagnationStop = true;
+                LOG.info("Stopping early due to stagnation at gen %d (best cost = %d).", gen, bestCost);
                 break;
             }
         }
+        evolve.commit();
     
-        if (!isValidAssignment(best)) {
-            System.err.println("Final assignment invalid. Using fallback.");
-            return fallback.get();
+        FlightEvents.SolverPhase validate = phase("validate");
+        boolean valid = isValidAssignment(best);
+        validate.commit();
+
+        if (!valid) {
+            LOG.warn("Final assignment invalid. Using fallback.");
+            FlightEvents.SolverPhase fb = phase("fallback");
+            List<Assignment> fallbackResult = fallback.get();
+            fb.commit();
+            lastRunStats = new RunStats(System.nanoTime() - start, evolved,
+                    calculateCost(fallbackResult), stagnationStop, true);
+            return fallbackResult;
         }
     
+        lastRunStats = new RunStats(System.nanoTime() - start, evolved,
+                bestCost, stagnationStop, false);
         return best;
     }
 
+    /** Begins a JFR solver-phase event; the caller commits it when the phase ends. */
+    private FlightEvents.SolverPhase phase(String name) {
+        FlightEvents.SolverPhase e = new FlightEvents.SolverPhase();
+        e.phase = name;
+        e.volunteers = volunteers.size();
+        e.begin();
+        return e;
+    }
+
+    /**
+     * Gets statistics for the most recent {@link #optimize} call.
+     *
+     * @return The stats, or {@code null} if optimize has not run.
+     */
+    public RunStats getLastRunStats() {
+        return lastRunStats;
+    }
+
     /**
      * Initializes the population with random assignments.
      *
@@ -120,42 +317,87 @@ public class GeneticAlgorithm {
         return population;
     }
 
+    /**
+     * Builds an individual from a previous run's result: each volunteer keeps
+     * the seeded service while it has room, otherwise gets the usual choice.
+     *
+     * @param seed volunteerId → service name.
+     * @return A valid assignment.
+     */
+    private List<Assignment> fromSeed(Map<String, String> seed) {
+        Map<String, Integer> byName = new HashMap<>();
+        for (int i = 0; i < services.size(); i++) byName.putIfAbsent(services.get(i).getName(), i);
+
+        List<Assignment> assignment = new ArrayList<>(volunteers.size());
+        Slots slots = new Slots();
+        for (int i = 0; i < volunteers.size(); i++) {
+            Integer seeded = byName.get(seed.get(volunteers.get(i).getId()));
+            slots.assign(assignment, i, seeded != null && slots.hasRoom(seeded) ? seeded : slots.bestFor(i));
+        }
+        return assignment;
+    }
+
+    /** volunteerId → service name, the form a seed is passed around in. */
+    private static Map<String, String> toSeed(List<Assignment> assignment) {
+        Map<String, String> seed = new HashMap<>();
+        if (assignment == null) return seed;
+        for (Assignment a : assignment) {
+            seed.put(a.getVolunteer().getId(), a.getService().getName());
+        }
+        return seed;
+    }
+
     /**
      * Generates a random assignment of volunteers to services.
      *
      * @return A list of assignments representing a random solution.
      */
     private List<Assignment> generateRandomAssignment() {
-        List<Assignment> assignment = new ArrayList<>();
-        Map<Service, Integer> serviceCounts = new HashMap<>();
+        List<Assignment> assignment = new ArrayList<>(volunteers.size());
+        Slots slots = new Slots();
+        for (int i = 0; i < volunteers.size(); i++) {
+            slots.assign(assignment, i, slots.bestFor(i));
+        }
+        return assignment;
+    }
 
-        for (Volunteer v : volunteers) {
-            Service assigned = null;
-            List<Service> prefs = v.getPreferences();
+    /**
+     * Slots taken per service while one individual is built. Counts only
+     * grow, so the cursor to the first service with room only moves forward:
+     * the any-free-slot fallback is O(1) amortized instead of a scan of
+     * every service per volunteer.
+     */
+    private final class Slots {
+        private final int[] used = new int[capacity.length];
+        private int firstFree;
 
-            for (Service s : prefs) {
-                if (serviceCounts.getOrDefault(s, 0) < s.getCapacity()) {
-                    assigned = s;
-                    break;
-                }
-            }
+        boolean hasRoom(int service) {
+            return used[service] < capacity[service];
+        }
 
-            if (assigned == null) {
-                for (Service s : services) {
-                    if (serviceCounts.getOrDefault(s, 0) < s.getCapacity()) {
-                        assigned = s;
-                        break;
-                    }
-                }
+        /**
+         * The volunteer's best-ranked preference with room, else the first
+         * service with room, else -1.
+         */
+        int bestFor(int volunteer) {
+            for (int s : ranked[volunteer]) {
+                if (hasRoom(s)) return s;
             }
+            return anyFree();
+        }
 
-            if (assigned != null) {
-                assignment.add(new Assignment(v, assigned));
-                serviceCounts.put(assigned, serviceCounts.getOrDefault(assigned, 0) + 1);
-            }
+        /** The first service (in list order) with room, else -1. */
+        int anyFree() {
+            while (firstFree < used.length && !hasRoom(firstFree)) firstFree++;
+            return firstFree < used.length ? firstFree : -1;
         }
 
-        return assignment;
+        /** Adds the volunteer on that service to the individual (nothing for -1). */
+        void assign(List<Assignment> individual, int volunteer, int service) {
+            if (service < 0) return;
+            used[service]++;
+            individual.add(new Assignment(volunteers.get(volunteer), services.get(service)));
+        }
     }
 
     /**
@@ -165,24 +407,39 @@ public class GeneticAlgorithm {
      * @return The total cost of the assignment.
      */
     private int calculateCost(List<Assignment> assignment) {
+        return costOf(assignment);
+    }
+
+    /**
+     * Scores an assignment the way the GA does (lower is better), so results
+     * produced elsewhere (e.g. by remote islands) can be compared.
+     *
+     * @param assignment A list of assignments to evaluate.
+     * @return The total cost of the assignment.
+     */
+    public static int costOf(List<Assignment> assignment) {
         int totalCost = 0;
     
         for (Assignment a : assignment) {
             Volunteer v = a.getVolunteer();
             Service s = a.getService();
             List<Service> prefs = v.getPreferences();
-            int index = prefs.indexOf(s);
-    
-            if (index != -1) {
-                totalCost += (int) Math.pow(index, 2);
-            } else {
-                totalCost += 40;  // 10 * 2^2
-            }
+            totalCost += rankCost(prefs.indexOf(s));
         }
     
         return totalCost;
     }
 
+    /**
+     * Cost of holding the preference at a rank, as {@link #costOf} counts it.
+     *
+     * @param rank Index in the volunteer's preferences, or -1 if not among them.
+     * @return The cost (lower is better).
+     */
+    static int rankCost(int rank) {
+        return rank >= 0 ? rank * rank : 40;   // 10 * 2^2 outside the preferences
+    }
+
     /**
      * Selects a parent from the population using a selection strategy.
      * The selection favors individuals with lower costs.
@@ -212,27 +469,15 @@ public class GeneticAlgorithm {
         Map<Volunteer, Service> parent1Map = toMap(p1);
         Map<Volunteer, Service> parent2Map = toMap(p2);
     
-        List<Assignment> child = new ArrayList<>();
-        Map<Service, Integer> serviceCounts = new HashMap<>();
-    
-        for (Volunteer v : volunteers) {
-            Service s1 = parent1Map.get(v);
-            Service s2 = parent2Map.get(v);
+        List<Assignment> child = new ArrayList<>(volunteers.size());
+        Slots slots = new Slots();
     
-            Service chosen = rand.nextBoolean() ? s1 : s2;
-            if (chosen != null && serviceCounts.getOrDefault(chosen, 0) < chosen.getCapacity()) {
-                child.add(new Assignment(v, chosen));
-                serviceCounts.put(chosen, serviceCounts.getOrDefault(chosen, 0) + 1);
-            } else {
-                // fallback to any valid service
-                for (Service fallback : services) {
-                    if (serviceCounts.getOrDefault(fallback, 0) < fallback.getCapacity()) {
-                        child.add(new Assignment(v, fallback));
-                        serviceCounts.put(fallback, serviceCounts.getOrDefault(fallback, 0) + 1);
-                        break;
-                    }
-                }
-            }
+        for (int i = 0; i < volunteers.size(); i++) {
+            Volunteer v = volunteers.get(i);
+            Service chosen = rand.nextBoolean() ? parent1Map.get(v) : parent2Map.get(v);
+            Integer s = chosen != null ? serviceIndex.get(chosen) : null;
+            // inherited service if it still has room, else the volunteer's best preference with room
+            slots.assign(child, i, s != null && slots.hasRoom(s) ? s : slots.bestFor(i));
         }
     
         return child;
@@ -285,7 +530,7 @@ public class GeneticAlgorithm {
             Service s = a.getService();
             int count = countMap.getOrDefault(s, 0);
             if (count >= s.getCapacity()) {
-                System.err.printf("Overcapacity for %s: %d assigned (limit %d)%n", 
+                LOG.warn("Overcapacity for %s: %d assigned (limit %d)",
                     s.getName(), count + 1, s.getCapacity());
                 return false;
             }
@@ -0,0 +1,293 @@
+package org.example.server.logic;
+
+import org.example.server.log.AsyncLog;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs optimizations in the background, debounced over preference writes.
+ *
+ * Every write calls {@link #markDirty()}. A run becomes due once writes have
+ * been quiet for {@code quietMs}, or at the latest {@code maxLatencyMs} after
+ * the first unoptimized write, and covers every write made before it took
+ * its snapshot. A click storm or a burst of writes therefore costs one run.
+ *
+ * {@link #requestRun()} is the manual hint behind POST /optimize: it skips
+ * the quiet window but never forces a run when the last run already covers
+ * the current data version.
+ *
+ * Preemption: when a run becomes due while an older one (over an older data
+ * version) is still evolving, the older run is cancelled through its
+ * {@link CancellationToken}; its result would be superseded before anyone
+ * saw it. With seeding on, the cancelled run's best individual seeds the
+ * next run, so its work is not lost. After {@link #MAX_PREEMPTIONS} runs in
+ * a row were preempted, the current one is let finish so steady writes
+ * cannot starve publishing.
+ *
+ * Timing decisions happen on an "optimizer-timer" thread; runs happen one at
+ * a time on the "optimizer" thread.
+ */
+public final class OptimizationScheduler {
+
+    /** Runs one optimization over a fresh snapshot. */
+    @FunctionalInterface
+    public interface Runner {
+        /**
+         * @param token checked by the solver once per generation
+         * @param seed  volunteerId → service name to start from (may be empty)
+         * @return The data version the run's snapshot reflected.
+         * @throws RunCancelledException if the token was cancelled.
+         * @throws Exception             if the optimization failed.
+         */
+        long run(CancellationToken token, Map<String, String> seed) throws Exception;
+    }
+
+    /** Consecutive preempted runs after which the running one may finish. */
+    static final int MAX_PREEMPTIONS = 3;
+
+    private static final AsyncLog LOG = AsyncLog.get("optimizer");
+
+    private record Waiter(long version, CompletableFuture<Long> done) {}
+
+    /** The run in progress: what it started from and how to stop it. */
+    private record Job(long version, CancellationToken token) {}
+
+    private final long quietNanos;
+    private final long maxLatencyNanos;
+    private final LongSupplier dataVersion;
+    private final Runner runner;
+    private final boolean seedFromPreempted;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService worker;
+
+    private final AtomicLong firstDirtyNanos = new AtomicLong();   // 0 = nothing pending
+    private volatile long lastDirtyNanos;
+    private final AtomicBoolean checkScheduled = new AtomicBoolean();
+    private volatile long optimizedVersion;
+
+    // guarded by this
+    private Job running;
+    private boolean runQueued;
+    private int preemptedInARow;
+    private Map<String, String> seed = Map.of();
+    private final List<Waiter> waiters = new ArrayList<>();
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder preempted = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder hints = new LongAdder();
+
+    /**
+     * Constructs and starts a scheduler.
+     *
+     * @param quietMs           Run after this long without writes.
+     * @param maxLatencyMs      Run at most this long after the first pending write.
+     * @param seedFromPreempted Seed a run with the best-so-far of the run it preempted.
+     * @param dataVersion       Current version of the data (bumped on every write).
+     * @param runner            Performs one optimization.
+     */
+    public OptimizationScheduler(long quietMs, long maxLatencyMs, boolean seedFromPreempted,
+                                 LongSupplier dataVersion, Runner runner) {
+        this.quietNanos = TimeUnit.MILLISECONDS.toNanos(quietMs);
+        this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(quietMs, maxLatencyMs));
+        this.seedFromPreempted = seedFromPreempted;
+        this.dataVersion = dataVersion;
+        this.runner = runner;
+        this.optimizedVersion = dataVersion.getAsLong();
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "optimizer-timer"));
+        this.worker = Executors.newSingleThreadExecutor(r -> daemon(r, "optimizer"));
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    /**
+     * Records that the data changed. Cheap and non-blocking; call after each write.
+     */
+    public void markDirty() {
+        long now = System.nanoTime();
+        writes.increment();
+        lastDirtyNanos = now;
+        firstDirtyNanos.compareAndSet(0, now);
+        if (checkScheduled.compareAndSet(false, true)) {
+            timer.schedule(this::check, quietNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Asks for the current data to be optimized soon (no quiet window).
+     * Coalesces with any run already due; does nothing if the data is
+     * already optimized.
+     *
+     * @return Completes with the optimized data version once a run covers
+     *         the version current at the time of the call (or exceptionally
+     *         if that run fails).
+     */
+    public CompletableFuture<Long> requestRun() {
+        hints.increment();
+        long target = dataVersion.getAsLong();
+        CompletableFuture<Long> done = new CompletableFuture<>();
+        if (target <= optimizedVersion) {
+            done.complete(optimizedVersion);
+            return done;
+        }
+        synchronized (this) {
+            waiters.add(new Waiter(target, done));
+        }
+        submitRun();
+        return done;
+    }
+
+    /**
+     * Records that the writes from data version {@code from} to {@code to}
+     * were fully handled without a run (a withdrawal backfilled from the
+     * waitlists), so they leave nothing pending. Ignored unless the last
+     * run covered {@code from}: an earlier write still needs its run.
+     *
+     * @param from Data version just before the handled writes.
+     * @param to   Data version just after them.
+     */
+    public synchronized void accountedFor(long from, long to) {
+        if (optimizedVersion < from || to <= optimizedVersion) return;
+        optimizedVersion = to;
+        completeWaiters(null);
+    }
+
+    /**
+     * Checks whether the last run covers every write so far.
+     *
+     * @return True if nothing is pending.
+     */
+    public boolean isUpToDate() {
+        return dataVersion.getAsLong() <= optimizedVersion;
+    }
+
+    /* ---------- timer thread ---------- */
+
+    private void check() {
+        checkScheduled.set(false);
+        long first = firstDirtyNanos.get();
+        if (first == 0) return;
+
+        long now = System.nanoTime();
+        long due = Math.min(lastDirtyNanos + quietNanos, first + maxLatencyNanos);
+        if (now - due < 0) {
+            if (checkScheduled.compareAndSet(false, true)) {
+                timer.schedule(this::check, due - now, TimeUnit.NANOSECONDS);
+            }
+            return;
+        }
+        submitRun();
+    }
+
+    /** A run is due: preempt an older one if allowed, and queue (at most) one run. */
+    private synchronized void submitRun() {
+        if (running != null
+                && running.version() < dataVersion.getAsLong()
+                && preemptedInARow < MAX_PREEMPTIONS) {
+            running.token().cancel();
+        }
+        if (!runQueued) {
+            runQueued = true;
+            worker.execute(this::runNow);
+        }
+    }
+
+    /* ---------- optimizer thread ---------- */
+
+    private void runNow() {
+        Job job;
+        Map<String, String> startFrom;
+        synchronized (this) {
+            runQueued = false;
+            firstDirtyNanos.set(0);   // writes from here on make the next run due
+            long version = dataVersion.getAsLong();
+            if (version <= optimizedVersion) {
+                completeWaiters(null);
+                return;
+            }
+            job = new Job(version, new CancellationToken());
+            running = job;
+            startFrom = seed;
+        }
+
+        try {
+            long covered = runner.run(job.token(), startFrom);
+            synchronized (this) {
+                optimizedVersion = Math.max(optimizedVersion, covered);
+                runs.increment();
+                preemptedInARow = 0;
+                seed = Map.of();
+                completeWaiters(null);
+            }
+        } catch (RunCancelledException e) {
+            preempted.increment();
+            synchronized (this) {
+                preemptedInARow++;
+                if (seedFromPreempted) seed = e.getBestSoFar();
+                // whoever cancelled us has already queued the next run
+            }
+        } catch (Exception e) {
+            failures.increment();
+            LOG.warn("Background optimization failed: %s", e.getMessage());
+            synchronized (this) {
+                completeWaiters(e);
+            }
+        } finally {
+            synchronized (this) {
+                running = null;
+            }
+        }
+    }
+
+    // guarded by this
+    private void completeWaiters(Exception failure) {
+        for (Iterator<Waiter> it = waiters.iterator(); it.hasNext(); ) {
+            Waiter w = it.next();
+            if (failure != null) {
+                w.done().completeExceptionally(failure);
+            } else if (w.version() <= optimizedVersion) {
+                w.done().complete(optimizedVersion);
+            } else {
+                continue;
+            }
+            it.remove();
+        }
+    }
+
+    /* ---------- Metrics ---------- */
+
+    /** @return Completed runs since startup. */
+    public long runs() { return runs.sum(); }
+
+    /** @return Failed runs since startup. */
+    public long failures() { return failures.sum(); }
+
+    /** @return Runs cancelled because a newer run superseded them. */
+    public long preempted() { return preempted.sum(); }
+
+    /** @return Writes reported through {@link #markDirty()}. */
+    public long writes() { return writes.sum(); }
+
+    /** @return Manual run requests received. */
+    public long hints() { return hints.sum(); }
+
+    /** @return The data version covered by the last successful run. */
+    public long optimizedVersion() { return optimizedVersion; }
+}
@@ -0,0 +1,34 @@
+package org.example.server.logic;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Thrown by an optimization run that noticed its {@link CancellationToken}.
+ * Carries the run's best individual so far, which can seed the run that
+ * superseded it.
+ */
+public class RunCancelledException extends CancellationException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Map<String, String> bestSoFar;
+
+    /**
+     * @param generation The generation at which the run stopped.
+     * @param bestSoFar  volunteerId → service name of the best individual so far.
+     */
+    public RunCancelledException(int generation, Map<String, String> bestSoFar) {
+        super("optimization cancelled at generation " + generation);
+        this.bestSoFar = Map.copyOf(bestSoFar);
+    }
+
+    /**
+     * Gets the best individual found before cancellation.
+     *
+     * @return volunteerId → service name (possibly empty).
+     */
+    public Map<String, String> getBestSoFar() {
+        return bestSoFar;
+    }
+}
@@ -0,0 +1,189 @@
+package org.example.server.logic;
+
+import org.example.domain.*;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Per-service waitlists, so a routine drop-out is backfilled without an
+ * optimization run.
+ *
+ * Every volunteer waits on each service they rank above the one they hold
+ * (on all their preferences while unassigned). A service's queue is ordered
+ * by the rank the waiting volunteers gave it, then by how much the move
+ * would lower the GA cost from what they hold after the last solve (the
+ * unassigned first), then by who queued first. Queues are sorted sets, so
+ * entries are added, removed and polled in O(log n) as assignments change
+ * instead of being rebuilt; the next volunteer for a slot is always at a
+ * queue's head.
+ *
+ * When a slot frees, the head of that service's queue is promoted; the slot
+ * that volunteer leaves is offered to its own queue in turn. Every promotion
+ * moves someone to a strictly better preference, so the chain ends.
+ *
+ * Entries are checked lazily: a volunteer whose preferences changed since
+ * they were queued is re-queued with the new ones when they reach the head.
+ *
+ * Not thread-safe; the server updates it under its publish lock.
+ */
+public final class Waitlists {
+
+    /** Cost of holding nothing, above any move between preferences (as in {@link CapacityRepair}). */
+    private static final int UNASSIGNED_COST = 1_000;
+
+    /** A volunteer waiting on one service; {@code marginal} is the cost change of moving there (negative). */
+    private record Entry(String volunteerId, int rank, int marginal, long seq) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry o) {
+            int c = Integer.compare(rank, o.rank);
+            if (c == 0) c = Integer.compare(marginal, o.marginal);
+            return c != 0 ? c : Long.compare(seq, o.seq);
+        }
+    }
+
+    /** What is known about one volunteer: preferences as queued, held service, queue entries. */
+    private record Tracked(Volunteer volunteer, String service, Map<String, Entry> entries) {}
+
+    private final Map<String, TreeSet<Entry>> queues = new HashMap<>();
+    private final Map<String, Tracked> tracked = new HashMap<>();
+    private final Map<String, Integer> load = new HashMap<>();
+    private long seq;
+
+    /**
+     * Records a volunteer's current assignment and queues them on every
+     * service they prefer to it. Does nothing if neither changed.
+     *
+     * @param v       The volunteer as currently stored.
+     * @param service The service they hold, or {@code null} if unassigned.
+     */
+    public void place(Volunteer v, String service) {
+        Tracked t = tracked.get(v.getId());
+        if (t != null && t.volunteer == v && Objects.equals(t.service, service)) return;
+        if (t != null) untrack(t);
+
+        Map<String, Entry> entries = new HashMap<>();
+        List<Service> prefs = v.getPreferences();
+        int held = service == null ? UNASSIGNED_COST : GeneticAlgorithm.rankCost(rankOf(prefs, service));
+        for (int rank = 0; rank < prefs.size(); rank++) {
+            String name = prefs.get(rank).getName();
+            if (name.equals(service)) break;
+            Entry e = new Entry(v.getId(), rank, GeneticAlgorithm.rankCost(rank) - held, seq++);
+            if (entries.putIfAbsent(name, e) == null) {
+                queues.computeIfAbsent(name, k -> new TreeSet<>()).add(e);
+            }
+        }
+        if (service != null) load.merge(service, 1, Integer::sum);
+        tracked.put(v.getId(), new Tracked(v, service, entries));
+    }
+
+    /**
+     * Forgets a volunteer without backfilling their slot.
+     *
+     * @param volunteerId The volunteer.
+     */
+    public void remove(String volunteerId) {
+        Tracked t = tracked.remove(volunteerId);
+        if (t != null) untrack(t);
+    }
+
+    /**
+     * Removes a withdrawn volunteer and backfills the slot they held.
+     *
+     * @param volunteerId The volunteer who withdrew.
+     * @param catalog     Service name → service with its current capacity.
+     * @param current     Looks up volunteers as currently stored ({@code null} if gone).
+     * @return The promoted volunteers with their new services, in promotion order.
+     */
+    public List<Assignment> withdraw(String volunteerId, Map<String, Service> catalog,
+                                     Function<String, Volunteer> current) {
+        Tracked t = tracked.remove(volunteerId);
+        if (t == null) return List.of();
+        untrack(t);
+        return t.service != null ? fill(t.service, catalog, current) : List.of();
+    }
+
+    /**
+     * Promotes waiting volunteers into a service while it has room, and
+     * into every slot those promotions free in turn. Used for a withdrawal
+     * and for a raised capacity.
+     *
+     * @param service The service that has room.
+     * @param catalog Service name → service with its current capacity.
+     * @param current Looks up volunteers as currently stored ({@code null} if gone).
+     * @return The promoted volunteers with their new services, in promotion order.
+     */
+    public List<Assignment> fill(String service, Map<String, Service> catalog,
+                                 Function<String, Volunteer> current) {
+        Map<String, Assignment> promoted = new LinkedHashMap<>();
+        ArrayDeque<String> open = new ArrayDeque<>();
+        open.add(service);
+        while (!open.isEmpty()) {
+            String name = open.poll();
+            Service s = catalog.get(name);
+            while (s != null && load.getOrDefault(name, 0) < s.getCapacity()) {
+                TreeSet<Entry> queue = queues.get(name);   // re-read: emptied queues are dropped
+                if (queue == null) break;
+                Entry head = queue.first();
+                Tracked t = tracked.get(head.volunteerId);
+                Volunteer now = current.apply(head.volunteerId);
+                if (now == null) {                     // gone without a withdraw: free what they held
+                    remove(head.volunteerId);
+                    if (t.service != null) open.add(t.service);
+                    continue;
+                }
+                if (now != t.volunteer) {              // preferences changed since queued
+                    place(now, t.service);
+                    continue;
+                }
+                place(now, name);
+                promoted.remove(now.getId());          // keep only their final service, in order
+                promoted.put(now.getId(), new Assignment(now, s));
+                if (t.service != null) open.add(t.service);
+            }
+        }
+        return new ArrayList<>(promoted.values());
+    }
+
+    /**
+     * Gets how many volunteers wait on a service.
+     *
+     * @param service The service name.
+     * @return The queue length.
+     */
+    public int waiting(String service) {
+        TreeSet<Entry> queue = queues.get(service);
+        return queue != null ? queue.size() : 0;
+    }
+
+    /**
+     * Gets how many volunteers hold a service, as far as this knows.
+     *
+     * @param service The service name.
+     * @return The load.
+     */
+    public int load(String service) {
+        return load.getOrDefault(service, 0);
+    }
+
+    /** @return Volunteers tracked. */
+    public int size() {
+        return tracked.size();
+    }
+
+    private static int rankOf(List<Service> prefs, String service) {
+        for (int rank = 0; rank < prefs.size(); rank++) {
+            if (prefs.get(rank).getName().equals(service)) return rank;
+        }
+        return -1;
+    }
+
+    private void untrack(Tracked t) {
+        for (Map.Entry<String, Entry> e : t.entries.entrySet()) {
+            TreeSet<Entry> queue = queues.get(e.getKey());
+            queue.remove(e.getValue());
+            if (queue.isEmpty()) queues.remove(e.getKey());
+        }
+        if (t.service != null) load.merge(t.service, -1, Integer::sum);
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.server.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Custom JDK Flight Recorder events. They cost next to nothing unless a
+ * recording is running (see {@link Recordings}); open a dump in JDK Mission
+ * Control and look under "Volunteer Matching".
+ *
+ * Usage: {@code e.begin(); ...work...; e.commit();}. Fields set only when
+ * {@code e.isEnabled()} keep extra timing off the path when no one records.
+ */
+public final class FlightEvents {
+
+    private static final String CATEGORY = "Volunteer Matching";
+
+    private FlightEvents() {}
+
+    /** One phase of an optimization run (normalize, initializePopulation, evolve, validate, fallback). */
+    @Name("org.example.SolverPhase")
+    @Label("Solver Phase")
+    @Category({CATEGORY, "Solver"})
+    @StackTrace(false)
+    public static final class SolverPhase extends Event {
+        @Label("Phase")
+        public String phase;
+
+        @Label("Volunteers")
+        public int volunteers;
+    }
+
+    /**
+     * One GA generation, with the time spent in each step. The step times
+     * are summed over the generation's select/crossover/cost calls.
+     */
+    @Name("org.example.Generation")
+    @Label("GA Generation")
+    @Category({CATEGORY, "Solver"})
+    @StackTrace(false)
+    public static final class Generation extends Event {
+        @Label("Generation")
+        public int generation;
+
+        @Label("Best Cost")
+        public int bestCost;
+
+        @Label("Select Time")
+        @Timespan(Timespan.NANOSECONDS)
+        public long selectNanos;
+
+        @Label("Crossover Time")
+        @Timespan(Timespan.NANOSECONDS)
+        public long crossoverNanos;
+
+        @Label("Cost Evaluation Time")
+        @Timespan(Timespan.NANOSECONDS)
+        public long costNanos;
+    }
+
+    /** One HTTP exchange, from handler entry until the response was sent. */
+    @Name("org.example.HttpRequest")
+    @Label("HTTP Request")
+    @Category({CATEGORY, "HTTP"})
+    @StackTrace(false)
+    public static final class HttpRequest extends Event {
+        @Label("Endpoint")
+        public String endpoint;
+
+        @Label("Method")
+        public String method;
+
+        @Label("Status")
+        public int status;
+
+        @Label("Parked")
+        @Description("The exchange was held as a long-poll before responding")
+        public boolean parked;
+    }
+
+    /** Routing one published batch to WebSocket subscribers (on the fan-out thread). */
+    @Name("org.example.Broadcast")
+    @Label("WebSocket Broadcast")
+    @Category({CATEGORY, "WebSocket"})
+    @StackTrace(false)
+    public static final class Broadcast extends Event {
+        @Label("Version")
+        public long version;
+
+        @Label("Changes")
+        public int changes;
+
+        @Label("Frames Queued")
+        public int frames;
+
+        @Label("Encoded Bytes")
+        @DataAmount
+        public long bytes;
+    }
+}
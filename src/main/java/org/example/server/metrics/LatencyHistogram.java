@@ -0,0 +1,146 @@
+package org.example.server.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-footprint latency histogram with log-linear buckets (the
+ * HdrHistogram layout with 3 sub-bucket bits).
+ *
+ * Values are kept in microseconds. Below 16µs every value has its own
+ * bucket; above that each power of two is split into 8 equal buckets, so
+ * any recorded value is known to within 12.5%. Recording is one array
+ * increment plus two LongAdder adds, with no allocation and no lock.
+ * Values past ~12 days land in the last bucket.
+ */
+public final class LatencyHistogram {
+
+    private static final int LINEAR = 16;              // exact buckets 0..15µs
+    private static final int SUB_BITS = 3;             // 8 buckets per power of two
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int MAX_EXP = 40;             // 2^40µs ≈ 12.7 days
+    private static final int BUCKETS = LINEAR + (MAX_EXP - 4) * SUB + 1;   // + overflow
+
+    /**
+     * Default Prometheus {@code le} bounds in seconds: sub-millisecond
+     * handlers up to a full long-poll wait or a slow solver run.
+     */
+    public static final double[] DEFAULT_BOUNDS_SECONDS = {
+            0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1,
+            0.25, 0.5, 1, 2.5, 5, 10, 30, 60};
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos The duration in nanoseconds (negative counts as 0).
+     */
+    public void record(long nanos) {
+        long n = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(n / 1000));
+        total.increment();
+        sumNanos.add(n);
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return The count.
+     */
+    public long count() {
+        return total.sum();
+    }
+
+    /**
+     * Gets the sum of recorded values.
+     *
+     * @return The total in nanoseconds.
+     */
+    public long sumNanos() {
+        return sumNanos.sum();
+    }
+
+    /**
+     * Counts recorded values whose bucket lies entirely at or below a bound.
+     *
+     * @param nanos The inclusive bound.
+     * @return The cumulative count.
+     */
+    public long countAtOrBelow(long nanos) {
+        long micros = nanos / 1000;
+        long c = 0;
+        for (int i = 0; i < BUCKETS && upperMicros(i) - 1 <= micros; i++) {
+            c += counts.get(i);
+        }
+        return c;
+    }
+
+    /**
+     * Estimates a percentile as the upper edge of the bucket that holds it.
+     *
+     * @param percentile 0..100
+     * @return The value in nanoseconds (0 if nothing was recorded).
+     */
+    public long valueAtPercentile(double percentile) {
+        long n = count();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(n * Math.min(100, percentile) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return TimeUnit.MICROSECONDS.toNanos(upperMicros(i));
+        }
+        return TimeUnit.MICROSECONDS.toNanos(upperMicros(BUCKETS - 1));
+    }
+
+    /**
+     * Writes this histogram as Prometheus {@code _bucket}, {@code _sum} and
+     * {@code _count} samples, in seconds. The HELP/TYPE header is the
+     * caller's, so several label sets can share one metric name.
+     *
+     * @param out    The exposition being built.
+     * @param name   Metric base name (e.g. {@code http_request_duration_seconds}).
+     * @param labels Label pairs ({@code key, value, key, value ...}).
+     */
+    public void writeTo(PrometheusText out, String name, String... labels) {
+        for (double le : DEFAULT_BOUNDS_SECONDS) {
+            out.sample(name + "_bucket", countAtOrBelow((long) (le * 1e9)), withLe(labels, PrometheusText.number(le)));
+        }
+        long n = count();
+        out.sample(name + "_bucket", n, withLe(labels, "+Inf"));
+        out.sample(name + "_sum", sumNanos() / 1e9, labels);
+        out.sample(name + "_count", n, labels);
+    }
+
+    private static String[] withLe(String[] labels, String le) {
+        String[] all = Arrays.copyOf(labels, labels.length + 2);
+        all[labels.length] = "le";
+        all[labels.length + 1] = le;
+        return all;
+    }
+
+    /* ---------- bucket layout ---------- */
+
+    static int bucketOf(long micros) {
+        if (micros < LINEAR) return (int) micros;
+        int exp = 63 - Long.numberOfLeadingZeros(micros);     // >= 4
+        if (exp >= MAX_EXP) return BUCKETS - 1;
+        int sub = (int) (micros >>> (exp - SUB_BITS)) & (SUB - 1);
+        return LINEAR + (exp - 4) * SUB + sub;
+    }
+
+    /** Exclusive upper edge of a bucket, in microseconds. */
+    static long upperMicros(int bucket) {
+        if (bucket < LINEAR) return bucket + 1;
+        if (bucket == BUCKETS - 1) return Long.MAX_VALUE / 1000;
+        int exp = (bucket - LINEAR) / SUB + 4;
+        int sub = (bucket - LINEAR) % SUB;
+        long width = 1L << (exp - SUB_BITS);
+        return (SUB + sub) * width + width;
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.server.metrics;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builder for the Prometheus text exposition format (version 0.0.4).
+ *
+ * <pre>
+ *   PrometheusText out = new PrometheusText();
+ *   out.header("ws_peers", "gauge", "Open WebSocket connections.");
+ *   out.sample("ws_peers", 3);
+ * </pre>
+ */
+public final class PrometheusText {
+
+    /** Content-Type for the scrape response. */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final StringBuilder sb = new StringBuilder(4096);
+
+    /**
+     * Writes the HELP and TYPE lines that precede a metric's samples.
+     *
+     * @param name The metric name.
+     * @param type counter, gauge or histogram.
+     * @param help One-line description.
+     * @return this
+     */
+    public PrometheusText header(String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    /**
+     * Writes one sample line.
+     *
+     * @param name   The sample name.
+     * @param value  The value.
+     * @param labels Label pairs ({@code key, value, key, value ...}).
+     * @return this
+     */
+    public PrometheusText sample(String name, double value, String... labels) {
+        sb.append(name);
+        if (labels.length > 0) {
+            sb.append('{');
+            for (int i = 0; i + 1 < labels.length; i += 2) {
+                if (i > 0) sb.append(',');
+                sb.append(labels[i]).append("=\"");
+                escape(labels[i + 1]);
+                sb.append('"');
+            }
+            sb.append('}');
+        }
+        sb.append(' ').append(number(value)).append('\n');
+        return this;
+    }
+
+    /**
+     * Formats a value the way Prometheus expects (integers without ".0").
+     *
+     * @param v The value.
+     * @return Its text form.
+     */
+    public static String number(double v) {
+        if (Double.isNaN(v)) return "NaN";
+        if (Double.isInfinite(v)) return v > 0 ? "+Inf" : "-Inf";
+        if (v == Math.rint(v) && Math.abs(v) < 1e15) return Long.toString((long) v);
+        return Double.toString(v);
+    }
+
+    /**
+     * Gets the exposition as UTF-8 bytes.
+     *
+     * @return The response body.
+     */
+    public byte[] toBytes() {
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return sb.toString();
+    }
+
+    private void escape(String v) {
+        for (int i = 0; i < v.length(); i++) {
+            char c = v.charAt(i);
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case '"'  -> sb.append("\\\"");
+                case '\n' -> sb.append("\\n");
+                default   -> sb.append(c);
+            }
+        }
+    }
+}
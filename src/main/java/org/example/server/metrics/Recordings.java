@@ -0,0 +1,88 @@
+package org.example.server.metrics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * On-demand JDK Flight Recorder recording, driven by the admin endpoint.
+ * At most one recording exists at a time; it uses the JDK's "profile"
+ * settings plus every {@link FlightEvents} event.
+ */
+public final class Recordings {
+
+    /** Upper bound on what a forgotten recording keeps in memory/disk. */
+    private static final Duration MAX_AGE = Duration.ofMinutes(30);
+
+    private Recording current;   // guarded by this
+
+    /**
+     * Starts a recording unless one is already running.
+     *
+     * @return False if a recording was already running.
+     * @throws IOException if the JFR configuration cannot be loaded.
+     */
+    public synchronized boolean start() throws IOException {
+        if (current != null && current.getState() == RecordingState.RUNNING) return false;
+        if (current != null) current.close();
+
+        Configuration profile;
+        try {
+            profile = Configuration.getConfiguration("profile");
+        } catch (ParseException e) {
+            throw new IOException("cannot load JFR profile settings", e);
+        }
+        Recording r = new Recording(profile);
+        r.setName("volunteer-matching");
+        r.setMaxAge(MAX_AGE);
+        for (Class<? extends Event> e : List.of(FlightEvents.SolverPhase.class,
+                FlightEvents.Generation.class, FlightEvents.HttpRequest.class, FlightEvents.Broadcast.class)) {
+            r.enable(e).withoutThreshold();
+        }
+        r.start();
+        current = r;
+        return true;
+    }
+
+    /**
+     * Stops the running recording; its data stays available for {@link #dump}.
+     *
+     * @return False if nothing was running.
+     */
+    public synchronized boolean stop() {
+        if (current == null || current.getState() != RecordingState.RUNNING) return false;
+        current.stop();
+        return true;
+    }
+
+    /**
+     * Writes the recording (so far, if still running) to a temporary .jfr file.
+     * The caller deletes it.
+     *
+     * @return The file, or {@code null} if there is no recording.
+     * @throws IOException if writing fails.
+     */
+    public synchronized Path dump() throws IOException {
+        if (current == null) return null;
+        Path file = Files.createTempFile("volunteer-matching-", ".jfr");
+        current.dump(file);
+        return file;
+    }
+
+    /**
+     * Gets the recording state for status responses.
+     *
+     * @return "none", or the JFR state name (e.g. "RUNNING", "STOPPED").
+     */
+    public synchronized String state() {
+        return current == null ? "none" : current.getState().name();
+    }
+}
@@ -1,24 +1,69 @@
 package org.example.server.network;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.example.domain.AssignmentBatch;
+import org.example.server.log.AsyncLog;
+import org.example.server.metrics.FlightEvents;
+import org.example.server.store.AssignmentChangeLog;
+import org.example.server.store.AssignmentSnapshot;
+import org.example.server.store.PublishedAssignment;
 import org.java_websocket.WebSocket;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
 import org.java_websocket.handshake.ClientHandshake;
 import org.java_websocket.server.WebSocketServer;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
- * WebSocket endpoint for broadcasting assignment updates to all connected clients.
- * Listens on ws://localhost:8081
+ * WebSocket endpoint for pushing assignment updates to connected clients.
+ * Listens on ws://localhost:8081 and negotiates permessage-deflate.
+ *
+ * Subscription protocol: after connecting, a client sends
+ *   {"subscribe": "<volunteerId>"}                    → JSON text frame per update
+ *   {"subscribe": "<volunteerId>", "batched": true}   → binary {@link AssignmentBatch} frames
+ *   {"subscribe": "*"}                                → one binary batch per run with every change
+ * and from then on receives only the updates it asked for. A socket may
+ * subscribe to several ids; "*" is meant for coordinator dashboards.
+ *
+ * Resuming: a subscription may carry {@code "sinceVersion": v, "epoch": e}
+ * from the server's last {@code {"subscribed": id, "version": v, "epoch": e}}
+ * acknowledgement and frames. The server then first sends what changed
+ * after v: from its bounded {@link AssignmentChangeLog} when it still holds
+ * everything since v, otherwise (log too short, or a different epoch, i.e.
+ * the server restarted) the current state from the assignment store.
+ *
+ * Each "*" batch's base version is the version of the batch before it, so
+ * a client that sees a base other than the last version it received has
+ * missed something and should subscribe again with that version.
+ *
+ * All sends go through a {@link FanOut} stage with bounded per-peer queues,
+ * so callers never block on socket I/O. Dead peers are found by ping/pong
+ * ({@link #PING_INTERVAL_S}) and closed.
  */
-public class AssignmentWebSocketServer extends WebSocketServer {
+public final class AssignmentWebSocketServer extends WebSocketServer {
+
+    /** Subscription key for sockets that want every volunteer's changes. */
+    public static final String ALL = "*";
+
+    /** Seconds between pings; a peer that misses a pong in that window is closed. */
+    private static final int PING_INTERVAL_S = 30;
 
     /**
      * Singleton instance reference so that HTTP handlers (in ServerHandler)
-     * can access this server to broadcast messages.
+     * can access this server to broadcast messages. Set by {@link #start(int, Supplier)}
+     * once the server is fully constructed.
      */
-    public static AssignmentWebSocketServer instance;
+    private static volatile AssignmentWebSocketServer instance;
 
     /**
      * Thread-safe set of all currently open WebSocket connections (peers).
@@ -27,14 +72,66 @@ public class AssignmentWebSocketServer extends WebSocketServer {
     private static final Set<WebSocket> peers = new CopyOnWriteArraySet<>();
 
     /**
-     * Constructor: binds the WebSocketServer to the given port
-     * and sets the static instance reference.
+     * volunteerId (or {@link #ALL}) → sockets subscribed to those updates.
+     * Each socket's own {@link Peer} is kept as its attachment so it can
+     * be dropped from this index when the socket closes.
+     */
+    private static final Map<String, Set<WebSocket>> subscribers = new ConcurrentHashMap<>();
+
+    private static final Gson G = new Gson();
+
+    private static final AsyncLog LOG = AsyncLog.get("ws");
+
+    /** Routing and socket writes happen here, off the caller's thread. */
+    private static final FanOut FANOUT = new FanOut(peers);
+
+    /** Recent batches for resuming subscribers; only touched on the fan-out thread. */
+    private static final AssignmentChangeLog CHANGE_LOG =
+            new AssignmentChangeLog(Integer.getInteger("ws.replayChanges", 100_000));
+
+    /** Current assignments, for subscribers the change log no longer covers. */
+    private static volatile Supplier<AssignmentSnapshot> snapshots;
+
+    private static final LongAdder replayedFromLog = new LongAdder();
+    private static final LongAdder replayedFromStore = new LongAdder();
+
+    /** Per-socket state (subscriptions and outbound queue), stored as the socket attachment. */
+    static final class Peer {
+        final Set<String> ids = ConcurrentHashMap.newKeySet();
+        final FanOut.Outbox outbox = new FanOut.Outbox();
+        volatile boolean batched;
+    }
+
+    /**
+     * Constructor: binds the WebSocketServer to the given port.
+     * Use {@link #start(int, Supplier)}, which also registers the instance.
      *
      * @param port the TCP port to listen on (e.g. 8081)
      */
-    public AssignmentWebSocketServer(int port) {
-        super(new InetSocketAddress(port));
-        instance = this;  // store global handle for static access elsewhere
+    private AssignmentWebSocketServer(int port) {
+        // offer permessage-deflate; clients that don't ask for it still connect uncompressed
+        super(new InetSocketAddress(port),
+                List.of(new Draft_6455(new PerMessageDeflateExtension())));
+        setConnectionLostTimeout(PING_INTERVAL_S);
+        // rebind at once after a restart, despite connections from the last run in TIME_WAIT
+        setReuseAddr(true);
+    }
+
+    /**
+     * Creates the server, registers it for the static send methods and
+     * starts it. The instance is published only after construction, so no
+     * broadcast can reach a half-built server.
+     *
+     * @param port      the TCP port to listen on (e.g. 8081)
+     * @param snapshots current assignments, to resync subscribers the change log does not cover
+     * @return The started server.
+     */
+    public static AssignmentWebSocketServer start(int port, Supplier<AssignmentSnapshot> snapshots) {
+        AssignmentWebSocketServer server = new AssignmentWebSocketServer(port);
+        AssignmentWebSocketServer.snapshots = snapshots;
+        instance = server;  // store global handle for static access elsewhere
+        server.start();
+        return server;
     }
 
     /**
@@ -43,16 +140,30 @@ public class AssignmentWebSocketServer extends WebSocketServer {
      */
     @Override
     public void onOpen(WebSocket socket, ClientHandshake handshake) {
+        socket.setAttachment(new Peer());
         peers.add(socket);
     }
 
     /**
      * Called when a client connection is closed (cleanly or abnormally).
-     * We remove it from our peers set.
+     * We remove it from our peers set and, on the fan-out thread (where
+     * subscriptions are added), from every subscription it held, and drop
+     * (and count) whatever was still queued for it.
      */
     @Override
     public void onClose(WebSocket socket, int code, String reason, boolean remote) {
         peers.remove(socket);
+        Peer peer = socket.getAttachment();
+        if (peer == null) return;
+        FANOUT.execute(() -> {
+            FANOUT.discard(peer.outbox);   // tick() no longer sees this peer
+            for (String id : peer.ids) {
+                subscribers.computeIfPresent(id, (k, socks) -> {
+                    socks.remove(socket);
+                    return socks.isEmpty() ? null : socks;
+                });
+            }
+        });
     }
 
     /**
@@ -61,31 +172,112 @@ public class AssignmentWebSocketServer extends WebSocketServer {
      */
     @Override
     public void onError(WebSocket socket, Exception ex) {
-        ex.printStackTrace();
+        LOG.error(ex, "WebSocket error (%s)",
+                socket != null ? socket.getRemoteSocketAddress() : "server");
     }
 
     /**
      * Called when a message is received from a client.
-     * In this application we don't expect inbound messages, so this is a no-op.
+     * The only inbound message is a subscription (see class comment).
+     * Anything else is ignored.
      */
     @Override
     public void onMessage(WebSocket socket, String message) {
-        // Server is write-only; ignore any client messages
+        String id;
+        boolean batched;
+        long since;
+        long epoch;
+        try {
+            JsonObject o = G.fromJson(message, JsonObject.class);
+            if (o == null || !o.has("subscribe")) return;
+            id = o.get("subscribe").getAsString();
+            batched = ALL.equals(id) || (o.has("batched") && o.get("batched").getAsBoolean());
+            since = o.has("sinceVersion") ? o.get("sinceVersion").getAsLong() : -1;
+            epoch = o.has("epoch") ? o.get("epoch").getAsLong() : PublishedAssignment.epoch();
+        } catch (Exception ignore) {
+            return;  // not a subscription message
+        }
+        // on the fan-out thread, so no batch is routed between subscribing and replaying
+        FANOUT.execute(() -> {
+            if (!subscribe(socket, id, batched)) return;
+            boolean sameRun = epoch == PublishedAssignment.epoch();
+            if (since >= 0) resume(socket, id, since > 0 && !sameRun ? Long.MAX_VALUE : since);
+        });
+    }
+
+    /**
+     * Fan-out thread: registers a socket for one volunteer's updates (or
+     * {@link #ALL}). Returns false if the socket closed before this ran;
+     * its {@link #onClose} cleanup has then already run or is queued behind
+     * us, so it must not be added back.
+     */
+    private static boolean subscribe(WebSocket socket, String volunteerId, boolean batched) {
+        Peer peer = socket.getAttachment();
+        if (peer == null || !socket.isOpen()) return false;
+        peer.ids.add(volunteerId);
+        if (batched) peer.batched = true;
+        subscribers.computeIfAbsent(volunteerId, k -> new CopyOnWriteArraySet<>()).add(socket);
+        return true;
+    }
+
+    /**
+     * Fan-out thread: acknowledges a resumed subscription, then sends what
+     * changed for it after {@code since} (from the change log if it covers
+     * that, else the current state from the store).
+     */
+    private static void resume(WebSocket socket, String volunteerId, long since) {
+        Peer peer = socket.getAttachment();
+        if (peer == null) return;
+        enqueue(socket, new FanOut.Frame(G.toJson(Map.of(
+                "subscribed", volunteerId,
+                "version",    CHANGE_LOG.version(),
+                "epoch",      PublishedAssignment.epoch())), null));
+
+        if (CHANGE_LOG.covers(since)) {
+            replayedFromLog.increment();
+            if (ALL.equals(volunteerId)) {
+                // sent even if empty: "*" clients check each batch's base against the last version
+                enqueue(socket, new FanOut.Frame(CHANGE_LOG.since(since).encode(), null));
+            } else {
+                AssignmentBatch.Change c = CHANGE_LOG.latest(volunteerId, since);
+                if (c != null) enqueue(socket, changeFrame(peer, c, since, CHANGE_LOG.version()));
+            }
+            return;
+        }
+
+        Supplier<AssignmentSnapshot> source = snapshots;
+        if (source == null) return;
+        replayedFromStore.increment();
+        AssignmentSnapshot snap = source.get();
+        if (ALL.equals(volunteerId)) {
+            List<AssignmentBatch.Change> all = new ArrayList<>(snap.size());
+            snap.forEach((id, p) -> all.add(new AssignmentBatch.Change(id, p.serviceName())));
+            enqueue(socket, new FanOut.Frame(new AssignmentBatch(0, snap.version(), all).encode(), null));
+        } else {
+            PublishedAssignment p = snap.get(volunteerId);
+            AssignmentBatch.Change c = new AssignmentBatch.Change(volunteerId, p != null ? p.serviceName() : null);
+            enqueue(socket, changeFrame(peer, c, 0, snap.version()));
+        }
+    }
+
+    /** One volunteer's change in the form its subscriber asked for. */
+    private static FanOut.Frame changeFrame(Peer peer, AssignmentBatch.Change c, long base, long version) {
+        return peer.batched
+                ? new FanOut.Frame(new AssignmentBatch(base, version, List.of(c)).encode(), c.volunteerId())
+                : new FanOut.Frame(toJson(c, version), c.volunteerId());
     }
 
     /**
      * Called once the server has been set up and is ready to accept connections.
-     * We print a confirmation to standard output.
+     * We log a confirmation.
      */
     @Override
     public void onStart() {
-        System.out.println("✅ WS server on :8081");
+        LOG.info("✅ WS server on :%d", getPort());
     }
 
     /**
      * Broadcast a text message to all connected clients.
-     * HTTP handlers should call this method whenever an assignment update
-     * needs to be pushed out in real-time.
      *
      * @param msg the JSON-encoded message to send
      */
@@ -93,11 +285,138 @@ public class AssignmentWebSocketServer extends WebSocketServer {
         // If the server hasn't been instantiated yet, there's nothing to broadcast
         if (instance == null) return;
 
-        // Send to each open WebSocket
-        for (WebSocket ws : peers) {
-            if (ws.isOpen()) {
-                ws.send(msg);
+        FanOut.Frame frame = new FanOut.Frame(msg, null);
+        FANOUT.execute(() -> {
+            for (WebSocket ws : peers) {
+                enqueue(ws, frame);
+            }
+        });
+    }
+
+    /**
+     * Publish one optimization run's changes. Each subscriber group gets a
+     * single frame: {@link #ALL} sockets share one binary frame holding the
+     * whole batch, and each volunteer's sockets share one frame holding just
+     * that volunteer's change (binary if they subscribed batched, JSON text
+     * otherwise). Every frame is encoded once per group, not once per socket.
+     *
+     * Returns immediately; encoding and sends happen on the fan-out thread.
+     *
+     * @param batch the changes and version of the run
+     */
+    public static void publish(AssignmentBatch batch) {
+        if (instance == null) return;
+        FANOUT.execute(() -> route(batch));
+    }
+
+    /**
+     * Drops the change log after {@link PublishedAssignment#newEpoch()}:
+     * versions restart, so resuming subscribers must get the current state.
+     * Call before publishing the first batch of the new epoch.
+     */
+    public static void epochChanged() {
+        FANOUT.execute(CHANGE_LOG::clear);
+    }
+
+    /** Fan-out thread: encodes one frame per subscriber group and queues it per peer. */
+    private static void route(AssignmentBatch batch) {
+        FlightEvents.Broadcast event = new FlightEvents.Broadcast();
+        event.begin();
+        CHANGE_LOG.append(batch);
+        int frames = 0;
+        long bytes = 0;
+
+        // "*" gets every batch, even an empty one, so its base/version chain has no holes
+        Set<WebSocket> all = subscribers.get(ALL);
+        if (all != null) {
+            byte[] encoded = batch.encode();
+            FanOut.Frame frame = new FanOut.Frame(encoded, null);
+            bytes += encoded.length;
+            for (WebSocket ws : all) {
+                enqueue(ws, frame);
+                frames++;
             }
         }
+
+        for (AssignmentBatch.Change c : batch.getChanges()) {
+            Set<WebSocket> socks = subscribers.get(c.volunteerId());
+            if (socks == null) continue;
+
+            FanOut.Frame binary = null;
+            FanOut.Frame text = null;
+            for (WebSocket ws : socks) {
+                Peer peer = ws.getAttachment();
+                if (peer != null && peer.batched) {
+                    if (binary == null) {
+                        byte[] encoded = new AssignmentBatch(batch.getBaseVersion(),
+                                batch.getVersion(), List.of(c)).encode();
+                        binary = new FanOut.Frame(encoded, c.volunteerId());
+                        bytes += encoded.length;
+                    }
+                    enqueue(ws, binary);
+                } else {
+                    if (text == null) {
+                        String json = toJson(c, batch.getVersion());
+                        text = new FanOut.Frame(json, c.volunteerId());
+                        bytes += json.length();
+                    }
+                    enqueue(ws, text);
+                }
+                frames++;
+            }
+        }
+
+        if (event.shouldCommit()) {
+            event.version = batch.getVersion();
+            event.changes = batch.getChanges().size();
+            event.frames = frames;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    private static void enqueue(WebSocket ws, FanOut.Frame frame) {
+        Peer peer = ws.getAttachment();
+        if (peer != null) FANOUT.enqueue(ws, peer.outbox, frame);
     }
+
+    /** Legacy per-volunteer JSON message for text subscribers. */
+    private static String toJson(AssignmentBatch.Change c, long version) {
+        if (c.service() == null) {
+            return G.toJson(Map.of(
+                    "volunteerId", c.volunteerId(),
+                    "removed",     true,
+                    "version",     version));
+        }
+        return G.toJson(Map.of(
+                "volunteerId", c.volunteerId(),
+                "assignment",  c.service(),
+                "version",     version));
+    }
+
+    /* ---------- Metrics ---------- */
+
+    /** Number of open WebSocket connections. */
+    public static int peerCount() { return peers.size(); }
+
+    /** Frames waiting in per-peer outbound queues. */
+    public static int queuedFrames() { return FANOUT.queuedFrames(); }
+
+    /** Frames handed to sockets since startup. */
+    public static long sentFrames() { return FANOUT.sentFrames(); }
+
+    /** Frames dropped with evicted or vanished peers since startup. */
+    public static long droppedFrames() { return FANOUT.droppedFrames(); }
+
+    /** Frames coalesced into a newer frame for the same volunteer since startup. */
+    public static long coalescedFrames() { return FANOUT.coalescedFrames(); }
+
+    /** Peers evicted for not reading or overflowing their queue since startup. */
+    public static long evictedPeers() { return FANOUT.evictedPeers(); }
+
+    /** Resumed subscriptions served from the change log since startup. */
+    public static long replayedFromLog() { return replayedFromLog.sum(); }
+
+    /** Resumed subscriptions the log did not cover, served from the store, since startup. */
+    public static long replayedFromStore() { return replayedFromStore.sum(); }
 }
@@ -0,0 +1,135 @@
+package org.example.server.network;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.example.server.log.AsyncLog;
+import org.example.server.metrics.LatencyHistogram;
+import org.example.server.metrics.PrometheusText;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded pool of threads and queue slots reserved for one class of
+ * requests, so a flood of one kind (e.g. /optimize runs waiting on the
+ * solver) cannot starve the others.
+ *
+ * {@link #wrap} returns a handler that only enqueues the exchange; the real
+ * handler runs on this bulkhead's threads. Overload is answered at once
+ * instead of piling up:
+ * <ul>
+ *   <li>queue full → {@code rejectStatus} (429 or 503) with Retry-After;</li>
+ *   <li>waited in the queue longer than {@code maxQueueWaitMs} → 503 with
+ *       Retry-After, since the client has likely given up already.</li>
+ * </ul>
+ * Since the handler runs after {@link #wrap}'s handler returned, a
+ * {@link Completion} is told when it is done, e.g. to finish timing it.
+ */
+final class Bulkhead {
+
+    /** Told on the bulkhead thread once a queued exchange was handled (or shed). */
+    interface Completion {
+        /**
+         * @param ex      the exchange; its response may still be pending if the handler parked it
+         * @param failure what the handler threw, or {@code null}
+         */
+        void done(HttpExchange ex, Exception failure);
+    }
+
+    private static final AsyncLog LOG = AsyncLog.get("http");
+
+    private final String name;
+    private final ThreadPoolExecutor pool;
+    private final long maxQueueWaitNanos;
+    private final int rejectStatus;
+    private final LongSupplier retryAfterSeconds;
+    private final Completion completion;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+
+    /**
+     * @param name              label for threads and metrics
+     * @param threads           concurrent handlers
+     * @param queueCapacity     exchanges that may wait for a thread
+     * @param maxQueueWaitMs    oldest acceptable queue wait before shedding
+     * @param rejectStatus      status when the queue is full (429 or 503)
+     * @param retryAfterSeconds Retry-After hint, evaluated per rejection
+     * @param completion        told when each queued exchange is done
+     */
+    Bulkhead(String name, int threads, int queueCapacity, long maxQueueWaitMs,
+             int rejectStatus, LongSupplier retryAfterSeconds, Completion completion) {
+        this.name = name;
+        this.maxQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueWaitMs);
+        this.rejectStatus = rejectStatus;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.completion = completion;
+
+        AtomicInteger n = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> new Thread(r, "http-" + name + "-" + n.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /** Runs {@code h} on this bulkhead, or answers 429/503 right away if it is saturated. */
+    HttpHandler wrap(HttpHandler h) {
+        return ex -> {
+            long enqueued = System.nanoTime();
+            try {
+                pool.execute(() -> run(h, ex, enqueued));
+            } catch (RejectedExecutionException full) {
+                rejected.increment();
+                reject(ex, rejectStatus);
+            }
+        };
+    }
+
+    private void run(HttpHandler h, HttpExchange ex, long enqueued) {
+        Exception failure = null;
+        try {
+            long waited = System.nanoTime() - enqueued;
+            queueWait.record(waited);
+            if (waited > maxQueueWaitNanos) {
+                shed.increment();
+                reject(ex, 503);
+                return;
+            }
+            h.handle(ex);
+        } catch (Exception e) {
+            failure = e;
+            LOG.error(e, "%s handler failed for %s", name, ex.getRequestURI());
+            ex.close();   // the JDK server would do this for an inline handler
+        } finally {
+            completion.done(ex, failure);
+        }
+    }
+
+    private void reject(HttpExchange ex, int status) throws IOException {
+        ex.getResponseHeaders().add("Retry-After", Long.toString(Math.max(1, retryAfterSeconds.getAsLong())));
+        ex.sendResponseHeaders(status, -1);
+        ex.close();
+    }
+
+    /** Appends queue depth, active threads, rejections and queue wait for each bulkhead. */
+    static void writeTo(PrometheusText out, List<Bulkhead> bulkheads) {
+        out.header("http_bulkhead_queue_depth", "gauge", "Requests waiting for a bulkhead thread.");
+        for (Bulkhead b : bulkheads) out.sample("http_bulkhead_queue_depth", b.pool.getQueue().size(), "bulkhead", b.name);
+        out.header("http_bulkhead_active_threads", "gauge", "Bulkhead threads running a handler.");
+        for (Bulkhead b : bulkheads) out.sample("http_bulkhead_active_threads", b.pool.getActiveCount(), "bulkhead", b.name);
+        out.header("http_bulkhead_rejected_total", "counter", "Requests refused because the bulkhead queue was full.");
+        for (Bulkhead b : bulkheads) out.sample("http_bulkhead_rejected_total", b.rejected.sum(), "bulkhead", b.name);
+        out.header("http_bulkhead_shed_total", "counter", "Requests answered 503 after waiting too long in the queue.");
+        for (Bulkhead b : bulkheads) out.sample("http_bulkhead_shed_total", b.shed.sum(), "bulkhead", b.name);
+        out.header("http_bulkhead_queue_wait_seconds", "histogram", "Time requests spent waiting for a bulkhead thread.");
+        for (Bulkhead b : bulkheads) b.queueWait.writeTo(out, "http_bulkhead_queue_wait_seconds", "bulkhead", b.name);
+    }
+}
@@ -0,0 +1,201 @@
+package org.example.server.network;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.framing.CloseFrame;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dedicated fan-out stage for WebSocket pushes.
+ *
+ * Publishers hand work to {@link #execute(Runnable)} and return immediately;
+ * all routing and socket writes happen on the single "ws-fanout" thread, so
+ * a burst of sends (or a slow peer) never stalls an HTTP handler.
+ *
+ * Each peer has a bounded {@link Outbox}. Frames only move from the outbox
+ * into the socket while the socket's own write queue holds fewer than
+ * {@link #MAX_IN_FLIGHT} buffers, so a lagging peer backs up in its outbox
+ * instead of in unbounded library buffers. When an outbox is full:
+ * <ul>
+ *   <li>a frame with a coalesce key replaces the queued frame with the same key
+ *       (per-volunteer frames carry full state, so only the latest matters);</li>
+ *   <li>otherwise (e.g. "*" delta batches, where every frame matters) the peer
+ *       is closed and its queue dropped; it reconnects and resumes from the
+ *       last version it received, which replays what it missed.</li>
+ * </ul>
+ * A peer whose outbox makes no progress for {@link #STALL_EVICT_MS} is closed.
+ */
+final class FanOut {
+
+    /** Frames a lagging peer may have waiting before coalescing/closing kicks in. */
+    static final int OUTBOX_CAPACITY = 64;
+
+    /** Buffers allowed in the socket's own write queue before we hold back. */
+    static final int MAX_IN_FLIGHT = 8;
+
+    /** A peer that cannot accept a single frame for this long is evicted. */
+    static final long STALL_EVICT_MS = 30_000;
+
+    /** How often stalled outboxes are retried. */
+    private static final long TICK_MS = 25;
+
+    /** One queued frame: a String (text) or byte[] (binary) payload. */
+    record Frame(Object payload, String coalesceKey) {}
+
+    /** Per-peer bounded queue; only touched on the fan-out thread. */
+    static final class Outbox {
+        private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+        private long stalledSince;   // 0 while the peer keeps up
+    }
+
+    private final ScheduledExecutorService loop;
+    private final Set<WebSocket> peers;
+
+    // metrics, readable from any thread
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    /**
+     * @param peers live view of the open sockets (each with a peer attachment)
+     */
+    FanOut(Set<WebSocket> peers) {
+        this.peers = peers;
+        this.loop = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ws-fanout");
+            t.setDaemon(true);
+            return t;
+        });
+        loop.scheduleWithFixedDelay(this::tick, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Runs routing work on the fan-out thread. */
+    void execute(Runnable task) {
+        loop.execute(task);
+    }
+
+    /**
+     * Queues a frame for one peer and flushes as much as the peer can take.
+     * Must be called on the fan-out thread.
+     */
+    void enqueue(WebSocket ws, Outbox box, Frame frame) {
+        if (!ws.isOpen()) return;
+
+        if (box.frames.size() >= OUTBOX_CAPACITY) {
+            if (frame.coalesceKey() != null && replace(box, frame)) {
+                coalesced.increment();
+                flush(ws, box);
+                return;
+            }
+            // dropping a delta would leave a hole the peer never hears about
+            evict(ws, box, "outbox overflow");
+            return;
+        }
+        box.frames.addLast(frame);
+        queued.incrementAndGet();
+        flush(ws, box);
+    }
+
+    /** Swaps out the queued frame with the same coalesce key, if any. */
+    private boolean replace(Outbox box, Frame frame) {
+        for (Iterator<Frame> it = box.frames.iterator(); it.hasNext(); ) {
+            if (frame.coalesceKey().equals(it.next().coalesceKey())) {
+                it.remove();
+                box.frames.addLast(frame);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Moves frames into the socket while its write queue has room. */
+    private void flush(WebSocket ws, Outbox box) {
+        while (!box.frames.isEmpty() && inFlight(ws) < MAX_IN_FLIGHT) {
+            Frame f = box.frames.pollFirst();
+            queued.decrementAndGet();
+            try {
+                if (f.payload() instanceof byte[] bytes) {
+                    ws.send(ByteBuffer.wrap(bytes));
+                } else {
+                    ws.send((String) f.payload());
+                }
+                sent.increment();
+            } catch (RuntimeException closed) {
+                dropped.increment();   // peer went away between checks
+            }
+        }
+        box.stalledSince = box.frames.isEmpty() ? 0
+                : (box.stalledSince == 0 ? System.currentTimeMillis() : box.stalledSince);
+    }
+
+    /** Retries backed-up peers and evicts the ones that stopped reading. */
+    private void tick() {
+        long now = System.currentTimeMillis();
+        for (WebSocket ws : peers) {
+            Outbox box = outboxOf(ws);
+            if (box == null || box.frames.isEmpty()) continue;
+
+            if (!ws.isOpen()) {
+                discard(box);
+                continue;
+            }
+            flush(ws, box);
+            if (box.stalledSince != 0 && now - box.stalledSince > STALL_EVICT_MS) {
+                evict(ws, box, "slow consumer");
+            }
+        }
+    }
+
+    /** Drops a peer's queue and closes it; the client resumes from its last version. */
+    private void evict(WebSocket ws, Outbox box, String reason) {
+        discard(box);
+        evicted.increment();
+        ws.close(CloseFrame.TRY_AGAIN_LATER, reason);
+    }
+
+    /**
+     * Drops everything queued for a peer that is gone or being closed,
+     * counting it as dropped. Must be called on the fan-out thread.
+     */
+    void discard(Outbox box) {
+        queued.addAndGet(-box.frames.size());
+        dropped.add(box.frames.size());
+        box.frames.clear();
+        box.stalledSince = 0;
+    }
+
+    private static int inFlight(WebSocket ws) {
+        return (ws instanceof WebSocketImpl impl) ? impl.outQueue.size() : 0;
+    }
+
+    private static Outbox outboxOf(WebSocket ws) {
+        Object att = ws.getAttachment();
+        return (att instanceof AssignmentWebSocketServer.Peer p) ? p.outbox : null;
+    }
+
+    /* ---------- metrics ---------- */
+
+    /** Frames currently waiting in peer outboxes. */
+    int queuedFrames() { return queued.get(); }
+
+    /** Frames handed to sockets. */
+    long sentFrames() { return sent.sum(); }
+
+    /** Frames dropped because their peer was evicted or went away. */
+    long droppedFrames() { return dropped.sum(); }
+
+    /** Frames that replaced an older queued frame for the same volunteer. */
+    long coalescedFrames() { return coalesced.sum(); }
+
+    /** Peers closed for not reading or for overflowing their outbox. */
+    long evictedPeers() { return evicted.sum(); }
+}
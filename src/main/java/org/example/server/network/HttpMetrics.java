@@ -0,0 +1,107 @@
+package org.example.server.network;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.example.server.metrics.FlightEvents;
+import org.example.server.metrics.LatencyHistogram;
+import org.example.server.metrics.PrometheusText;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-endpoint request counts (by status code) and latency histograms,
+ * plus a JFR {@link FlightEvents.HttpRequest} event per exchange.
+ *
+ * {@link #wrap} times a handler from entry until it has sent its response.
+ * It wraps the bulkhead, so queue wait and 429/503 rejections are counted
+ * too. A handler that returns before responding (handed to a bulkhead
+ * thread, or parked for a long-poll) leaves the exchange in
+ * {@link #inFlight}; the bulkhead reports back through {@link #completed},
+ * and whoever finally responds to a parked exchange calls {@link #finish},
+ * so every request is timed end to end. A handler that throws before
+ * responding is counted as a 500.
+ * (HttpExchange attributes are shared per context in the JDK server, so the
+ * start time cannot live there.)
+ */
+final class HttpMetrics {
+
+    private record Start(String endpoint, long nanos, FlightEvents.HttpRequest event) {}
+
+    private final Map<HttpExchange, Start> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> latency = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, LongAdder>> counts = new ConcurrentHashMap<>();
+
+    /** Times every exchange handled by {@code h} under the given endpoint label. */
+    HttpHandler wrap(String endpoint, HttpHandler h) {
+        latency.putIfAbsent(endpoint, new LatencyHistogram());
+        return ex -> {
+            FlightEvents.HttpRequest event = new FlightEvents.HttpRequest();
+            event.begin();
+            inFlight.put(ex, new Start(endpoint, System.nanoTime(), event));
+            boolean ok = false;
+            try {
+                h.handle(ex);
+                ok = true;
+            } finally {
+                if (ex.getResponseCode() != -1) {
+                    record(ex, false, ex.getResponseCode());
+                } else if (!ok) {
+                    record(ex, false, 500);              // failed before responding
+                }                                        // else queued or parked: finished later
+            }
+        };
+    }
+
+    /**
+     * {@link Bulkhead.Completion}: records an exchange a bulkhead thread is
+     * done with, as a 500 if the handler failed before responding. A parked
+     * exchange (no response yet, no failure) is left for {@link #finish}.
+     */
+    void completed(HttpExchange ex, Exception failure) {
+        if (ex.getResponseCode() != -1) record(ex, false, ex.getResponseCode());
+        else if (failure != null) record(ex, false, 500);
+    }
+
+    /**
+     * Records a parked exchange once its response has been sent, or as a 500
+     * if responding failed before the headers went out.
+     * Safe to call twice: only the first call counts.
+     */
+    void finish(HttpExchange ex) {
+        int status = ex.getResponseCode();
+        record(ex, true, status != -1 ? status : 500);
+    }
+
+    private void record(HttpExchange ex, boolean parked, int status) {
+        Start s = inFlight.remove(ex);
+        if (s == null) return;
+
+        long elapsed = System.nanoTime() - s.nanos();
+        latency.computeIfAbsent(s.endpoint(), k -> new LatencyHistogram()).record(elapsed);
+        counts.computeIfAbsent(s.endpoint(), k -> new ConcurrentHashMap<>())
+              .computeIfAbsent(status, k -> new LongAdder())
+              .increment();
+
+        FlightEvents.HttpRequest e = s.event();
+        if (e.shouldCommit()) {
+            e.endpoint = s.endpoint();
+            e.method = ex.getRequestMethod();
+            e.status = status;
+            e.parked = parked;
+            e.commit();
+        }
+    }
+
+    /** Appends http_requests_total and http_request_duration_seconds. */
+    void writeTo(PrometheusText out) {
+        out.header("http_requests_total", "counter", "HTTP requests completed, by endpoint and status code.");
+        counts.forEach((ep, byCode) -> byCode.forEach((code, n) ->
+                out.sample("http_requests_total", n.sum(), "endpoint", ep, "code", Integer.toString(code))));
+
+        out.header("http_request_duration_seconds", "histogram",
+                "Time from handler entry to response sent (long-polls include the wait).");
+        latency.forEach((ep, h) -> h.writeTo(out, "http_request_duration_seconds", "endpoint", ep));
+    }
+}
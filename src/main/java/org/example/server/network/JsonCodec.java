@@ -0,0 +1,400 @@
+package org.example.server.network;
+
+import org.example.domain.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Allocation-light JSON codec for the hot endpoints, used instead of
+ * reflective Gson.
+ *
+ * Reading: {@link #readPrefs} parses a POST /preferences body straight from
+ * the request stream and resolves service names against a precomputed
+ * {@link ServiceIndex} by comparing raw UTF-8 bytes, so a preference never
+ * becomes a String. Unknown fields are skipped.
+ *
+ * Writing: response bodies are assembled as bytes ({@link #assignmentBody},
+ * {@link #servicesBody}, {@link #object}); the fixed status bodies are
+ * encoded once.
+ */
+public final class JsonCodec {
+
+    /** Pre-encoded {"status":"stored"}. */
+    public static final byte[] STATUS_STORED = object("status", "stored");
+
+    /** Pre-encoded {"error":"bad payload"}. */
+    public static final byte[] ERROR_BAD_PAYLOAD = object("error", "bad payload");
+
+    /** Pre-encoded {"error":"not found"}. */
+    public static final byte[] ERROR_NOT_FOUND = object("error", "not found");
+
+    private JsonCodec() {}
+
+    /**
+     * A decoded POST /preferences body.
+     *
+     * @param volunteerId the volunteer id, or {@code null} if missing
+     * @param name        the display name, or {@code null} if missing
+     * @param prefs       the recognized services, in the order given
+     * @param prefCount   how many entries the "prefs" array had (-1 if missing),
+     *                    including names that matched no service
+     */
+    public record Prefs(String volunteerId, String name, List<Service> prefs, int prefCount) {}
+
+    /**
+     * Service name → Service, matched on UTF-8 bytes. Built once per catalog.
+     */
+    public static final class ServiceIndex {
+        private final byte[][] names;
+        private final Service[] services;
+
+        /**
+         * @param services the catalog to resolve names against
+         */
+        public ServiceIndex(List<Service> services) {
+            this.names = new byte[services.size()][];
+            this.services = services.toArray(new Service[0]);
+            for (int i = 0; i < this.services.length; i++) {
+                names[i] = this.services[i].getName().getBytes(StandardCharsets.UTF_8);
+            }
+        }
+
+        /** Finds the service whose name equals {@code buf[0..len)}, or null. */
+        Service find(byte[] buf, int len) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].length == len && Arrays.equals(names[i], 0, len, buf, 0, len)) {
+                    return services[i];
+                }
+            }
+            return null;
+        }
+    }
+
+    /* ========== Reading ========== */
+
+    /**
+     * Parses a POST /preferences body.
+     *
+     * @param in      the request body stream (read to the end of the object)
+     * @param catalog services to resolve preference names against
+     * @return The decoded payload.
+     * @throws IOException              if the stream fails.
+     * @throws IllegalArgumentException if the body is not a JSON object.
+     */
+    public static Prefs readPrefs(InputStream in, ServiceIndex catalog) throws IOException {
+        Parser p = new Parser(in);
+        String volunteerId = null;
+        String name = null;
+        List<Service> prefs = new ArrayList<>(5);
+        int prefCount = -1;
+
+        p.expect('{');
+        if (p.peekNonWs() == '}') {
+            p.next();
+            return new Prefs(null, null, prefs, -1);
+        }
+        do {
+            int keyLen = p.readString();
+            int field = p.field(keyLen);
+            p.expect(':');
+            switch (field) {
+                case F_VOLUNTEER_ID -> volunteerId = p.readNullableString();
+                case F_NAME         -> name = p.readNullableString();
+                case F_PREFS        -> prefCount = p.readServiceArray(catalog, prefs);
+                default             -> p.skipValue();
+            }
+        } while (p.commaOr('}'));
+
+        return new Prefs(volunteerId, name, prefs, prefCount);
+    }
+
+    private static final int F_OTHER = 0, F_VOLUNTEER_ID = 1, F_NAME = 2, F_PREFS = 3;
+    private static final byte[] K_VOLUNTEER_ID = "volunteerId".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] K_NAME = "name".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] K_PREFS = "prefs".getBytes(StandardCharsets.US_ASCII);
+
+    /** Pull parser over a stream with one reusable scratch buffer for strings. */
+    private static final class Parser {
+        private final InputStream in;
+        private final byte[] buf = new byte[512];
+        private int pos, lim;
+        private byte[] str = new byte[64];   // last decoded string (UTF-8, unescaped)
+
+        Parser(InputStream in) {
+            this.in = in;
+        }
+
+        int next() throws IOException {
+            if (pos == lim) {
+                lim = in.read(buf, 0, buf.length);
+                pos = 0;
+                if (lim <= 0) {
+                    lim = 0;
+                    throw new IllegalArgumentException("unexpected end of JSON");
+                }
+            }
+            return buf[pos++] & 0xFF;
+        }
+
+        int peekNonWs() throws IOException {
+            int c;
+            do {
+                c = next();
+            } while (c == ' ' || c == '\t' || c == '\n' || c == '\r');
+            pos--;   // next() always leaves the byte in buf
+            return c;
+        }
+
+        void expect(char c) throws IOException {
+            if (peekNonWs() != c) throw new IllegalArgumentException("expected '" + c + "'");
+            pos++;
+        }
+
+        /** After a member/element: true on ',', false on {@code close}. */
+        boolean commaOr(char close) throws IOException {
+            int c = peekNonWs();
+            pos++;
+            if (c == ',') return true;
+            if (c == close) return false;
+            throw new IllegalArgumentException("expected ',' or '" + close + "'");
+        }
+
+        int field(int len) {
+            if (sameAs(K_VOLUNTEER_ID, len)) return F_VOLUNTEER_ID;
+            if (sameAs(K_NAME, len)) return F_NAME;
+            if (sameAs(K_PREFS, len)) return F_PREFS;
+            return F_OTHER;
+        }
+
+        private boolean sameAs(byte[] key, int len) {
+            return key.length == len && Arrays.equals(key, 0, len, str, 0, len);
+        }
+
+        /** Reads a JSON string into {@link #str}; returns its byte length. */
+        int readString() throws IOException {
+            expect('"');
+            int n = 0;
+            while (true) {
+                int c = next();
+                if (c == '"') return n;
+                if (c == '\\') {
+                    int e = next();
+                    switch (e) {
+                        case '"', '\\', '/' -> c = e;
+                        case 'b' -> c = '\b';
+                        case 'f' -> c = '\f';
+                        case 'n' -> c = '\n';
+                        case 'r' -> c = '\r';
+                        case 't' -> c = '\t';
+                        case 'u' -> {
+                            n = appendCodePoint(n, readUnicodeEscape());
+                            continue;
+                        }
+                        default -> throw new IllegalArgumentException("bad escape");
+                    }
+                }
+                if (n == str.length) str = Arrays.copyOf(str, n * 2);
+                str[n++] = (byte) c;
+            }
+        }
+
+        String readNullableString() throws IOException {
+            if (peekNonWs() == 'n') {
+                skipLiteral("null");
+                return null;
+            }
+            int len = readString();
+            return new String(str, 0, len, StandardCharsets.UTF_8);
+        }
+
+        /** Reads ["name", ...]; appends recognized services; returns the entry count. */
+        int readServiceArray(ServiceIndex catalog, List<Service> out) throws IOException {
+            if (peekNonWs() == 'n') {
+                skipLiteral("null");
+                return -1;
+            }
+            expect('[');
+            if (peekNonWs() == ']') {
+                pos++;
+                return 0;
+            }
+            int count = 0;
+            do {
+                int len = readString();
+                Service s = catalog.find(str, len);
+                if (s != null) out.add(s);
+                count++;
+            } while (commaOr(']'));
+            return count;
+        }
+
+        void skipValue() throws IOException {
+            int c = peekNonWs();
+            switch (c) {
+                case '"' -> readString();
+                case '{', '[' -> {
+                    pos++;
+                    char close = (c == '{') ? '}' : ']';
+                    if (peekNonWs() == close) {
+                        pos++;
+                        return;
+                    }
+                    do {
+                        if (close == '}') {
+                            readString();
+                            expect(':');
+                        }
+                        skipValue();
+                    } while (commaOr(close));
+                }
+                default -> {   // number, true, false, null
+                    while (true) {
+                        c = next();
+                        if (c == ',' || c == '}' || c == ']' || c == ' '
+                                || c == '\n' || c == '\r' || c == '\t') {
+                            pos--;
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+
+        private void skipLiteral(String lit) throws IOException {
+            for (int i = 0; i < lit.length(); i++) {
+                if (next() != lit.charAt(i)) throw new IllegalArgumentException("bad literal");
+            }
+        }
+
+        private int readUnicodeEscape() throws IOException {
+            int cp = hex4();
+            if (Character.isHighSurrogate((char) cp)) {
+                if (next() != '\\' || next() != 'u') throw new IllegalArgumentException("lone surrogate");
+                cp = Character.toCodePoint((char) cp, (char) hex4());
+            }
+            return cp;
+        }
+
+        private int hex4() throws IOException {
+            int v = 0;
+            for (int i = 0; i < 4; i++) {
+                int d = Character.digit(next(), 16);
+                if (d < 0) throw new IllegalArgumentException("bad \\u escape");
+                v = (v << 4) | d;
+            }
+            return v;
+        }
+
+        private int appendCodePoint(int n, int cp) {
+            if (n + 4 > str.length) str = Arrays.copyOf(str, str.length * 2 + 4);
+            if (cp < 0x80) {
+                str[n++] = (byte) cp;
+            } else if (cp < 0x800) {
+                str[n++] = (byte) (0xC0 | (cp >> 6));
+                str[n++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (cp < 0x10000) {
+                str[n++] = (byte) (0xE0 | (cp >> 12));
+                str[n++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                str[n++] = (byte) (0x80 | (cp & 0x3F));
+            } else {
+                str[n++] = (byte) (0xF0 | (cp >> 18));
+                str[n++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                str[n++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                str[n++] = (byte) (0x80 | (cp & 0x3F));
+            }
+            return n;
+        }
+    }
+
+    /* ========== Writing ========== */
+
+    /**
+     * Encodes {"assignment":"&lt;service&gt;"}.
+     *
+     * @param serviceName The assigned service.
+     * @return The UTF-8 body.
+     */
+    public static byte[] assignmentBody(String serviceName) {
+        return object("assignment", serviceName);
+    }
+
+    /**
+     * Encodes the GET /services body:
+     * {"version":N,"services":[{"name":"...","capacity":C},...]}.
+     *
+     * @param version  The catalog version.
+     * @param services The services, in catalog order.
+     * @return The UTF-8 body.
+     */
+    public static byte[] servicesBody(long version, List<Service> services) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 + services.size() * 48);
+        writeAscii(out, "{\"version\":" + version + ",\"services\":[");
+        for (int i = 0; i < services.size(); i++) {
+            Service s = services.get(i);
+            if (i > 0) out.write(',');
+            writeAscii(out, "{\"name\":");
+            writeString(out, s.getName());
+            writeAscii(out, ",\"capacity\":" + s.getCapacity() + "}");
+        }
+        writeAscii(out, "]}");
+        return out.toByteArray();
+    }
+
+    private static void writeAscii(ByteArrayOutputStream out, String s) {
+        byte[] b = s.getBytes(StandardCharsets.US_ASCII);
+        out.write(b, 0, b.length);
+    }
+
+    /**
+     * Encodes a single-member object {"key":"value"}.
+     *
+     * @param key   The member name.
+     * @param value The string value (escaped as needed).
+     * @return The UTF-8 body.
+     */
+    public static byte[] object(String key, String value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(key.length() + value.length() + 8);
+        out.write('{');
+        writeString(out, key);
+        out.write(':');
+        writeString(out, value);
+        out.write('}');
+        return out.toByteArray();
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String s) {
+        out.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"'  -> { out.write('\\'); out.write('"'); }
+                case '\\' -> { out.write('\\'); out.write('\\'); }
+                case '\n' -> { out.write('\\'); out.write('n'); }
+                case '\r' -> { out.write('\\'); out.write('r'); }
+                case '\t' -> { out.write('\\'); out.write('t'); }
+                default -> {
+                    if (c < 0x20) {
+                        byte[] esc = String.format("\\u%04x", (int) c).getBytes(StandardCharsets.US_ASCII);
+                        out.write(esc, 0, esc.length);
+                    } else if (c < 0x80) {
+                        out.write(c);
+                    } else {
+                        // non-ASCII: let the JDK handle surrogate pairs
+                        int end = i + 1;
+                        while (end < s.length() && s.charAt(end) >= 0x80) end++;
+                        byte[] utf8 = s.substring(i, end).getBytes(StandardCharsets.UTF_8);
+                        out.write(utf8, 0, utf8.length);
+                        i = end - 1;
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.server.network;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Parks long-poll requests for GET /assignment until a newer assignment for
+ * the volunteer is published or the wait expires.
+ *
+ * A parked request is just an {@link HttpExchange} in a map: the HTTP worker
+ * thread returns immediately and the response is written later, either by
+ * {@link #wake(String)} or by the timeout, on a virtual thread.
+ */
+class LongPollRegistry {
+
+    /** Writes the response for a (woken or timed out) parked exchange. */
+    @FunctionalInterface
+    interface Responder {
+        void respond(HttpExchange ex) throws Exception;
+    }
+
+    /** One parked request; completes exactly once. */
+    private static final class Waiter {
+        final HttpExchange ex;
+        final Responder responder;
+        final AtomicBoolean done = new AtomicBoolean();
+        volatile ScheduledFuture<?> timeout;
+
+        Waiter(HttpExchange ex, Responder responder) {
+            this.ex = ex;
+            this.responder = responder;
+        }
+    }
+
+    // volunteerId → requests waiting for that volunteer's next assignment
+    private final Map<String, Set<Waiter>> waiting = new ConcurrentHashMap<>();
+
+    // fires timeouts only; responses are written on virtual threads
+    private final ScheduledThreadPoolExecutor timer;
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+
+    LongPollRegistry() {
+        timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "long-poll-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Parks an exchange for up to {@code waitMs}.
+     *
+     * @param volunteerId whose assignment the client is waiting for
+     * @param waitMs      maximum time to hold the request
+     * @param ex          the exchange to answer later
+     * @param isReady     re-checked after registering, to close the race with a
+     *                    publish that happened just before we parked
+     * @param responder   writes the response once woken or timed out
+     */
+    void park(String volunteerId, long waitMs, HttpExchange ex,
+              BooleanSupplier isReady, Responder responder) {
+        Waiter w = new Waiter(ex, responder);
+        waiting.computeIfAbsent(volunteerId, k -> ConcurrentHashMap.newKeySet()).add(w);
+        w.timeout = timer.schedule(() -> complete(volunteerId, w), waitMs, TimeUnit.MILLISECONDS);
+
+        if (isReady.getAsBoolean()) complete(volunteerId, w);
+    }
+
+    /**
+     * Wakes every request waiting on this volunteer. Call after the new
+     * assignment is visible in the store.
+     */
+    void wake(String volunteerId) {
+        Set<Waiter> ws = waiting.remove(volunteerId);
+        if (ws == null) return;
+        for (Waiter w : ws) complete(volunteerId, w);
+    }
+
+    /** Number of currently parked requests (for diagnostics). */
+    int parked() {
+        int n = 0;
+        for (Set<Waiter> ws : waiting.values()) n += ws.size();
+        return n;
+    }
+
+    private void complete(String volunteerId, Waiter w) {
+        if (!w.done.compareAndSet(false, true)) return;
+
+        ScheduledFuture<?> t = w.timeout;
+        if (t != null) t.cancel(false);
+        waiting.computeIfPresent(volunteerId, (k, ws) -> {
+            ws.remove(w);
+            return ws.isEmpty() ? null : ws;
+        });
+
+        writers.execute(() -> {
+            try {
+                w.responder.respond(w.ex);
+            } catch (Exception e) {
+                w.ex.close();
+            }
+        });
+    }
+}
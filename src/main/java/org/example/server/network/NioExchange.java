@@ -0,0 +1,290 @@
+package org.example.server.network;
+
+import com.sun.net.httpserver.Authenticator;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpPrincipal;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * One request/response on a {@link NioHttpServer} connection, behind the
+ * same {@link HttpExchange} API the JDK server hands to handlers, so the
+ * handlers in {@link ServerHandler} (and the {@link Bulkhead} and
+ * {@link HttpMetrics} wrappers) run unchanged on either transport.
+ *
+ * The exchange never touches the socket. Response bytes are cut into
+ * segments and queued on {@link #ready}; the connection's reactor writes
+ * them in request order, so any thread may respond, at any time after the
+ * handler returned (bulkheads, long-polls). Framing follows
+ * {@link #sendResponseHeaders}: a positive length is sent as
+ * Content-Length, 0 as chunked (close-delimited for HTTP/1.0 clients),
+ * -1 as no body.
+ */
+final class NioExchange extends HttpExchange {
+
+    /** Body bytes gathered before a segment is handed to the reactor. */
+    private static final int SEGMENT = 16 * 1024;
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final NioHttpServer.Connection conn;
+    private final HttpContext context;
+    private final String method;
+    private final URI uri;
+    private final String protocol;
+    private final Headers requestHeaders;
+    private final Headers responseHeaders = new Headers();
+    private final Map<String, Object> attributes = new HashMap<>();
+
+    private InputStream in;
+    private OutputStream out;
+
+    /** Response segments the reactor has not taken yet. */
+    final ConcurrentLinkedQueue<ByteBuffer> ready = new ConcurrentLinkedQueue<>();
+    /** Set after the last segment was queued. */
+    volatile boolean finished;
+    /** The connection must close once this response is written. */
+    volatile boolean closeAfter;
+
+    private volatile int responseCode = -1;
+    private boolean chunked;
+    private boolean closeDelimited;
+    private long declaredLength;
+    private long written;
+
+    NioExchange(NioHttpServer.Connection conn, HttpContext context, String method, URI uri,
+                String protocol, Headers requestHeaders, byte[] body, boolean keepAlive) {
+        this.conn = conn;
+        this.context = context;
+        this.method = method;
+        this.uri = uri;
+        this.protocol = protocol;
+        this.requestHeaders = requestHeaders;
+        this.closeAfter = !keepAlive;
+        this.in = new ByteArrayInputStream(body);
+        this.out = new Body();
+    }
+
+    /* ---------- request side ---------- */
+
+    @Override public Headers getRequestHeaders() { return requestHeaders; }
+    @Override public URI getRequestURI() { return uri; }
+    @Override public String getRequestMethod() { return method; }
+    @Override public HttpContext getHttpContext() { return context; }
+    @Override public InputStream getRequestBody() { return in; }
+    @Override public InetSocketAddress getRemoteAddress() { return conn.remote; }
+    @Override public InetSocketAddress getLocalAddress() { return conn.local; }
+    @Override public String getProtocol() { return protocol; }
+    @Override public HttpPrincipal getPrincipal() { return null; }
+
+    // per exchange (the JDK server shares them per context)
+    @Override public synchronized Object getAttribute(String name) { return attributes.get(name); }
+    @Override public synchronized void setAttribute(String name, Object value) { attributes.put(name, value); }
+
+    @Override
+    public void setStreams(InputStream i, OutputStream o) {
+        if (i != null) in = i;
+        if (o != null) out = o;
+    }
+
+    /* ---------- response side ---------- */
+
+    @Override public Headers getResponseHeaders() { return responseHeaders; }
+    @Override public int getResponseCode() { return responseCode; }
+    @Override public OutputStream getResponseBody() { return out; }
+
+    @Override
+    public synchronized void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+        if (responseCode != -1) throw new IOException("headers already sent");
+        boolean bodyless = rCode < 200 || rCode == 204 || rCode == 304 || "HEAD".equals(method);
+
+        StringBuilder head = new StringBuilder(128)
+                .append("HTTP/1.1 ").append(rCode).append(' ').append(reason(rCode)).append("\r\n");
+        responseHeaders.forEach((name, values) -> {
+            for (String v : values) head.append(name).append(": ").append(v).append("\r\n");
+        });
+        if (bodyless || responseLength < 0) {
+            declaredLength = 0;
+            if (!bodyless) head.append("Content-Length: 0\r\n");
+        } else if (responseLength > 0) {
+            declaredLength = responseLength;
+            head.append("Content-Length: ").append(responseLength).append("\r\n");
+        } else if (protocol.endsWith("1.0")) {
+            closeDelimited = true;
+            closeAfter = true;
+        } else {
+            chunked = true;
+            head.append("Transfer-Encoding: chunked\r\n");
+        }
+        if (closeAfter) head.append("Connection: close\r\n");
+        head.append("\r\n");
+
+        responseCode = rCode;
+        enqueue(ByteBuffer.wrap(head.toString().getBytes(StandardCharsets.ISO_8859_1)));
+        if (bodyless || responseLength < 0) finish();
+    }
+
+    /**
+     * Ends the exchange. Without a response yet, answers 500 and drops the
+     * connection (the JDK server would just drop it).
+     */
+    @Override
+    public void close() {
+        try {
+            synchronized (this) {
+                if (responseCode == -1) {
+                    closeAfter = true;
+                    sendResponseHeaders(500, -1);
+                    return;
+                }
+            }
+            out.close();
+        } catch (IOException ignored) {
+            // never thrown by our own streams
+        }
+    }
+
+    private void enqueue(ByteBuffer segment) {
+        ready.add(segment);
+        conn.signal();
+    }
+
+    private synchronized void finish() {
+        if (finished) return;
+        if (chunked) {
+            enqueue(ByteBuffer.wrap(LAST_CHUNK));
+        } else if (!closeDelimited && written != declaredLength) {
+            closeAfter = true;    // short body: the framing is broken, so is the connection
+        }
+        finished = true;
+        conn.signal();
+    }
+
+    /** Collects body bytes into segments; {@code close()} finishes the response. */
+    private final class Body extends OutputStream {
+        private byte[] buf = new byte[256];
+        private int len;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int n) throws IOException {
+            synchronized (NioExchange.this) {
+                if (responseCode == -1) throw new IOException("response headers not sent");
+                if (finished) throw new IOException("stream closed");
+                if (!chunked && !closeDelimited && written + n > declaredLength) {
+                    throw new IOException("too many bytes to write to stream");
+                }
+                written += n;
+                while (n > 0) {
+                    if (len == buf.length && len < SEGMENT) {
+                        buf = Arrays.copyOf(buf, Math.min(SEGMENT, buf.length * 4));
+                    }
+                    int take = Math.min(n, buf.length - len);
+                    System.arraycopy(b, off, buf, len, take);
+                    len += take;
+                    off += take;
+                    n -= take;
+                    if (len == SEGMENT) flushSegment();
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+            synchronized (NioExchange.this) {
+                if (responseCode != -1 && !finished) flushSegment();
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (NioExchange.this) {
+                if (finished) return;
+                flushSegment();
+                finish();
+            }
+        }
+
+        // holds the exchange lock
+        private void flushSegment() {
+            if (len == 0) return;
+            if (chunked) {
+                byte[] size = (Integer.toHexString(len) + "\r\n").getBytes(StandardCharsets.US_ASCII);
+                enqueue(ByteBuffer.wrap(size));
+                enqueue(ByteBuffer.wrap(buf, 0, len));
+                enqueue(ByteBuffer.wrap(CRLF));
+            } else {
+                enqueue(ByteBuffer.wrap(buf, 0, len));
+            }
+            buf = new byte[buf.length];   // the queued one now belongs to the reactor
+            len = 0;
+        }
+    }
+
+    private static String reason(int code) {
+        return switch (code) {
+            case 100 -> "Continue";
+            case 200 -> "OK";
+            case 201 -> "Created";
+            case 202 -> "Accepted";
+            case 204 -> "No Content";
+            case 304 -> "Not Modified";
+            case 400 -> "Bad Request";
+            case 404 -> "Not Found";
+            case 405 -> "Method Not Allowed";
+            case 409 -> "Conflict";
+            case 411 -> "Length Required";
+            case 413 -> "Payload Too Large";
+            case 429 -> "Too Many Requests";
+            case 431 -> "Request Header Fields Too Large";
+            case 500 -> "Internal Server Error";
+            case 501 -> "Not Implemented";
+            case 503 -> "Service Unavailable";
+            default -> "Status";
+        };
+    }
+
+    /** The context a request was routed to; {@link #getServer()} is null on this transport. */
+    static final class Context extends HttpContext {
+        private final String path;
+        private volatile HttpHandler handler;
+        private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+        Context(String path, HttpHandler handler) {
+            this.path = path;
+            this.handler = handler;
+        }
+
+        @Override public HttpHandler getHandler() { return handler; }
+        @Override public void setHandler(HttpHandler h) { handler = h; }
+        @Override public String getPath() { return path; }
+        @Override public HttpServer getServer() { return null; }
+        @Override public Map<String, Object> getAttributes() { return attributes; }
+        @Override public List<Filter> getFilters() { return List.of(); }
+        @Override public Authenticator setAuthenticator(Authenticator a) { return null; }
+        @Override public Authenticator getAuthenticator() { return null; }
+    }
+}
@@ -0,0 +1,552 @@
+package org.example.server.network;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpHandler;
+import org.example.server.log.AsyncLog;
+import org.example.server.metrics.PrometheusText;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HTTP/1.1 server on non-blocking NIO selectors, an alternative to the
+ * JDK's {@code com.sun.net.httpserver.HttpServer} (pick it with
+ * {@code --transport=nio}). Handlers are the same {@link HttpHandler}s,
+ * called with a {@link NioExchange}.
+ *
+ * <ul>
+ *   <li>One acceptor thread hands connections round-robin to {@code reactors}
+ *       selector threads; a connection stays on its reactor for life.</li>
+ *   <li>Keep-alive by default (HTTP/1.1), idle connections closed after
+ *       {@link #IDLE_TIMEOUT_MS}.</li>
+ *   <li>Pipelining: up to {@link #MAX_PIPELINED} requests per connection are
+ *       dispatched before the first is answered; responses go out in request
+ *       order however they complete. Beyond that the connection stops reading.</li>
+ *   <li>Each reactor reads into and writes from one direct buffer of its own,
+ *       reused for all its connections; a connection only keeps a (heap)
+ *       copy of bytes that did not form a whole request yet.</li>
+ * </ul>
+ *
+ * Handlers are called on the reactor thread, like the JDK server with a
+ * null executor, so they must not block (ServerHandler's bulkhead wrappers
+ * only enqueue). Request bodies must carry Content-Length; chunked uploads
+ * get 411.
+ */
+public final class NioHttpServer {
+
+    static final int MAX_PIPELINED = 16;
+    static final long IDLE_TIMEOUT_MS = 30_000;
+    static final int MAX_HEADER_BYTES = 16 * 1024;
+    static final int MAX_BODY_BYTES = 1 << 20;
+
+    private static final int IO_BUFFER = 64 * 1024;
+    private static final AsyncLog LOG = AsyncLog.get("http");
+
+    private final InetSocketAddress address;
+    private final List<NioExchange.Context> contexts = new ArrayList<>();
+    private final Reactor[] reactors;
+    private volatile ServerSocketChannel server;
+    private volatile boolean running;
+
+    private final AtomicInteger open = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder pipelined = new LongAdder();
+
+    /**
+     * @param address  where to listen
+     * @param reactors selector threads serving connections
+     */
+    public NioHttpServer(InetSocketAddress address, int reactors) {
+        this.address = address;
+        this.reactors = new Reactor[Math.max(1, reactors)];
+    }
+
+    /** Routes requests whose path starts with {@code path} (longest prefix wins). Call before {@link #start}. */
+    public void createContext(String path, HttpHandler handler) {
+        contexts.add(new NioExchange.Context(path, handler));
+        contexts.sort((a, b) -> b.getPath().length() - a.getPath().length());
+    }
+
+    /** Binds and starts the acceptor and reactor threads. */
+    public void start() throws IOException {
+        running = true;
+        for (int i = 0; i < reactors.length; i++) {
+            reactors[i] = new Reactor(Selector.open());
+            Thread t = new Thread(reactors[i], "nio-reactor-" + (i + 1));
+            t.setDaemon(true);
+            t.start();
+        }
+        server = ServerSocketChannel.open();
+        server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        server.bind(address, 1024);
+        Thread acceptor = new Thread(this::acceptLoop, "nio-accept");
+        acceptor.start();
+    }
+
+    /** @return The port it listens on (the bound one when started on port 0). */
+    public int port() {
+        return server.socket().getLocalPort();
+    }
+
+    /** Stops accepting and closes every connection. */
+    public void stop() throws IOException {
+        running = false;
+        server.close();
+        for (Reactor r : reactors) r.selector.wakeup();
+    }
+
+    private void acceptLoop() {
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel ch = server.accept();          // blocking: this thread does nothing else
+                accepted.increment();
+                reactors[next].register(ch);
+                next = (next + 1) % reactors.length;
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                LOG.warn("accept failed: %s", e.getMessage());
+            }
+        }
+    }
+
+    private NioExchange.Context route(String path) {
+        for (NioExchange.Context c : contexts) {
+            if (path.startsWith(c.getPath())) return c;
+        }
+        return null;
+    }
+
+    /** Appends connection and request counters. */
+    void writeTo(PrometheusText out) {
+        out.header("nio_connections_open", "gauge", "Open connections on the NIO transport.");
+        out.sample("nio_connections_open", open.get());
+        out.header("nio_connections_accepted_total", "counter", "Connections accepted by the NIO transport.");
+        out.sample("nio_connections_accepted_total", accepted.sum());
+        out.header("nio_requests_total", "counter", "Requests parsed by the NIO transport.");
+        out.sample("nio_requests_total", requests.sum());
+        out.header("nio_requests_pipelined_total", "counter",
+                "Requests that arrived while an earlier one on the same connection was unanswered.");
+        out.sample("nio_requests_pipelined_total", pipelined.sum());
+    }
+
+    /* ========== Reactor: one selector thread ========== */
+
+    private final class Reactor implements Runnable {
+        final Selector selector;
+        final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        final ByteBuffer readBuffer = ByteBuffer.allocateDirect(IO_BUFFER);
+        final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(IO_BUFFER);
+        volatile Thread thread;
+        long lastSweep = System.nanoTime();
+
+        Reactor(Selector selector) {
+            this.selector = selector;
+        }
+
+        void register(SocketChannel ch) {
+            execute(() -> {
+                try {
+                    ch.configureBlocking(false);
+                    ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    Connection c = new Connection(this, ch);
+                    c.key = ch.register(selector, SelectionKey.OP_READ, c);
+                    open.incrementAndGet();
+                } catch (IOException e) {
+                    closeQuietly(ch);
+                }
+            });
+        }
+
+        /** Runs {@code task} on this reactor's thread. */
+        void execute(Runnable task) {
+            tasks.add(task);
+            if (Thread.currentThread() != thread) selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            while (running) {
+                try {
+                    // tasks queued from this thread (inline responses) must not wait out the timeout
+                    if (tasks.isEmpty()) selector.select(1_000); else selector.selectNow();
+                    for (Runnable t; (t = tasks.poll()) != null; ) t.run();
+
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        Connection c = (Connection) key.attachment();
+                        if (!key.isValid()) continue;
+                        if (key.isWritable()) c.flush();
+                        if (key.isValid() && key.isReadable()) c.onReadable();
+                    }
+                    sweepIdle();
+                } catch (IOException e) {
+                    LOG.warn("reactor: %s", e.getMessage());
+                } catch (RuntimeException e) {
+                    LOG.error(e, "reactor loop failed");
+                }
+            }
+            for (SelectionKey key : selector.keys()) ((Connection) key.attachment()).close();
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // shutting down anyway
+            }
+        }
+
+        private void sweepIdle() {
+            long now = System.nanoTime();
+            if (now - lastSweep < 1_000_000_000L) return;
+            lastSweep = now;
+            long idle = IDLE_TIMEOUT_MS * 1_000_000L;
+            for (SelectionKey key : selector.keys()) {
+                Connection c = (Connection) key.attachment();
+                if (c != null && c.isIdle() && now - c.lastActive > idle) c.close();
+            }
+        }
+    }
+
+    /* ========== Connection: parsing and ordered writing ========== */
+
+    final class Connection {
+        final Reactor reactor;
+        final SocketChannel ch;
+        final InetSocketAddress remote;
+        final InetSocketAddress local;
+        SelectionKey key;
+
+        // reactor thread only
+        private final ArrayDeque<NioExchange> pending = new ArrayDeque<>();
+        private final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        private byte[] carry;              // unparsed bytes left from the last read
+        private NioExchange.Context bodyContext;
+        private String bodyMethod, bodyProtocol;
+        private URI bodyUri;
+        private Headers bodyHeaders;
+        private boolean bodyKeepAlive;
+        private byte[] body;               // request body being filled
+        private int bodyFilled;
+        private boolean paused;            // stopped reading: pipeline full
+        private boolean inputClosed;       // client half-closed or protocol error
+        private boolean closeAfterWrite;
+        private boolean closed;
+        long lastActive = System.nanoTime();
+
+        private final AtomicBoolean flushQueued = new AtomicBoolean();
+
+        Connection(Reactor reactor, SocketChannel ch) throws IOException {
+            this.reactor = reactor;
+            this.ch = ch;
+            this.remote = (InetSocketAddress) ch.getRemoteAddress();
+            this.local = (InetSocketAddress) ch.getLocalAddress();
+        }
+
+        boolean isIdle() {
+            return pending.isEmpty() && out.isEmpty() && body == null;
+        }
+
+        /** An exchange has new response bytes or finished; any thread. */
+        void signal() {
+            if (flushQueued.compareAndSet(false, true)) {
+                reactor.execute(() -> {
+                    flushQueued.set(false);
+                    flush();
+                });
+            }
+        }
+
+        /* ---------- reading ---------- */
+
+        void onReadable() {
+            ByteBuffer buf = reactor.readBuffer;
+            buf.clear();
+            if (carry != null) {
+                buf.put(carry);
+                carry = null;
+            }
+            int n;
+            try {
+                n = ch.read(buf);
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            if (n < 0) {
+                inputClosed = true;
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                if (isIdle()) close();
+                return;
+            }
+            lastActive = System.nanoTime();
+            buf.flip();
+            parse(buf);
+        }
+
+        /** Dispatches every complete request in {@code buf}; keeps the rest in {@link #carry}. */
+        private void parse(ByteBuffer buf) {
+            while (!closed && !inputClosed) {
+                if (body != null) {
+                    int take = Math.min(buf.remaining(), body.length - bodyFilled);
+                    buf.get(body, bodyFilled, take);
+                    bodyFilled += take;
+                    if (bodyFilled < body.length) break;
+                    byte[] b = body;
+                    body = null;
+                    dispatch(bodyContext, bodyMethod, bodyUri, bodyProtocol, bodyHeaders, b, bodyKeepAlive);
+                    continue;
+                }
+                if (pending.size() >= MAX_PIPELINED) {
+                    pause();
+                    break;
+                }
+                int end = headerEnd(buf);
+                if (end < 0) {
+                    if (buf.remaining() >= MAX_HEADER_BYTES) reject(431);
+                    break;
+                }
+                byte[] head = new byte[end - buf.position()];
+                buf.get(head);
+                buf.position(end + 4);
+                readRequest(new String(head, StandardCharsets.ISO_8859_1));
+            }
+            if (buf.hasRemaining() && !closed && !inputClosed) {
+                carry = new byte[buf.remaining()];
+                buf.get(carry);
+            }
+        }
+
+        /** @return Index of the CRLFCRLF ending the header block, or -1. */
+        private int headerEnd(ByteBuffer buf) {
+            int limit = Math.min(buf.limit(), buf.position() + MAX_HEADER_BYTES);
+            for (int i = buf.position(); i + 3 < limit; i++) {
+                if (buf.get(i) == '\r' && buf.get(i + 1) == '\n'
+                        && buf.get(i + 2) == '\r' && buf.get(i + 3) == '\n') return i;
+            }
+            return -1;
+        }
+
+        private void readRequest(String head) {
+            String[] lines = head.split("\r\n");
+            String[] start = lines[0].split(" ");
+            if (start.length != 3 || !start[2].startsWith("HTTP/1.")) {
+                reject(400);
+                return;
+            }
+            Headers headers = new Headers();
+            for (int i = 1; i < lines.length; i++) {
+                int colon = lines[i].indexOf(':');
+                if (colon <= 0) {
+                    reject(400);
+                    return;
+                }
+                headers.add(lines[i].substring(0, colon).trim(), lines[i].substring(colon + 1).trim());
+            }
+
+            URI uri;
+            try {
+                uri = new URI(start[1]);
+            } catch (URISyntaxException e) {
+                reject(400);
+                return;
+            }
+            String protocol = start[2];
+            String connection = headers.getFirst("Connection");
+            boolean keepAlive = protocol.equals("HTTP/1.1")
+                    ? !"close".equalsIgnoreCase(connection)
+                    : "keep-alive".equalsIgnoreCase(connection);
+
+            if (headers.containsKey("Transfer-Encoding")) {
+                reject(411);
+                return;
+            }
+            long length;
+            try {
+                String cl = headers.getFirst("Content-Length");
+                length = cl == null ? 0 : Long.parseLong(cl);
+            } catch (NumberFormatException e) {
+                reject(400);
+                return;
+            }
+            if (length < 0 || length > MAX_BODY_BYTES) {
+                reject(length < 0 ? 400 : 413);
+                return;
+            }
+
+            String method = start[0].toUpperCase(Locale.ROOT);
+            NioExchange.Context context = route(uri.getPath() == null ? "/" : uri.getPath());
+            if (length == 0) {
+                dispatch(context, method, uri, protocol, headers, new byte[0], keepAlive);
+                return;
+            }
+            bodyContext = context;
+            bodyMethod = method;
+            bodyUri = uri;
+            bodyProtocol = protocol;
+            bodyHeaders = headers;
+            bodyKeepAlive = keepAlive;
+            body = new byte[(int) length];
+            bodyFilled = 0;
+            if ("100-continue".equalsIgnoreCase(headers.getFirst("Expect")) && pending.isEmpty()) {
+                out.add(ByteBuffer.wrap("HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.US_ASCII)));
+                flush();
+            }
+        }
+
+        private void dispatch(NioExchange.Context context, String method, URI uri, String protocol,
+                              Headers headers, byte[] body, boolean keepAlive) {
+            requests.increment();
+            if (!pending.isEmpty()) pipelined.increment();
+            NioExchange ex = new NioExchange(this, context, method, uri, protocol, headers, body, keepAlive);
+            pending.add(ex);
+            if (!keepAlive) inputClosed = true;        // nothing after this request is read
+            try {
+                if (context == null) {
+                    ex.sendResponseHeaders(404, -1);
+                } else {
+                    context.getHandler().handle(ex);
+                }
+            } catch (Exception e) {
+                LOG.error(e, "handler failed for %s %s", method, uri);
+                ex.close();
+            }
+        }
+
+        /** Answers a request that cannot be parsed, then closes the connection. */
+        private void reject(int status) {
+            inputClosed = true;
+            body = null;
+            NioExchange rejected = new NioExchange(this, null, "GET", URI.create("/"), "HTTP/1.1",
+                    new Headers(), new byte[0], false);
+            try {
+                rejected.sendResponseHeaders(status, -1);
+            } catch (IOException e) {
+                // fresh exchange: cannot have sent headers yet
+            }
+            pending.add(rejected);
+            LOG.debug("rejected request from %s with %d", remote, status);
+        }
+
+        private void pause() {
+            if (paused) return;
+            paused = true;
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+        }
+
+        private void resume() {
+            paused = false;
+            if (!inputClosed) key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            if (carry != null) {
+                ByteBuffer buf = reactor.readBuffer;
+                buf.clear();
+                buf.put(carry);
+                carry = null;
+                buf.flip();
+                parse(buf);
+            }
+        }
+
+        /* ---------- writing ---------- */
+
+        /** Moves finished responses (in request order) to the socket. Reactor thread. */
+        void flush() {
+            if (closed) return;
+            while (!closeAfterWrite) {
+                NioExchange head = pending.peek();
+                if (head == null) break;
+                boolean done = head.finished;             // read before draining: nothing follows it
+                for (ByteBuffer b; (b = head.ready.poll()) != null; ) out.add(b);
+                if (!done) break;
+                pending.poll();
+                if (head.closeAfter) closeAfterWrite = true;
+            }
+
+            try {
+                write();
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            lastActive = System.nanoTime();
+
+            if (!out.isEmpty()) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                return;
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            if (closeAfterWrite || (inputClosed && pending.isEmpty())) {
+                close();
+            } else if (paused && pending.size() < MAX_PIPELINED) {
+                resume();
+            }
+        }
+
+        /** Writes queued segments through the reactor's direct buffer until done or the socket is full. */
+        private void write() throws IOException {
+            ByteBuffer wb = reactor.writeBuffer;
+            while (!out.isEmpty()) {
+                wb.clear();
+                for (ByteBuffer b : out) {
+                    if (!wb.hasRemaining()) break;
+                    ByteBuffer d = b.duplicate();
+                    if (d.remaining() > wb.remaining()) d.limit(d.position() + wb.remaining());
+                    wb.put(d);
+                }
+                wb.flip();
+                int copied = wb.remaining();
+                int n = ch.write(wb);
+                for (int left = n; left > 0; ) {
+                    ByteBuffer b = out.peek();
+                    int take = Math.min(left, b.remaining());
+                    b.position(b.position() + take);
+                    left -= take;
+                    if (!b.hasRemaining()) out.poll();
+                }
+                if (n < copied) return;                   // socket buffer full: wait for OP_WRITE
+            }
+        }
+
+        void close() {
+            if (closed) return;
+            closed = true;
+            open.decrementAndGet();
+            key.cancel();
+            closeQuietly(ch);
+            pending.clear();
+            out.clear();
+            carry = null;
+            body = null;
+        }
+    }
+
+    private static void closeQuietly(SocketChannel ch) {
+        try {
+            ch.close();
+        } catch (IOException ignored) {
+            // nothing left to do
+        }
+    }
+}
@@ -2,15 +2,38 @@ package org.example.server.network;
 
 import com.sun.net.httpserver.*;
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 import org.example.domain.*;
+import org.example.server.cluster.ClusterCoordinator;
+import org.example.server.replication.ReplicationFollower;
+import org.example.server.replication.ReplicationLeader;
 import org.example.server.logic.ApplicationLogic;
+import org.example.server.logic.AssignmentDiff;
+import org.example.server.logic.CancellationToken;
+import org.example.server.logic.CapacityRepair;
+import org.example.server.logic.Waitlists;
+import org.example.server.logic.GeneticAlgorithm;
+import org.example.server.logic.OptimizationScheduler;
+import org.example.server.log.AsyncLog;
+import org.example.server.metrics.PrometheusText;
+import org.example.server.metrics.Recordings;
+import org.example.server.store.AssignmentSnapshot;
+import org.example.server.store.IdInterner;
+import org.example.server.store.PublishedAssignment;
+import org.example.server.store.ServiceCatalog;
+import org.example.server.store.VolunteerStore;
 
 import java.io.*;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Multithreaded HTTP server for the Volunteer Matching System,
@@ -18,20 +41,73 @@ import java.util.stream.Collectors;
  *
  * REST endpoints:
  *   POST /preferences     → receive & store volunteer preferences
- *   POST /optimize        → run GA & store assignments (then broadcast via WS)
+ *   DELETE /preferences/{id} → withdraw a volunteer; their slot is backfilled
+ *                           from the service's waitlist (no optimization run)
+ *   POST /optimize        → hint: optimize soon if anything changed (202, or 200 if up to date)
+ *   POST /optimize?wait=true → same, but answers once a run covers the current data
  *   GET  /assignment?volunteerId=  → return the assignment JSON or 404
+ *                                    (ETag = epoch-result version, 304 on If-None-Match)
+ *   GET  /assignment?volunteerId=&sinceVersion=&epoch=&waitMs=
+ *                                  → long-poll: held until a version newer than
+ *                                    sinceVersion is published or waitMs expires;
+ *                                    answered at once if epoch is from another run
+ *   GET  /services        → the service catalog (ETag = epoch-catalog version, 304 on If-None-Match)
+ *   POST /services        → add a service {"name":..., "capacity":...}
+ *   PUT  /services/{name} → change its capacity {"capacity":...}; lowering it moves
+ *                           only the displaced volunteers, raising it promotes from
+ *                           the waitlist (a background re-solve follows either way)
+ *   GET  /metrics         → Prometheus text: request counts/latency, queues, WS, solver
+ *   POST /admin/jfr/start → start an on-demand JFR recording (profile settings + custom events)
+ *   POST /admin/jfr/stop  → stop it
+ *   GET  /admin/jfr       → download the recording (.jfr; a snapshot if still running)
+ *   GET  /admin/jfr/status
+ *                           (/admin is unauthenticated: only routed with -Dadmin.jfr=true,
+ *                           and then only answered for loopback clients)
+ *
+ * Optimization also runs on its own: each /preferences write marks the data
+ * dirty and the {@link OptimizationScheduler} runs once writes go quiet
+ * (optimize.quietMs, default 2000) or at most optimize.maxLatencyMs (default
+ * 10000) after the first pending write. A run over stale data is cancelled
+ * when a newer one becomes due, and its best-so-far seeds the newer run
+ * (-Doptimize.noSeed=true turns seeding off).
+ *
+ * Read replicas: with -Dreplication.port=R the node is a leader that
+ * streams volunteers and published assignments to followers. A node started
+ * with {@code --follower=host:R} (and its own -Dhttp.port / -Dws.port)
+ * serves GET /assignment, long-polls and WebSocket pushes from the
+ * replicated state, redirects writes to the leader (-Dleader.httpPort,
+ * default 8080) with 307, and reports its lag under replication_* in /metrics.
+ *
+ * Distributed runs: with -Dcluster.port=P, worker JVMs started as
+ * {@code ClusterWorker host:P} each evolve a GA island of every run
+ * (see {@link ClusterCoordinator}).
+ *
+ * Both peer ports are unauthenticated and carry every volunteer, so they
+ * listen on loopback only unless -Dreplication.bind / -Dcluster.bind name
+ * an address to listen on instead (e.g. a private interface, or 0.0.0.0).
+ *
+ * Transport: the JDK HttpServer by default; {@code --transport=nio} serves
+ * the same handlers from {@link NioHttpServer} (keep-alive, pipelining;
+ * -Dnio.reactors=N selector threads, default cores/2).
  *
  * In‐memory only (no persistence).
  */
 public class ServerHandler {
 
     /* ---------- Configuration ---------- */
-    private static final int HTTP_PORT = 8080;
-    private static final int WS_PORT   = 8081;
+    // -Dhttp.port / -Dws.port let a leader and followers share one box
+    private static final int HTTP_PORT = Integer.getInteger("http.port", 8080);
+    private static final int WS_PORT   = Integer.getInteger("ws.port", 8081);
     private static final Gson G        = new Gson();
+    private static final long MAX_LONG_POLL_MS = 60_000;
+
+    // access lines go to "access" (sample with -Dlog.access.sample=N), the rest to "server"
+    private static final AsyncLog LOG    = AsyncLog.get("server");
+    private static final AsyncLog ACCESS = AsyncLog.get("access");
 
     /* ---------- In‐Memory State ---------- */
-    private static final List<Service> SERVICES = List.of(
+    // the services offered; changeable at runtime through /services
+    private static final ServiceCatalog CATALOG = new ServiceCatalog(List.of(
             new Service("Soup Kitchen",    6),
             new Service("Animal Shelter",  4),
             new Service("Senior Care",     4),
@@ -42,112 +118,591 @@ public class ServerHandler {
             new Service("Library Assistant",4),
             new Service("Youth Mentor",    4),
             new Service("Disaster Relief", 3)
-    );
+    ));
 
-    // Our optimization engine – no‐arg constructor
-    private static final ApplicationLogic LOGIC = new ApplicationLogic();
+    // worker JVMs join runs as GA islands when -Dcluster.port is set
+    private static final ClusterCoordinator CLUSTER = startCluster();
+
+    // Our optimization engine – distributes runs over CLUSTER's workers, if any
+    private static final ApplicationLogic LOGIC = new ApplicationLogic(CLUSTER);
+
+    // external volunteerId → dense int; both stores below are indexed by it
+    private static final IdInterner IDS = new IdInterner();
 
     // volunteerId → Volunteer (with name+prefs)
-    private static final Map<String, Volunteer> VOLUNTEER_STORE =
-            new ConcurrentHashMap<>();
+    private static final VolunteerStore VOLUNTEER_STORE = new VolunteerStore(IDS);
+
+    // volunteerId → Assignment (after optimize): an immutable, versioned snapshot
+    // swapped in whole on each publish, so reads are lock-free and consistent
+    private static final AtomicReference<AssignmentSnapshot> ASSIGNMENT_STORE =
+            new AtomicReference<>(AssignmentSnapshot.empty(IDS));
+
+    // serializes diff + apply + push so concurrent /optimize calls don't interleave
+    private static final Object PUBLISH_LOCK = new Object();
+
+    // who waits on which service, for backfilling withdrawals; guarded by PUBLISH_LOCK
+    private static final Waitlists WAITLISTS = new Waitlists();
+    private static final LongAdder WITHDRAWALS = new LongAdder();
+    private static final LongAdder PROMOTIONS = new LongAdder();
+
+    // volunteers moved / unassigned to bring a result within lowered capacities
+    private static final LongAdder REPAIR_MOVED = new LongAdder();
+    private static final LongAdder REPAIR_UNASSIGNED = new LongAdder();
+
+    // debounced background optimization; /preferences marks dirty, /optimize hints
+    private static final OptimizationScheduler SCHEDULER = new OptimizationScheduler(
+            Long.getLong("optimize.quietMs", 2_000),
+            Long.getLong("optimize.maxLatencyMs", 10_000),
+            !Boolean.getBoolean("optimize.noSeed"),
+            ServerHandler::dataVersion,
+            ServerHandler::optimizeSnapshot);
+
+    // long-poll GET /assignment requests waiting for a newer assignment
+    private static final LongPollRegistry LONG_POLLS = new LongPollRegistry();
+
+    // per-endpoint counts and latency for /metrics
+    private static final HttpMetrics HTTP_METRICS = new HttpMetrics();
+
+    // on-demand Flight Recorder recording behind /admin/jfr; off unless -Dadmin.jfr=true
+    private static final Recordings RECORDINGS = new Recordings();
+    private static final boolean ADMIN_JFR = Boolean.getBoolean("admin.jfr");
+
+    /* ---------- Bulkheads: separate threads and bounded queues per traffic class ---------- */
+    private static final int CPUS = Runtime.getRuntime().availableProcessors();
+
+    // GET /assignment: cheap, latency-sensitive reads
+    private static final Bulkhead READS =
+            new Bulkhead("read", Math.max(2, CPUS), 512, 2_000, 429, () -> 1, HTTP_METRICS::completed);
+
+    // POST /preferences: cheap writes
+    private static final Bulkhead WRITES =
+            new Bulkhead("write", Math.max(2, CPUS / 2), 512, 2_000, 429, () -> 1, HTTP_METRICS::completed);
+
+    // POST /optimize: only a hint to the scheduler now, so one thread and a
+    // short queue; Retry-After is the expected wait for the runs ahead
+    private static final Bulkhead OPTIMIZE =
+            new Bulkhead("optimize", 1, 4, 60_000, 503, ServerHandler::optimizeRetryAfterSeconds,
+                    HTTP_METRICS::completed);
+
+    // /metrics and /admin: must keep answering while the others are saturated
+    private static final Bulkhead ADMIN =
+            new Bulkhead("admin", 1, 16, 10_000, 503, () -> 1, HTTP_METRICS::completed);
+
+    private static final List<Bulkhead> BULKHEADS = List.of(READS, WRITES, OPTIMIZE, ADMIN);
+
+    // set when started with --transport=nio, for its connection metrics
+    private static volatile NioHttpServer NIO_SERVER;
 
-    // volunteerId → Assignment (after optimize)
-    private static final Map<String, Assignment> ASSIGNMENT_STORE =
-            new ConcurrentHashMap<>();
+    /* ---------- Replication: a leader streams to read-only followers ---------- */
+    // leader side (-Dreplication.port); null if no follower may connect
+    private static volatile ReplicationLeader REPLICATION;
+    // follower side (--follower=host:port); non-null means this node is read-only
+    private static volatile ReplicationFollower FOLLOWER;
+    private static volatile String LEADER_HTTP;
 
     /* ---------- Bootstrap HTTP + WS ---------- */
     public static void main(String[] args) throws IOException {
-        // 1) start HTTP server
-        HttpServer http = HttpServer.create(new InetSocketAddress(HTTP_PORT), 0);
-        http.createContext("/preferences", ServerHandler::handlePrefs);
-        http.createContext("/optimize",    ServerHandler::handleOptimize);
-        http.createContext("/assignment",  ServerHandler::handleAssignment);
+        String transport = "jdk";
+        String follow = null;
+        for (String a : args) {
+            if (a.startsWith("--transport=")) transport = a.substring("--transport=".length());
+            if (a.startsWith("--follower=")) follow = a.substring("--follower=".length());
+        }
+        startReplication(follow);
+
+        // context path → handler; the same wrapped handlers serve either transport
+        Map<String, HttpHandler> routes = new LinkedHashMap<>();
+        routes.put("/preferences", HTTP_METRICS.wrap("/preferences", WRITES.wrap(ServerHandler::handlePrefs)));
+        routes.put("/optimize",    HTTP_METRICS.wrap("/optimize",    OPTIMIZE.wrap(ServerHandler::handleOptimize)));
+        routes.put("/assignment",  HTTP_METRICS.wrap("/assignment",  READS.wrap(ServerHandler::handleAssignment)));
+        routes.put("/services",    HTTP_METRICS.wrap("/services",    READS.wrap(ServerHandler::handleServices)));
+        routes.put("/metrics",     HTTP_METRICS.wrap("/metrics",     ADMIN.wrap(ServerHandler::handleMetrics)));
+        if (ADMIN_JFR) {
+            routes.put("/admin/jfr", HTTP_METRICS.wrap("/admin/jfr", ADMIN.wrap(ServerHandler::handleJfr)));
+        }
 
-        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
-        http.setExecutor(Executors.newFixedThreadPool(threads));
-        http.start();
-        System.out.printf("HTTP server on http://localhost:%d (%d threads)%n",
-                HTTP_PORT, threads);
+        // 1) start HTTP server; the context handlers above only enqueue onto
+        // their bulkhead (or reject), so they run directly on the server's
+        // dispatcher / reactor threads
+        switch (transport) {
+            case "jdk" -> {
+                HttpServer http = HttpServer.create(new InetSocketAddress(HTTP_PORT), 0);
+                routes.forEach(http::createContext);
+                http.setExecutor(null);
+                http.start();
+            }
+            case "nio" -> {
+                NioHttpServer nio = new NioHttpServer(new InetSocketAddress(HTTP_PORT),
+                        Integer.getInteger("nio.reactors", Math.max(1, CPUS / 2)));
+                routes.forEach(nio::createContext);
+                nio.start();
+                NIO_SERVER = nio;
+            }
+            default -> throw new IllegalArgumentException("unknown transport: " + transport + " (jdk or nio)");
+        }
+        LOG.info("HTTP server (%s transport) on http://localhost:%d (bulkheads: read %d, write %d, optimize 1, admin 1 threads)",
+                transport, HTTP_PORT, Math.max(2, CPUS), Math.max(2, CPUS / 2));
 
-        // 2) start WebSocket server for live broadcasts
-        new AssignmentWebSocketServer(WS_PORT).start();
-        System.out.printf("WebSocket server on ws://localhost:%d%n", WS_PORT);
+        // 2) start WebSocket server for live broadcasts (followers push what they replicate)
+        AssignmentWebSocketServer.start(WS_PORT, ASSIGNMENT_STORE::get);
+        LOG.info("WebSocket server on ws://localhost:%d", WS_PORT);
     }
 
     /* ========== REST Handlers ========== */
 
-    /** POST /preferences */
+    /** POST /preferences, DELETE /preferences/{volunteerId} */
     private static void handlePrefs(HttpExchange ex) throws IOException {
         logRequest(ex);
-        if (!"POST".equalsIgnoreCase(ex.getRequestMethod())) {
+        String path = ex.getRequestURI().getPath();
+        String withdrawId = path.length() > "/preferences/".length()
+                ? path.substring("/preferences/".length()) : null;
+        boolean withdraw = withdrawId != null && "DELETE".equalsIgnoreCase(ex.getRequestMethod());
+        if (!withdraw && !"POST".equalsIgnoreCase(ex.getRequestMethod())) {
             ex.sendResponseHeaders(405, -1);
             return;
         }
+        if (FOLLOWER != null) {
+            redirectToLeader(ex);
+            return;
+        }
+        if (withdraw) {
+            handleWithdraw(ex, withdrawId);
+            return;
+        }
 
-        PrefPayload p = G.fromJson(readBody(ex), PrefPayload.class);
+        // stream-decode the body; service names resolve against the prebuilt index
+        JsonCodec.Prefs p;
+        try (InputStream body = ex.getRequestBody()) {
+            p = JsonCodec.readPrefs(body, CATALOG.current().index());
+        } catch (IllegalArgumentException malformed) {
+            p = null;
+        }
         if (p == null
-                || p.volunteerId == null
-                || p.name == null
-                || p.prefs == null
-                || p.prefs.size() < 3) {
-            sendJson(ex, 400, Map.of("error", "bad payload"));
+                || p.volunteerId() == null
+                || p.name() == null
+                || p.prefCount() < 3) {
+            sendBytes(ex, 400, JsonCodec.ERROR_BAD_PAYLOAD);
             return;
         }
 
-        // map names → Service objects
-        Map<String, Service> byName = SERVICES.stream()
-                .collect(Collectors.toMap(Service::getName, s -> s));
-        List<Service> prefObjs = new ArrayList<>();
-        for (String name : p.prefs) {
-            Service svc = byName.get(name);
-            if (svc != null) prefObjs.add(svc);
+        // store in‐memory; ApplicationLogic no longer holds volunteers
+        VOLUNTEER_STORE.put(new Volunteer(p.name(), p.volunteerId(), p.prefs()));
+        SCHEDULER.markDirty();
+        ReplicationLeader leader = REPLICATION;
+        if (leader != null) leader.volunteerChanged(p.volunteerId());
+
+        sendBytes(ex, 200, JsonCodec.STATUS_STORED);
+    }
+
+    /**
+     * DELETE /preferences/{volunteerId}: removes the volunteer and backfills
+     * the slot they held from its waitlist. Only the withdrawn and promoted
+     * volunteers are notified; no optimization run is scheduled for it, and
+     * once the backfill is published the withdrawal's data version counts
+     * as optimized (unless other writes are pending).
+     */
+    private static void handleWithdraw(HttpExchange ex, String volunteerId) throws IOException {
+        long before = dataVersion();
+        if (VOLUNTEER_STORE.remove(volunteerId) == null) {
+            sendBytes(ex, 404, JsonCodec.ERROR_NOT_FOUND);
+            return;
         }
+        long after = dataVersion();
+        ReplicationLeader leader = REPLICATION;
+        if (leader != null) leader.volunteerChanged(volunteerId);
+        WITHDRAWALS.increment();
 
-        // store in‐memory; ApplicationLogic no longer holds volunteers
-        VOLUNTEER_STORE.put(p.volunteerId,
-                new Volunteer(p.name, p.volunteerId, prefObjs));
+        List<Assignment> promoted = withdraw(volunteerId);
+        // only the removal in between: no concurrent write is skipped with it
+        if (after == before + 1) SCHEDULER.accountedFor(before, after);
+        sendJson(ex, 200, Map.of("status", "withdrawn", "promoted", promoted.size()));
+    }
+
+    /**
+     * Unpublishes a withdrawn volunteer and publishes the promotions that
+     * backfill their slot, as one batch.
+     *
+     * @return The promoted volunteers with their new services.
+     */
+    private static List<Assignment> withdraw(String volunteerId) {
+        synchronized (PUBLISH_LOCK) {
+            List<Assignment> promoted =
+                    WAITLISTS.withdraw(volunteerId, CATALOG.current().byName(), VOLUNTEER_STORE::get);
+            publishPromotions(volunteerId, promoted, volunteerId + " withdrew");
+            return promoted;
+        }
+    }
 
-        sendJson(ex, 200, Map.of("status", "stored"));
+    /**
+     * Fills a service whose capacity was raised from its waitlist, without
+     * waiting for the background optimization.
+     *
+     * @return The promoted volunteers with their new services.
+     */
+    private static List<Assignment> promote(String service) {
+        synchronized (PUBLISH_LOCK) {
+            List<Assignment> promoted =
+                    WAITLISTS.fill(service, CATALOG.current().byName(), VOLUNTEER_STORE::get);
+            publishPromotions(null, promoted, service + " grew");
+            return promoted;
+        }
+    }
+
+    /**
+     * Publishes waitlist promotions (and a withdrawal, if any) as one batch
+     * that names only those volunteers. Caller holds PUBLISH_LOCK.
+     */
+    private static void publishPromotions(String withdrawnId, List<Assignment> promoted, String why) {
+        AssignmentSnapshot current = ASSIGNMENT_STORE.get();
+        List<AssignmentBatch.Change> changes = new ArrayList<>(promoted.size() + 1);
+        Map<String, Assignment> byId = new HashMap<>();
+        if (withdrawnId != null && current.get(withdrawnId) != null) {
+            changes.add(new AssignmentBatch.Change(withdrawnId, null));
+        }
+        for (Assignment a : promoted) {
+            changes.add(new AssignmentBatch.Change(a.getVolunteer().getId(), a.getService().getName()));
+            byId.put(a.getVolunteer().getId(), a);
+        }
+        if (changes.isEmpty()) return;
+
+        AssignmentSnapshot next = current.apply(current.version() + 1, changes, (id, service) -> byId.get(id));
+        install(current, next, changes);
+        PROMOTIONS.add(promoted.size());
+        LOG.info("Published v%d (%s, %d promoted from waitlists)", next.version(), why, promoted.size());
     }
 
-    /** POST /optimize */
+    /** POST /optimize[?wait=true] */
     private static void handleOptimize(HttpExchange ex) throws IOException {
         logRequest(ex);
         if (!"POST".equalsIgnoreCase(ex.getRequestMethod())) {
             ex.sendResponseHeaders(405, -1);
             return;
         }
+        if (FOLLOWER != null) {
+            redirectToLeader(ex);
+            return;
+        }
 
-        try {
-            // gather all volunteers from the store
-            List<Volunteer> allVols = new ArrayList<>(VOLUNTEER_STORE.values());
+        if (SCHEDULER.isUpToDate()) {
+            sendJson(ex, 200, Map.of("status", "up-to-date",
+                    "dataVersion", SCHEDULER.optimizedVersion()));
+            return;
+        }
+
+        // a hint: coalesces with any run already due instead of forcing another
+        CompletableFuture<Long> done = SCHEDULER.requestRun();
+        if (!"true".equals(queryParams(ex).get("wait"))) {
+            sendJson(ex, 202, Map.of("status", "scheduled"));
+            return;
+        }
+
+        // answer when the run lands; no bulkhead thread waits for it
+        done.whenComplete((version, error) -> {
+            try {
+                if (error == null) {
+                    sendJson(ex, 200, Map.of("status", "optimized", "dataVersion", version));
+                } else {
+                    sendJson(ex, 500, Map.of("error", String.valueOf(error.getMessage())));
+                }
+            } catch (IOException ignored) {
+                // client went away
+            } finally {
+                HTTP_METRICS.finish(ex);
+            }
+        });
+    }
+
+    /**
+     * What the scheduler optimizes: volunteer writes and catalog changes.
+     * Both versions only grow, so their sum does too.
+     */
+    private static long dataVersion() {
+        return VOLUNTEER_STORE.snapshot().version() + CATALOG.current().version();
+    }
+
+    /**
+     * Scheduler callback: optimizes the current volunteer snapshot and
+     * publishes the result. A cancelled run publishes nothing.
+     *
+     * @return The data version the run covered.
+     */
+    private static long optimizeSnapshot(CancellationToken token, Map<String, String> seed) {
+        // O(1) point-in-time view; later /preferences writes don't affect it
+        VolunteerStore.Snapshot allVols = VOLUNTEER_STORE.snapshot();
+        ServiceCatalog.Snapshot catalog = CATALOG.current();
+        if (allVols.isEmpty()) return allVols.version() + catalog.version();
+
+        // run the GA over the snapshot inside ApplicationLogic, with current capacities
+        List<Assignment> results = LOGIC.runOptimization(allVols, catalog.services(), token, seed);
+        synchronized (PUBLISH_LOCK) {
+            publishResult(results);
+            syncWaitlists(allVols);
+        }
+        return allVols.version() + catalog.version();
+    }
+
+    /**
+     * Publishes a new optimization result: diffs it against the stored one,
+     * applies only the changes under a new version, and pushes just those
+     * changes to long-pollers and WebSocket subscribers. Unchanged volunteers
+     * keep their old version (and ETag). An identical result publishes nothing.
+     *
+     * A result over a capacity lowered meanwhile is first repaired
+     * ({@link CapacityRepair}), so nothing over capacity is ever published.
+     * Volunteers who withdrew while it was computed are left out, the slots
+     * the result gave them are backfilled from the waitlists like any other
+     * withdrawal, and a re-solve is scheduled since the run never saw them go.
+     */
+    private static AssignmentDiff publishResult(List<Assignment> results) {
+        synchronized (PUBLISH_LOCK) {
+            List<String> freed = new ArrayList<>();
+            results = withoutWithdrawn(results, freed);
+            CapacityRepair.Result repaired = CapacityRepair.repair(results, CATALOG.current().byName());
+            if (!repaired.unchanged()) {
+                REPAIR_MOVED.add(repaired.moved());
+                REPAIR_UNASSIGNED.add(repaired.unassigned());
+                LOG.info("Capacity repair: %d moved, %d unassigned", repaired.moved(), repaired.unassigned());
+                results = repaired.assignments();
+            }
+
+            AssignmentSnapshot current = ASSIGNMENT_STORE.get();
+            AssignmentDiff diff = AssignmentDiff.compute(current.serviceNames(), results);
+            if (diff.isEmpty()) {
+                backfillWithdrawn(freed);
+                return diff;
+            }
+
+            // build the next snapshot off to the side, then swap it in at once
+            AssignmentSnapshot next = current.apply(current.version() + 1, diff);
+            install(current, next, diff.toChanges());
+            for (Assignment a : diff.getAdded()) placeOnWaitlists(a.getVolunteer().getId(), a.getService().getName());
+            for (Assignment a : diff.getMoved()) placeOnWaitlists(a.getVolunteer().getId(), a.getService().getName());
+            for (String id : diff.getRemoved()) placeOnWaitlists(id, null);
+
+            LOG.info("Published v%d (%s)", next.version(), diff);
+            backfillWithdrawn(freed);
+            return diff;
+        }
+    }
+
+    /**
+     * Drops volunteers no longer stored (withdrawn while the run was computing).
+     *
+     * @param freed receives the services the result gave the dropped volunteers
+     */
+    private static List<Assignment> withoutWithdrawn(List<Assignment> results, List<String> freed) {
+        List<Assignment> kept = null;
+        for (int i = 0; i < results.size(); i++) {
+            Assignment a = results.get(i);
+            boolean stored = VOLUNTEER_STORE.get(a.getVolunteer().getId()) != null;
+            if (!stored) freed.add(a.getService().getName());
+            if (!stored && kept == null) kept = new ArrayList<>(results.subList(0, i));
+            else if (stored && kept != null) kept.add(a);
+        }
+        return kept != null ? kept : results;
+    }
+
+    /**
+     * Fills the slots a just-published result had given volunteers who
+     * withdrew mid-run, and marks the data dirty so the next run accounts for
+     * them. Caller holds PUBLISH_LOCK.
+     */
+    private static void backfillWithdrawn(List<String> freed) {
+        if (freed.isEmpty()) return;
+        Map<String, Service> catalog = CATALOG.current().byName();
+        Map<String, Assignment> promoted = new LinkedHashMap<>();   // a later fill may move someone again
+        for (String service : freed) {
+            for (Assignment a : WAITLISTS.fill(service, catalog, VOLUNTEER_STORE::get)) {
+                promoted.remove(a.getVolunteer().getId());
+                promoted.put(a.getVolunteer().getId(), a);
+            }
+        }
+        publishPromotions(null, new ArrayList<>(promoted.values()), freed.size() + " withdrew mid-run");
+        SCHEDULER.markDirty();
+    }
+
+    /** Records a volunteer's published service on the waitlists. Caller holds PUBLISH_LOCK. */
+    private static void placeOnWaitlists(String volunteerId, String service) {
+        Volunteer v = VOLUNTEER_STORE.get(volunteerId);
+        if (v != null) WAITLISTS.place(v, service);
+        else WAITLISTS.remove(volunteerId);
+    }
+
+    /**
+     * After a run: brings every optimized volunteer's waitlist entries up to
+     * date, including those left unassigned (not in any diff) and those whose
+     * preferences changed but not their service. Unchanged volunteers don't
+     * touch the queues. Caller holds PUBLISH_LOCK.
+     */
+    private static void syncWaitlists(Iterable<Volunteer> optimized) {
+        AssignmentSnapshot published = ASSIGNMENT_STORE.get();
+        for (Volunteer v : optimized) {
+            PublishedAssignment p = published.get(v.getId());
+            placeOnWaitlists(v.getId(), p != null ? p.serviceName() : null);
+        }
+    }
+
+    /**
+     * Swaps in a new snapshot, releases long-polls, and pushes the changes
+     * to WebSocket subscribers and followers. Caller holds PUBLISH_LOCK.
+     */
+    private static void install(AssignmentSnapshot current, AssignmentSnapshot next,
+                                List<AssignmentBatch.Change> changes) {
+        ASSIGNMENT_STORE.set(next);
+        for (AssignmentBatch.Change c : changes) {
+            LONG_POLLS.wake(c.volunteerId());
+        }
+        AssignmentBatch batch = new AssignmentBatch(current.version(), next.version(), changes);
+        AssignmentWebSocketServer.publish(batch);
+        ReplicationLeader leader = REPLICATION;
+        if (leader != null) leader.published(batch);
+    }
+
+    /**
+     * Follower: installs a batch replicated from the leader. A full-state
+     * batch (after a (re)connect) is reduced to what differs from the local
+     * state, so subscribers only hear about real changes.
+     *
+     * A full state older than the local one means the leader restarted and
+     * its versions began again. The follower then starts a new epoch and
+     * re-encodes every entry under it, so no ETag, long-poll or WebSocket
+     * resume point from before can match a reused version.
+     */
+    private static void applyReplicated(AssignmentBatch batch) {
+        synchronized (PUBLISH_LOCK) {
+            AssignmentSnapshot current = ASSIGNMENT_STORE.get();
+            List<AssignmentBatch.Change> changes = batch.getChanges();
+            AssignmentSnapshot next;
+            if (batch.getBaseVersion() == 0) {
+                Map<String, String> local = current.serviceNames();
+                List<AssignmentBatch.Change> delta = new ArrayList<>();
+                for (AssignmentBatch.Change c : changes) {
+                    if (!Objects.equals(local.remove(c.volunteerId()), c.service())) delta.add(c);
+                }
+                for (String gone : local.keySet()) delta.add(new AssignmentBatch.Change(gone, null));
+                if (delta.isEmpty() && batch.getVersion() == current.version()) return;
+                if (batch.getVersion() < current.version()) {
+                    long epoch = PublishedAssignment.newEpoch();
+                    AssignmentWebSocketServer.epochChanged();
+                    LOG.info("Leader versions restarted (v%d < v%d): new epoch %d",
+                            batch.getVersion(), current.version(), epoch);
+                    next = AssignmentSnapshot.empty(IDS).apply(batch.getVersion(), changes, ServerHandler::replicated);
+                } else {
+                    next = current.apply(batch.getVersion(), delta, ServerHandler::replicated);
+                }
+                changes = delta;
+            } else {
+                next = current.apply(batch.getVersion(), changes, ServerHandler::replicated);
+            }
+            install(current, next, changes);
+        }
+    }
+
+    /** A replicated assignment, with the volunteer as stored here (or a stub if not replicated yet). */
+    private static Assignment replicated(String id, String service) {
+        Volunteer v = VOLUNTEER_STORE.get(id);
+        return new Assignment(v != null ? v : new Volunteer(id, id, List.of()), serviceNamed(service));
+    }
+
+    private static Service serviceNamed(String name) {
+        Service s = CATALOG.current().get(name);
+        return s != null ? s : new Service(name, 0);   // unknown here: still served by name
+    }
 
-            // run the GA over deep‐copies inside ApplicationLogic
-            List<Assignment> results =
-                    LOGIC.runOptimization(allVols, SERVICES);
+    /**
+     * GET /services            → the catalog (ETag = epoch-catalog version, 304 on If-None-Match)
+     * POST /services           → add {"name":..., "capacity":...} (201, or 409 if it exists)
+     * PUT /services/{name}     → set {"capacity":...}; a lower capacity repairs the
+     *                            published assignment by moving only displaced volunteers
+     */
+    private static void handleServices(HttpExchange ex) throws IOException {
+        logRequest(ex);
+        String method = ex.getRequestMethod().toUpperCase(Locale.ROOT);
+        String path = ex.getRequestURI().getPath();
+        String name = path.length() > "/services/".length() ? path.substring("/services/".length()) : null;
 
-            // replace old assignments
-            ASSIGNMENT_STORE.clear();
-            for (Assignment a : results) {
-                ASSIGNMENT_STORE.put(a.getVolunteer().getId(), a);
+        if ("GET".equals(method) && name == null) {
+            ServiceCatalog.Snapshot c = CATALOG.current();
+            ex.getResponseHeaders().add("ETag", c.etag());
+            if (c.etag().equals(ex.getRequestHeaders().getFirst("If-None-Match"))) {
+                ex.sendResponseHeaders(304, -1);
+                ex.close();
+            } else {
+                sendBytes(ex, 200, c.body());
             }
+            return;
+        }
+        boolean add = "POST".equals(method) && name == null;
+        boolean update = "PUT".equals(method) && name != null;
+        if (!add && !update) {
+            ex.sendResponseHeaders(405, -1);
+            return;
+        }
+        if (FOLLOWER != null) {
+            redirectToLeader(ex);
+            return;
+        }
 
-            // broadcast each assignment via WebSocket
-            for (Assignment a : results) {
-                String msg = G.toJson(Map.of(
-                        "volunteerId", a.getVolunteer().getId(),
-                        "assignment",  a.getService().getName()
-                ));
-                AssignmentWebSocketServer.broadcastToAll(msg);
+        int capacity;
+        try (Reader in = new InputStreamReader(ex.getRequestBody(), StandardCharsets.UTF_8)) {
+            JsonObject body = G.fromJson(in, JsonObject.class);
+            capacity = body.get("capacity").getAsInt();
+            if (add) name = body.get("name").getAsString().trim();
+        } catch (RuntimeException malformed) {   // not JSON, a field missing or of the wrong type
+            capacity = -1;
+        }
+        if (capacity < 0 || name == null || name.isEmpty()) {
+            sendBytes(ex, 400, JsonCodec.ERROR_BAD_PAYLOAD);
+            return;
+        }
+
+        if (add) {
+            if (CATALOG.add(name, capacity) == null) {
+                sendJson(ex, 409, Map.of("error", "service exists"));
+                return;
             }
+            catalogChanged();
+            sendJson(ex, 201, Map.of("status", "added", "version", CATALOG.current().version()));
+            return;
+        }
 
-            sendJson(ex, 200, Map.of("status", "optimized"));
-        } catch (Exception e) {
-            sendJson(ex, 500, Map.of("error", e.getMessage()));
+        Service before = CATALOG.setCapacity(name, capacity);
+        if (before == null) {
+            sendBytes(ex, 404, JsonCodec.ERROR_NOT_FOUND);
+            return;
+        }
+        catalogChanged();
+        AssignmentDiff diff = capacity < before.getCapacity() ? repairPublished() : null;
+        int promoted = capacity > before.getCapacity() ? promote(name).size() : 0;
+        sendJson(ex, 200, Map.of(
+                "status",     "updated",
+                "version",    CATALOG.current().version(),
+                "moved",      diff != null ? diff.getMoved().size() : 0,
+                "unassigned", diff != null ? diff.getRemoved().size() : 0,
+                "promoted",   promoted));
+    }
+
+    /**
+     * Streams the catalog to followers and marks the data dirty: the repair
+     * or waitlist promotions answer at once, and the background
+     * optimization then catches up with the new capacities.
+     */
+    private static void catalogChanged() {
+        ReplicationLeader leader = REPLICATION;
+        if (leader != null) leader.servicesChanged();
+        if (!VOLUNTEER_STORE.snapshot().isEmpty()) SCHEDULER.markDirty();
+    }
+
+    /** Re-publishes the current assignment through the capacity repair. */
+    private static AssignmentDiff repairPublished() {
+        synchronized (PUBLISH_LOCK) {
+            List<Assignment> current = new ArrayList<>(ASSIGNMENT_STORE.get().size());
+            ASSIGNMENT_STORE.get().forEach((id, p) -> current.add(p.assignment()));
+            return publishResult(current);
         }
     }
 
-    /** GET /assignment?volunteerId=XYZ */
+    /** GET /assignment?volunteerId=XYZ[&sinceVersion=N&epoch=E&waitMs=T] */
     private static void handleAssignment(HttpExchange ex) throws IOException {
         logRequest(ex);
         if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) {
@@ -155,36 +710,296 @@ public class ServerHandler {
             return;
         }
 
-        String q  = ex.getRequestURI().getQuery();
-        String id = (q != null && q.startsWith("volunteerId="))
-                ? q.substring("volunteerId=".length())
-                : null;
+        Map<String, String> q = queryParams(ex);
+        String id         = q.get("volunteerId");
+        long current      = PublishedAssignment.epoch();
+        long epoch        = parseLong(q.get("epoch"), current);
+        long waitMs       = Math.min(parseLong(q.get("waitMs"), 0), MAX_LONG_POLL_MS);
+        // a version from another server run says nothing about this one: answer with what we have
+        long sinceVersion = epoch == current ? parseLong(q.get("sinceVersion"), -1) : -1;
+
+        if (id != null && waitMs > 0 && !isNewer(id, sinceVersion)) {
+            // long-poll: park the exchange; this worker thread returns right away
+            LONG_POLLS.park(id, waitMs, ex,
+                    () -> isNewer(id, sinceVersion),
+                    parked -> {
+                        try {
+                            sendAssignment(parked, ASSIGNMENT_STORE.get().get(id));
+                        } finally {
+                            HTTP_METRICS.finish(parked);   // also when the client hung up meanwhile
+                        }
+                    });
+            return;
+        }
+
+        sendAssignment(ex, (id != null) ? ASSIGNMENT_STORE.get().get(id) : null);
+    }
+
+    /** Expected wait for a rejected /optimize: one run per queued request (last run's duration). */
+    private static long optimizeRetryAfterSeconds() {
+        GeneticAlgorithm.RunStats last = LOGIC.getLastRunStats();
+        double runSeconds = (last != null) ? last.durationNanos() / 1e9 : 1;
+        return (long) Math.ceil(runSeconds * 5);   // OPTIMIZE: 1 running + 4 queued
+    }
+
+    /** True once the volunteer has an assignment published after {@code sinceVersion}. */
+    private static boolean isNewer(String id, long sinceVersion) {
+        PublishedAssignment p = ASSIGNMENT_STORE.get().get(id);
+        return p != null && p.version() > sinceVersion;
+    }
 
-        Assignment a = (id != null) ? ASSIGNMENT_STORE.get(id) : null;
-        if (a == null) {
-            sendJson(ex, 404, Map.of("error", "not found"));
+    /** Writes 404, 304 (If-None-Match hit) or 200 with the assignment and its ETag. */
+    private static void sendAssignment(HttpExchange ex, PublishedAssignment p) throws IOException {
+        if (p == null) {
+            sendBytes(ex, 404, JsonCodec.ERROR_NOT_FOUND);
+            return;
+        }
+
+        ex.getResponseHeaders().add("ETag", p.etag());
+        if (p.etag().equals(ex.getRequestHeaders().getFirst("If-None-Match"))) {
+            ex.sendResponseHeaders(304, -1);
+            ex.close();
         } else {
-            sendJson(ex, 200,
-                    Map.of("assignment", a.getService().getName()));
+            sendBytes(ex, 200, p.body());   // pre-encoded at publish time
+        }
+    }
+
+    /** GET /metrics (Prometheus text exposition) */
+    private static void handleMetrics(HttpExchange ex) throws IOException {
+        if (!"GET".equalsIgnoreCase(ex.getRequestMethod())) {
+            ex.sendResponseHeaders(405, -1);
+            return;
+        }
+
+        PrometheusText out = new PrometheusText();
+        HTTP_METRICS.writeTo(out);
+
+        Bulkhead.writeTo(out, BULKHEADS);
+        NioHttpServer nio = NIO_SERVER;
+        if (nio != null) nio.writeTo(out);
+        ReplicationLeader leader = REPLICATION;
+        if (leader != null) leader.writeTo(out);
+        ReplicationFollower follower = FOLLOWER;
+        if (follower != null) follower.writeTo(out);
+        if (CLUSTER != null) CLUSTER.writeTo(out);
+        out.header("http_long_polls_parked", "gauge", "GET /assignment long-polls currently held.");
+        out.sample("http_long_polls_parked", LONG_POLLS.parked());
+
+        out.header("ws_peers", "gauge", "Open WebSocket connections.");
+        out.sample("ws_peers", AssignmentWebSocketServer.peerCount());
+        out.header("ws_outbox_frames", "gauge", "Frames waiting in per-peer outbound queues.");
+        out.sample("ws_outbox_frames", AssignmentWebSocketServer.queuedFrames());
+        out.header("ws_frames_total", "counter", "WebSocket frames by outcome; rate() gives send rates.");
+        out.sample("ws_frames_total", AssignmentWebSocketServer.sentFrames(), "outcome", "sent");
+        out.sample("ws_frames_total", AssignmentWebSocketServer.droppedFrames(), "outcome", "dropped");
+        out.sample("ws_frames_total", AssignmentWebSocketServer.coalescedFrames(), "outcome", "coalesced");
+        out.header("ws_evicted_peers_total", "counter", "Peers closed for not reading or overflowing their queue.");
+        out.sample("ws_evicted_peers_total", AssignmentWebSocketServer.evictedPeers());
+        out.header("ws_resumes_total", "counter", "Resumed subscriptions by where the missed changes came from.");
+        out.sample("ws_resumes_total", AssignmentWebSocketServer.replayedFromLog(), "source", "log");
+        out.sample("ws_resumes_total", AssignmentWebSocketServer.replayedFromStore(), "source", "store");
+
+        out.header("ga_run_duration_seconds", "histogram", "Wall time of optimization runs.");
+        LOGIC.getRunDurations().writeTo(out, "ga_run_duration_seconds");
+        out.header("ga_stagnation_stops_total", "counter", "Runs that stopped early because the best cost stagnated.");
+        out.sample("ga_stagnation_stops_total", LOGIC.getStagnationStops());
+        out.header("ga_fallbacks_total", "counter", "Runs that returned the fallback assignment.");
+        out.sample("ga_fallbacks_total", LOGIC.getFallbacks());
+        out.header("ga_cancelled_runs_total", "counter", "Runs cancelled because newer data superseded them.");
+        out.sample("ga_cancelled_runs_total", LOGIC.getCancellations());
+        GeneticAlgorithm.RunStats last = LOGIC.getLastRunStats();
+        if (last != null) {
+            out.header("ga_last_generations", "gauge", "Generations evolved by the last run.");
+            out.sample("ga_last_generations", last.generations());
+            out.header("ga_last_final_cost", "gauge", "Cost of the last run's result.");
+            out.sample("ga_last_final_cost", last.finalCost());
+            out.header("ga_last_duration_seconds", "gauge", "Wall time of the last run.");
+            out.sample("ga_last_duration_seconds", last.durationNanos() / 1e9);
+        }
+
+        out.header("optimizer_runs_total", "counter", "Background optimization runs by outcome.");
+        out.sample("optimizer_runs_total", SCHEDULER.runs(), "outcome", "ok");
+        out.sample("optimizer_runs_total", SCHEDULER.failures(), "outcome", "failed");
+        out.sample("optimizer_runs_total", SCHEDULER.preempted(), "outcome", "preempted");
+        out.header("optimizer_writes_total", "counter", "Preference writes that marked the data dirty.");
+        out.sample("optimizer_writes_total", SCHEDULER.writes());
+        out.header("optimizer_hints_total", "counter", "POST /optimize requests (hints).");
+        out.sample("optimizer_hints_total", SCHEDULER.hints());
+        out.header("optimizer_pending_versions", "gauge", "Data versions written but not yet optimized.");
+        out.sample("optimizer_pending_versions",
+                Math.max(0, dataVersion() - SCHEDULER.optimizedVersion()));
+
+        out.header("volunteers_stored", "gauge", "Volunteers in the store.");
+        out.sample("volunteers_stored", VOLUNTEER_STORE.size());
+        out.header("assignments_version", "gauge", "Version of the published assignment snapshot.");
+        out.sample("assignments_version", ASSIGNMENT_STORE.get().version());
+        out.header("withdrawals_total", "counter", "Volunteers withdrawn through DELETE /preferences.");
+        out.sample("withdrawals_total", WITHDRAWALS.sum());
+        out.header("waitlist_promotions_total", "counter", "Volunteers promoted from a waitlist to backfill a withdrawal.");
+        out.sample("waitlist_promotions_total", PROMOTIONS.sum());
+        out.header("service_catalog_version", "gauge", "Version of the service catalog.");
+        out.sample("service_catalog_version", CATALOG.current().version());
+        out.header("capacity_repair_volunteers_total", "counter", "Volunteers displaced from over-full services by outcome.");
+        out.sample("capacity_repair_volunteers_total", REPAIR_MOVED.sum(), "outcome", "moved");
+        out.sample("capacity_repair_volunteers_total", REPAIR_UNASSIGNED.sum(), "outcome", "unassigned");
+
+        out.header("log_pending_events", "gauge", "Log events waiting for the writer thread.");
+        out.sample("log_pending_events", AsyncLog.pending());
+        out.header("log_dropped_events_total", "counter", "Log events dropped because the ring was full.");
+        out.sample("log_dropped_events_total", AsyncLog.dropped());
+
+        byte[] body = out.toBytes();
+        ex.getResponseHeaders().add("Content-Type", PrometheusText.CONTENT_TYPE);
+        ex.sendResponseHeaders(200, body.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    /** /admin/jfr[/start|/stop|/status]; loopback clients only */
+    private static void handleJfr(HttpExchange ex) throws IOException {
+        logRequest(ex);
+        InetSocketAddress remote = ex.getRemoteAddress();
+        if (remote == null || remote.getAddress() == null || !remote.getAddress().isLoopbackAddress()) {
+            sendJson(ex, 403, Map.of("error", "admin endpoints are loopback-only"));
+            return;
+        }
+        String action = ex.getRequestURI().getPath().substring("/admin/jfr".length());
+        String method = ex.getRequestMethod().toUpperCase(Locale.ROOT);
+
+        switch (method + " " + action) {
+            case "POST /start" -> {
+                boolean started = RECORDINGS.start();
+                sendJson(ex, started ? 200 : 409, Map.of("recording", RECORDINGS.state()));
+            }
+            case "POST /stop" -> {
+                boolean stopped = RECORDINGS.stop();
+                sendJson(ex, stopped ? 200 : 409, Map.of("recording", RECORDINGS.state()));
+            }
+            case "GET /status" -> sendJson(ex, 200, Map.of("recording", RECORDINGS.state()));
+            case "GET ", "GET /" -> {
+                Path file = RECORDINGS.dump();
+                if (file == null) {
+                    sendBytes(ex, 404, JsonCodec.ERROR_NOT_FOUND);
+                    return;
+                }
+                try {
+                    ex.getResponseHeaders().add("Content-Type", "application/octet-stream");
+                    ex.getResponseHeaders().add("Content-Disposition",
+                            "attachment; filename=\"volunteer-matching.jfr\"");
+                    ex.sendResponseHeaders(200, Files.size(file));
+                    try (OutputStream os = ex.getResponseBody()) {
+                        Files.copy(file, os);
+                    }
+                } finally {
+                    Files.deleteIfExists(file);
+                }
+            }
+            default -> ex.sendResponseHeaders(405, -1);
         }
     }
 
     /* ========== Utility Methods ========== */
 
+    /**
+     * Follower mode ({@code --follower=host:port}): replicate from that
+     * leader. Otherwise, with -Dreplication.port, accept followers.
+     */
+    private static void startReplication(String follow) throws IOException {
+        if (follow != null) {
+            String[] hp = follow.split(":", 2);
+            LEADER_HTTP = "http://" + hp[0] + ":" + Integer.getInteger("leader.httpPort", 8080);
+            FOLLOWER = new ReplicationFollower(hp[0], Integer.parseInt(hp[1]), ServerHandler::serviceNamed,
+                    new ReplicationFollower.Listener() {
+                        @Override public void services(long version, List<Service> services) {
+                            CATALOG.replace(version, services);
+                        }
+                        @Override public void volunteer(Volunteer v) { VOLUNTEER_STORE.put(v); }
+                        @Override public void volunteerRemoved(String id) { VOLUNTEER_STORE.remove(id); }
+                        @Override public void assignments(AssignmentBatch batch) { applyReplicated(batch); }
+                    });
+            FOLLOWER.start();
+            LOG.info("Read-only follower of %s (writes redirect to %s)", follow, LEADER_HTTP);
+            return;
+        }
+        Integer port = Integer.getInteger("replication.port");
+        if (port != null) {
+            InetSocketAddress bind = bindAddress("replication.bind", port);
+            REPLICATION = new ReplicationLeader(bind, ASSIGNMENT_STORE::get, VOLUNTEER_STORE, CATALOG);
+            LOG.info("Replication leader on %s port %d", bind.getHostString(), REPLICATION.port());
+        }
+    }
+
+    /** Follower: writes belong to the leader; 307 keeps the method and body. */
+    private static void redirectToLeader(HttpExchange ex) throws IOException {
+        ex.getResponseHeaders().add("Location", LEADER_HTTP + ex.getRequestURI());
+        ex.sendResponseHeaders(307, -1);
+        ex.close();
+    }
+
+    /** Listens for cluster workers if -Dcluster.port is set; waits cluster.waitMs (default 5000) for their results. */
+    private static ClusterCoordinator startCluster() {
+        Integer port = Integer.getInteger("cluster.port");
+        if (port == null) return null;
+        try {
+            InetSocketAddress bind = bindAddress("cluster.bind", port);
+            ClusterCoordinator c = new ClusterCoordinator(bind, Long.getLong("cluster.waitMs", 5_000));
+            LOG.info("Cluster coordinator on %s port %d (start workers with ClusterWorker host:%d)",
+                    bind.getHostString(), c.port(), c.port());
+            return c;
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot listen for cluster workers on port " + port, e);
+        }
+    }
+
+    /** Where a peer port listens: the address in {@code property}, loopback by default. */
+    private static InetSocketAddress bindAddress(String property, int port) {
+        String host = System.getProperty(property);
+        return host == null
+                ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port)
+                : new InetSocketAddress(host, port);
+    }
+
+    /** Queues an access line; never blocks on stdout. */
     private static void logRequest(HttpExchange ex) {
-        System.out.printf("🔵 %s %s%n",
-                ex.getRequestMethod(), ex.getRequestURI());
+        ACCESS.info("🔵 %s %s", ex.getRequestMethod(), ex.getRequestURI());
     }
 
-    private static String readBody(HttpExchange ex) throws IOException {
-        return new String(ex.getRequestBody().readAllBytes(),
-                StandardCharsets.UTF_8);
+    /** Decodes the query string into a name → value map (first value wins). */
+    private static Map<String, String> queryParams(HttpExchange ex) {
+        Map<String, String> params = new HashMap<>();
+        String q = ex.getRequestURI().getRawQuery();
+        if (q == null || q.isEmpty()) return params;
+
+        for (String pair : q.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            params.putIfAbsent(
+                    URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static long parseLong(String s, long dflt) {
+        if (s == null) return dflt;
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            return dflt;
+        }
     }
 
     private static void sendJson(HttpExchange ex,
                                  int code,
                                  Map<String,?> obj) throws IOException {
-        byte[] out = G.toJson(obj).getBytes(StandardCharsets.UTF_8);
+        sendBytes(ex, code, G.toJson(obj).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Writes an already-encoded JSON body. */
+    private static void sendBytes(HttpExchange ex,
+                                  int code,
+                                  byte[] out) throws IOException {
         ex.getResponseHeaders().add(
                 "Content-Type", "application/json; charset=utf-8");
         ex.sendResponseHeaders(code, out.length);
@@ -192,11 +1007,4 @@ public class ServerHandler {
             os.write(out);
         }
     }
-
-    /** JSON payload structure for /preferences */
-    private record PrefPayload(
-            String volunteerId,
-            String name,
-            List<String> prefs
-    ) {}
 }
@@ -0,0 +1,261 @@
+package org.example.server.replication;
+
+import org.example.domain.AssignmentBatch;
+import org.example.domain.Service;
+import org.example.domain.Volunteer;
+import org.example.server.log.AsyncLog;
+import org.example.server.metrics.PrometheusText;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Follower side of replication: keeps a local copy of the leader's
+ * service catalog, volunteers and published assignments by applying its stream
+ * ({@link ReplicationLeader}) through a {@link Listener}.
+ *
+ * Batches are applied in version order: one already covered is skipped,
+ * and a gap (a delta whose base is not the local version) means frames
+ * were lost, so the follower reconnects and bootstraps again. It also
+ * reconnects, with jittered backoff, whenever the leader goes away; reads
+ * keep being served from the last applied state meanwhile.
+ *
+ * Lag is reported two ways: the leader's versions ahead of the local ones
+ * (from heartbeats), and the age of the newest applied frame (leader clock
+ * at the event to follower clock at apply, meaningful on one box or with
+ * synchronized clocks).
+ */
+public final class ReplicationFollower implements Closeable {
+
+    /** Applies replicated state; called on the follower's stream thread, in order. */
+    public interface Listener {
+        /** The leader's service catalog (sent before anything that names a service). */
+        void services(long version, List<Service> services);
+
+        /** A volunteer was stored on the leader (or is part of a bootstrap). */
+        void volunteer(Volunteer v);
+
+        /**
+         * A volunteer was removed on the leader, or is missing from a
+         * bootstrap (removed while this follower was away).
+         */
+        void volunteerRemoved(String volunteerId);
+
+        /**
+         * Assignment changes to install. A batch with base version 0 is the
+         * complete state and replaces everything.
+         */
+        void assignments(AssignmentBatch batch);
+    }
+
+    private static final AsyncLog LOG = AsyncLog.get("replication");
+    private static final long MAX_BACKOFF_MS = 10_000;
+
+    private final String host;
+    private final int port;
+    private final Function<String, Service> services;
+    private final Listener listener;
+    private volatile Socket socket;
+    private volatile boolean closed;
+
+    private volatile boolean connected;
+    private volatile boolean bootstrapped;
+    private volatile long appliedVersion;          // local assignment version
+    private volatile long leaderVersion;           // newest leader assignment version seen
+    private volatile long leaderVolunteerVersion;  // newest leader volunteer version seen
+    private volatile long lastFrameMillis;         // follower clock at the last frame
+    private volatile long lastLagMillis;           // age of the last applied event on arrival
+
+    // volunteer ids replicated so far, and those seen in the current bootstrap
+    // (null once it is applied); stream thread only
+    private final Set<String> volunteerIds = new HashSet<>();
+    private Set<String> bootstrapIds;
+
+    private final LongAdder resyncs = new LongAdder();
+    private final LongAdder framesApplied = new LongAdder();
+
+    /**
+     * @param host     Leader host.
+     * @param port     Leader replication port.
+     * @param services Resolves service names in replicated preferences.
+     * @param listener Installs replicated state.
+     */
+    public ReplicationFollower(String host, int port, Function<String, Service> services, Listener listener) {
+        this.host = host;
+        this.port = port;
+        this.services = services;
+        this.listener = listener;
+    }
+
+    /** Connects in the background and applies the stream until {@link #close}. */
+    public void start() {
+        Thread t = new Thread(this::connectLoop, "replication-follower");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        Socket s = socket;
+        if (s != null) s.close();
+    }
+
+    private void connectLoop() {
+        long backoff = 250;
+        while (!closed) {
+            try (Socket s = new Socket()) {
+                s.connect(new InetSocketAddress(host, port), 5_000);
+                socket = s;
+                connected = true;
+                bootstrapped = false;
+                LOG.info("following leader %s:%d", host, port);
+                backoff = 250;
+                apply(new DataInputStream(new BufferedInputStream(s.getInputStream(), 64 * 1024)));
+            } catch (IOException e) {
+                if (!closed) LOG.warn("replication from %s:%d interrupted: %s", host, port, e.getMessage());
+            } finally {
+                connected = false;
+            }
+            if (closed) return;
+            resyncs.increment();
+            try {
+                Thread.sleep(backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+            } catch (InterruptedException e) {
+                return;
+            }
+            backoff = Math.min(MAX_BACKOFF_MS, backoff * 2);
+        }
+    }
+
+    private void apply(DataInputStream in) throws IOException {
+        while (true) {
+            ReplicationProtocol.Frame f = ReplicationProtocol.read(in);
+            long now = System.currentTimeMillis();
+            lastFrameMillis = now;
+            DataInputStream payload = new DataInputStream(new ByteArrayInputStream(f.payload()));
+            switch (f.type()) {
+                case ReplicationProtocol.HELLO, ReplicationProtocol.HEARTBEAT -> {
+                    long version = payload.readLong();
+                    if (f.type() == ReplicationProtocol.HELLO) {
+                        bootstrapIds = new HashSet<>();
+                        leaderVersion = version;   // a restarted leader starts over: don't keep the old one's
+                    } else {
+                        leaderVersion = Math.max(leaderVersion, version);
+                    }
+                    leaderVolunteerVersion = payload.readLong();
+                    if (f.type() == ReplicationProtocol.HEARTBEAT && appliedVersion >= leaderVersion) {
+                        lastLagMillis = 0;   // caught up: nothing is waiting to be applied
+                    }
+                }
+                case ReplicationProtocol.SERVICES ->
+                        listener.services(payload.readLong(), ReplicationProtocol.readServices(payload));
+                case ReplicationProtocol.VOLUNTEER -> {
+                    Volunteer v = ReplicationProtocol.readVolunteer(payload, services);
+                    volunteerIds.add(v.getId());
+                    if (bootstrapIds != null) bootstrapIds.add(v.getId());
+                    listener.volunteer(v);
+                    lastLagMillis = Math.max(0, now - f.sentAtMillis());
+                }
+                case ReplicationProtocol.VOLUNTEER_REMOVED -> {
+                    String id = payload.readUTF();
+                    volunteerIds.remove(id);
+                    listener.volunteerRemoved(id);
+                    lastLagMillis = Math.max(0, now - f.sentAtMillis());
+                }
+                case ReplicationProtocol.ASSIGNMENTS -> {
+                    AssignmentBatch batch = AssignmentBatch.decode(ByteBuffer.wrap(f.payload()));
+                    if (bootstrapIds != null) pruneAfterBootstrap();
+                    if (bootstrapped && batch.getVersion() <= appliedVersion) {
+                        continue;                           // covered by the bootstrap
+                    } else if (batch.getBaseVersion() != 0 && batch.getBaseVersion() != appliedVersion) {
+                        throw new IOException("gap: have v" + appliedVersion + ", batch is based on v"
+                                + batch.getBaseVersion());
+                    }
+                    listener.assignments(batch);
+                    appliedVersion = batch.getVersion();
+                    leaderVersion = Math.max(leaderVersion, appliedVersion);
+                    // base 0 is full state (or the first delta, from empty); set only once it is
+                    // applied, so isInSync() never reports a version that is not there yet
+                    if (batch.getBaseVersion() == 0) bootstrapped = true;
+                    lastLagMillis = Math.max(0, now - f.sentAtMillis());
+                }
+                default -> throw new IOException("unknown replication frame " + f.type());
+            }
+            framesApplied.increment();
+        }
+    }
+
+    /** Removes volunteers the bootstrap no longer had (they were removed while disconnected). */
+    private void pruneAfterBootstrap() {
+        for (Iterator<String> it = volunteerIds.iterator(); it.hasNext(); ) {
+            String id = it.next();
+            if (!bootstrapIds.contains(id)) {
+                it.remove();
+                listener.volunteerRemoved(id);
+            }
+        }
+        bootstrapIds = null;
+    }
+
+    /* ---------- status ---------- */
+
+    /** @return True once the current connection's bootstrap is applied. */
+    public boolean isInSync() {
+        return connected && bootstrapped;
+    }
+
+    /** @return The local assignment version. */
+    public long appliedVersion() {
+        return appliedVersion;
+    }
+
+    /** @return Leader assignment versions not applied here yet. */
+    public long lagVersions() {
+        return Math.max(0, leaderVersion - appliedVersion);
+    }
+
+    /** @return How old the newest applied event was when it was applied, in ms. */
+    public long lagMillis() {
+        return lastLagMillis;
+    }
+
+    /** @return Milliseconds since anything arrived from the leader (heartbeats come every second). */
+    public long silenceMillis() {
+        long last = lastFrameMillis;
+        return last == 0 ? -1 : System.currentTimeMillis() - last;
+    }
+
+    /** Appends connection state, lag and resync counters. */
+    public void writeTo(PrometheusText out) {
+        out.header("replication_connected", "gauge", "1 if the follower is connected and bootstrapped.");
+        out.sample("replication_connected", isInSync() ? 1 : 0);
+        out.header("replication_applied_version", "gauge", "Assignment version served by this follower.");
+        out.sample("replication_applied_version", appliedVersion);
+        out.header("replication_lag_versions", "gauge", "Leader assignment versions not applied here yet.");
+        out.sample("replication_lag_versions", lagVersions());
+        out.header("replication_lag_seconds", "gauge", "Age of the newest applied event when it was applied.");
+        out.sample("replication_lag_seconds", lastLagMillis / 1000.0);
+        out.header("replication_silence_seconds", "gauge", "Time since the last frame from the leader.");
+        out.sample("replication_silence_seconds", Math.max(0, silenceMillis()) / 1000.0);
+        out.header("replication_leader_volunteer_version", "gauge", "Volunteer-store version last reported by the leader.");
+        out.sample("replication_leader_volunteer_version", leaderVolunteerVersion);
+        out.header("replication_resyncs_total", "counter", "Reconnects (each followed by a full bootstrap).");
+        out.sample("replication_resyncs_total", resyncs.sum());
+        out.header("replication_frames_applied_total", "counter", "Frames applied from the leader.");
+        out.sample("replication_frames_applied_total", framesApplied.sum());
+    }
+}
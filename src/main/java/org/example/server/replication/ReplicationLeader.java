@@ -0,0 +1,276 @@
+package org.example.server.replication;
+
+import org.example.domain.AssignmentBatch;
+import org.example.domain.Volunteer;
+import org.example.server.log.AsyncLog;
+import org.example.server.metrics.PrometheusText;
+import org.example.server.store.AssignmentSnapshot;
+import org.example.server.store.ServiceCatalog;
+import org.example.server.store.VolunteerStore;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Leader side of replication: streams the assignment store, volunteer
+ * changes and the service catalog to followers ({@link ReplicationFollower}) over TCP, so reads can
+ * be served elsewhere while this node solves.
+ *
+ * Each event is encoded once and queued to every follower; a sender thread
+ * per follower drains its queue, so a slow follower never delays
+ * publishing. A follower whose live backlog exceeds {@link #MAX_BACKLOG}
+ * frames is disconnected; it reconnects and bootstraps again.
+ *
+ * Consistency: bootstrapping a follower and queueing events happen under
+ * one lock, so every event after the bootstrap snapshot reaches it. A
+ * volunteer event carries the volunteer's state at queueing time (not at
+ * write time), so concurrent writes to one volunteer still converge on
+ * its latest state. An assignment batch already covered by the bootstrap
+ * is skipped by the follower's version check.
+ */
+public final class ReplicationLeader implements Closeable {
+
+    /** Live frames a follower may lag behind before it is dropped. */
+    static final int MAX_BACKLOG = 10_000;
+
+    private static final AsyncLog LOG = AsyncLog.get("replication");
+
+    private final ServerSocket server;
+    private final Supplier<AssignmentSnapshot> assignments;
+    private final VolunteerStore volunteers;
+    private final ServiceCatalog catalog;
+    private final Set<Follower> followers = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService heartbeat;
+    private volatile boolean closed;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder bootstraps = new LongAdder();
+
+    /**
+     * Listens for followers on loopback {@code port} (0 = any free port).
+     *
+     * @param port        TCP port for followers.
+     * @param assignments The current assignment snapshot.
+     * @param volunteers  The volunteer store.
+     * @param catalog     The service catalog.
+     * @throws IOException if the port cannot be bound.
+     */
+    public ReplicationLeader(int port, Supplier<AssignmentSnapshot> assignments, VolunteerStore volunteers,
+                             ServiceCatalog catalog) throws IOException {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), assignments, volunteers, catalog);
+    }
+
+    /**
+     * Listens for followers on {@code address}. Followers receive every
+     * volunteer, so only bind where untrusted hosts cannot connect.
+     *
+     * @param address     Where followers connect to (port 0 = any free port).
+     * @param assignments The current assignment snapshot.
+     * @param volunteers  The volunteer store.
+     * @param catalog     The service catalog.
+     * @throws IOException if the address cannot be bound.
+     */
+    public ReplicationLeader(InetSocketAddress address, Supplier<AssignmentSnapshot> assignments,
+                             VolunteerStore volunteers, ServiceCatalog catalog) throws IOException {
+        this.assignments = assignments;
+        this.volunteers = volunteers;
+        this.catalog = catalog;
+        this.server = new ServerSocket();
+        this.server.setReuseAddress(true);
+        this.server.bind(address);
+
+        Thread t = new Thread(this::acceptLoop, "replication-accept");
+        t.setDaemon(true);
+        t.start();
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread h = new Thread(r, "replication-heartbeat");
+            h.setDaemon(true);
+            return h;
+        });
+        heartbeat.scheduleAtFixedRate(this::heartbeat, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /** @return The port followers connect to. */
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    /* ---------- events ---------- */
+
+    /**
+     * Streams a volunteer's current state (or its removal); call after each
+     * store write.
+     *
+     * @param volunteerId The volunteer that was written or removed.
+     */
+    public synchronized void volunteerChanged(String volunteerId) {
+        if (followers.isEmpty()) return;
+        Volunteer v = volunteers.get(volunteerId);
+        broadcast(v != null
+                ? ReplicationProtocol.frame(ReplicationProtocol.VOLUNTEER, ReplicationProtocol.volunteer(v))
+                : ReplicationProtocol.frame(ReplicationProtocol.VOLUNTEER_REMOVED,
+                        ReplicationProtocol.volunteerRemoved(volunteerId)));
+    }
+
+    /** Streams the current service catalog; call after each catalog change. */
+    public synchronized void servicesChanged() {
+        if (followers.isEmpty()) return;
+        broadcast(servicesFrame());
+    }
+
+    private byte[] servicesFrame() {
+        ServiceCatalog.Snapshot c = catalog.current();
+        return ReplicationProtocol.frame(ReplicationProtocol.SERVICES,
+                ReplicationProtocol.services(c.version(), c.services()));
+    }
+
+    /**
+     * Streams a published assignment batch; call in publish order.
+     *
+     * @param batch The delta just installed.
+     */
+    public synchronized void published(AssignmentBatch batch) {
+        if (followers.isEmpty()) return;
+        broadcast(ReplicationProtocol.frame(ReplicationProtocol.ASSIGNMENTS, batch.encode()));
+    }
+
+    private synchronized void heartbeat() {
+        if (followers.isEmpty()) return;
+        broadcast(ReplicationProtocol.frame(ReplicationProtocol.HEARTBEAT, ReplicationProtocol.versions(
+                assignments.get().version(), volunteers.snapshot().version(), -1)));
+    }
+
+    // guarded by this
+    private void broadcast(byte[] frame) {
+        for (Follower f : followers) {
+            if (!f.queue.offer(frame)) {
+                dropped.increment();
+                LOG.warn("follower %s fell %d frames behind; dropping it", f.name, f.queue.size());
+                f.close();
+            }
+        }
+    }
+
+    /* ---------- followers ---------- */
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket s = server.accept();
+                s.setTcpNoDelay(true);
+                bootstrap(s);
+            } catch (IOException e) {
+                if (!closed) LOG.warn("replication accept failed: %s", e.getMessage());
+            }
+        }
+    }
+
+    /** Queues the snapshot for a new follower and registers it, atomically with respect to events. */
+    private synchronized void bootstrap(Socket s) throws IOException {
+        VolunteerStore.Snapshot vols = volunteers.snapshot();
+        AssignmentSnapshot snap = assignments.get();
+
+        List<byte[]> frames = new ArrayList<>(vols.size() + 3);
+        frames.add(ReplicationProtocol.frame(ReplicationProtocol.HELLO,
+                ReplicationProtocol.versions(snap.version(), vols.version(), vols.size())));
+        frames.add(servicesFrame());   // first, so volunteers' preferences resolve
+        for (Volunteer v : vols) {
+            frames.add(ReplicationProtocol.frame(ReplicationProtocol.VOLUNTEER, ReplicationProtocol.volunteer(v)));
+        }
+        List<AssignmentBatch.Change> all = new ArrayList<>(snap.size());
+        snap.forEach((id, p) -> all.add(new AssignmentBatch.Change(id, p.serviceName())));
+        frames.add(ReplicationProtocol.frame(ReplicationProtocol.ASSIGNMENTS,
+                new AssignmentBatch(0, snap.version(), all).encode()));
+
+        Follower f = new Follower(s, frames.size() + MAX_BACKLOG);
+        f.queue.addAll(frames);
+        followers.add(f);
+        bootstraps.increment();
+        f.start();
+        LOG.info("follower %s bootstrapping at v%d (%d volunteers)", f.name, snap.version(), vols.size());
+    }
+
+    private final class Follower {
+        final String name;
+        final Socket socket;
+        final BlockingQueue<byte[]> queue;
+
+        Follower(Socket socket, int capacity) {
+            this.socket = socket;
+            this.name = String.valueOf(socket.getRemoteSocketAddress());
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        void start() {
+            Thread.ofVirtual().name("replication-send").start(() -> {
+                try (OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024)) {
+                    while (true) {
+                        byte[] frame = queue.take();
+                        out.write(frame);
+                        if (queue.isEmpty()) out.flush();
+                    }
+                } catch (IOException | InterruptedException e) {
+                    // follower gone (or dropped)
+                } finally {
+                    close();
+                }
+            });
+            // the follower never sends; reading only detects that it hung up
+            Thread.ofVirtual().name("replication-watch").start(() -> {
+                try {
+                    while (socket.getInputStream().read() >= 0) { /* ignore */ }
+                } catch (IOException ignored) {
+                    // closed
+                } finally {
+                    close();
+                }
+            });
+        }
+
+        void close() {
+            if (followers.remove(this)) LOG.info("follower %s disconnected", name);
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // already closed
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        heartbeat.shutdownNow();
+        server.close();
+        for (Follower f : followers) f.close();
+    }
+
+    /** Appends follower count, per-follower backlog, bootstraps and drops. */
+    public void writeTo(PrometheusText out) {
+        out.header("replication_followers", "gauge", "Followers connected to this leader.");
+        out.sample("replication_followers", followers.size());
+        out.header("replication_follower_backlog_frames", "gauge", "Frames queued for a follower.");
+        for (Follower f : followers) out.sample("replication_follower_backlog_frames", f.queue.size(), "follower", f.name);
+        out.header("replication_bootstraps_total", "counter", "Full snapshots sent to (re)connecting followers.");
+        out.sample("replication_bootstraps_total", bootstraps.sum());
+        out.header("replication_dropped_followers_total", "counter", "Followers dropped for falling too far behind.");
+        out.sample("replication_dropped_followers_total", dropped.sum());
+    }
+}
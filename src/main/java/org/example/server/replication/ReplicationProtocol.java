@@ -0,0 +1,144 @@
+package org.example.server.replication;
+
+import org.example.domain.Service;
+import org.example.domain.Volunteer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Frames of the leader → follower replication stream. Every frame is
+ * {@code type sentAtMillis length payload}; {@code sentAtMillis} is the
+ * leader's wall clock when the event happened, which the follower uses to
+ * measure its lag.
+ *
+ * A stream starts with a bootstrap: HELLO, the SERVICES catalog, one
+ * VOLUNTEER per stored volunteer, and one ASSIGNMENTS frame holding the
+ * complete state (an {@link org.example.domain.AssignmentBatch} with base
+ * version 0). Live SERVICES, VOLUNTEER, VOLUNTEER_REMOVED and ASSIGNMENTS
+ * (delta) frames follow, with a HEARTBEAT every second.
+ */
+final class ReplicationProtocol {
+
+    /** payload: long assignmentVersion, long volunteerVersion, int volunteers to follow. */
+    static final byte HELLO = 1;
+    /** payload: utf id, utf name, short count, count × utf service name. */
+    static final byte VOLUNTEER = 2;
+    /** payload: an encoded AssignmentBatch (base 0 = full state). */
+    static final byte ASSIGNMENTS = 3;
+    /** payload: long assignmentVersion, long volunteerVersion. */
+    static final byte HEARTBEAT = 4;
+    /** payload: long catalogVersion, short count, count × (utf name, int capacity). */
+    static final byte SERVICES = 5;
+    /** payload: utf id. */
+    static final byte VOLUNTEER_REMOVED = 6;
+
+    private static final int MAX_PAYLOAD = 256 << 20;
+
+    private ReplicationProtocol() {}
+
+    /** One received frame. */
+    record Frame(byte type, long sentAtMillis, byte[] payload) {}
+
+    static byte[] frame(byte type, byte[] payload) {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(payload.length + 13);
+        try (DataOutputStream out = new DataOutputStream(buf)) {
+            out.writeByte(type);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(payload.length);
+            out.write(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);   // in-memory stream
+        }
+        return buf.toByteArray();
+    }
+
+    static Frame read(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        long sentAt = in.readLong();
+        int length = in.readInt();
+        if (length < 0 || length > MAX_PAYLOAD) throw new IOException("bad frame length " + length);
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return new Frame(type, sentAt, payload);
+    }
+
+    static byte[] versions(long assignmentVersion, long volunteerVersion, int volunteers) {
+        return payload(out -> {
+            out.writeLong(assignmentVersion);
+            out.writeLong(volunteerVersion);
+            if (volunteers >= 0) out.writeInt(volunteers);
+        });
+    }
+
+    static byte[] volunteer(Volunteer v) {
+        return payload(out -> {
+            out.writeUTF(v.getId());
+            out.writeUTF(v.getName());
+            List<Service> prefs = v.getPreferences();
+            out.writeShort(prefs.size());
+            for (Service s : prefs) out.writeUTF(s.getName());
+        });
+    }
+
+    static byte[] volunteerRemoved(String volunteerId) {
+        return payload(out -> out.writeUTF(volunteerId));
+    }
+
+    static byte[] services(long version, List<Service> services) {
+        return payload(out -> {
+            out.writeLong(version);
+            out.writeShort(services.size());
+            for (Service s : services) {
+                out.writeUTF(s.getName());
+                out.writeInt(s.getCapacity());
+            }
+        });
+    }
+
+    /** Decodes a SERVICES payload after its version. */
+    static List<Service> readServices(DataInputStream in) throws IOException {
+        int n = in.readUnsignedShort();
+        List<Service> services = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) services.add(new Service(in.readUTF(), in.readInt()));
+        return services;
+    }
+
+    /**
+     * Decodes a VOLUNTEER payload.
+     *
+     * @param services Resolves service names on the follower.
+     */
+    static Volunteer readVolunteer(DataInputStream in, Function<String, Service> services) throws IOException {
+        String id = in.readUTF();
+        String name = in.readUTF();
+        int n = in.readUnsignedShort();
+        List<Service> prefs = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Service s = services.apply(in.readUTF());
+            if (s != null) prefs.add(s);
+        }
+        return new Volunteer(name, id, prefs);
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] payload(Writer w) {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(buf)) {
+            w.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buf.toByteArray();
+    }
+}
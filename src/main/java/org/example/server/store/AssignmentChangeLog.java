@@ -0,0 +1,115 @@
+package org.example.server.store;
+
+import org.example.domain.AssignmentBatch;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The most recent published batches, so a reconnecting subscriber can be
+ * sent only what it missed since the last version it saw instead of
+ * refetching everything.
+ *
+ * Bounded by the total number of changes held: the oldest batches are
+ * evicted first, and a subscriber whose version is older than what is left
+ * is told the log no longer covers it (it then needs the full state).
+ *
+ * Not thread-safe; the WebSocket fan-out thread owns it.
+ */
+public final class AssignmentChangeLog {
+
+    private final int maxChanges;
+    private final ArrayDeque<AssignmentBatch> batches = new ArrayDeque<>();
+    private int changes;
+    private long version;
+
+    /**
+     * @param maxChanges Changes to keep, over all batches (at least the newest batch is always kept).
+     */
+    public AssignmentChangeLog(int maxChanges) {
+        this.maxChanges = maxChanges;
+    }
+
+    /**
+     * Records a batch; batches must arrive in publish order.
+     *
+     * @param batch The batch just published.
+     */
+    public void append(AssignmentBatch batch) {
+        batches.addLast(batch);
+        changes += batch.getChanges().size();
+        version = batch.getVersion();
+        while (changes > maxChanges && batches.size() > 1) {
+            changes -= batches.removeFirst().getChanges().size();
+        }
+    }
+
+    /**
+     * Forgets every batch, for when versions restart under a new epoch;
+     * nothing held can then be replayed against the new versions.
+     */
+    public void clear() {
+        batches.clear();
+        changes = 0;
+        version = 0;
+    }
+
+    /** @return The version of the newest batch (0 if none yet). */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Whether every change after {@code sinceVersion} is still held. A
+     * version newer than the log's (a client of a previous server run) is
+     * not covered.
+     *
+     * @param sinceVersion The last version a subscriber saw.
+     */
+    public boolean covers(long sinceVersion) {
+        if (sinceVersion > version) return false;
+        AssignmentBatch oldest = batches.peekFirst();
+        return oldest == null || sinceVersion >= oldest.getBaseVersion();
+    }
+
+    /**
+     * Everything that changed after a version, one change per volunteer.
+     *
+     * @param sinceVersion The last version the subscriber saw; must be {@link #covers covered}.
+     * @return A batch from {@code sinceVersion} to {@link #version()} (possibly empty).
+     */
+    public AssignmentBatch since(long sinceVersion) {
+        Map<String, AssignmentBatch.Change> latest = new HashMap<>();
+        for (AssignmentBatch b : batches) {
+            if (b.getVersion() <= sinceVersion) continue;
+            for (AssignmentBatch.Change c : b.getChanges()) latest.put(c.volunteerId(), c);
+        }
+        return new AssignmentBatch(sinceVersion, version, latest.values());
+    }
+
+    /**
+     * One volunteer's last change after a version.
+     *
+     * @param volunteerId  The volunteer.
+     * @param sinceVersion The last version the subscriber saw; must be {@link #covers covered}.
+     * @return The change, or {@code null} if the volunteer did not change since.
+     */
+    public AssignmentBatch.Change latest(String volunteerId, long sinceVersion) {
+        for (Iterator<AssignmentBatch> it = batches.descendingIterator(); it.hasNext(); ) {
+            AssignmentBatch b = it.next();
+            if (b.getVersion() <= sinceVersion) break;
+            for (int i = b.getChanges().size() - 1; i >= 0; i--) {
+                AssignmentBatch.Change c = b.getChanges().get(i);
+                if (c.volunteerId().equals(volunteerId)) return c;
+            }
+        }
+        return null;
+    }
+
+    /** @return Changes currently held. */
+    public int size() {
+        return changes;
+    }
+}
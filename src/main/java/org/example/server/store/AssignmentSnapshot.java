@@ -0,0 +1,218 @@
+package org.example.server.store;
+
+import org.example.domain.Assignment;
+import org.example.domain.AssignmentBatch;
+import org.example.server.logic.AssignmentDiff;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * An immutable, versioned view of every published assignment.
+ *
+ * A new snapshot is built off to the side from the previous one plus a diff
+ * and then published with a single reference swap, so readers always see one
+ * complete result (never a half-applied mix) and never take a lock.
+ *
+ * Entries are keyed by the volunteer's dense int from an {@link IdInterner}
+ * and kept in a persistent 32-way trie like {@link VolunteerStore}'s, so
+ * there is no per-entry hash node or String key, and a publish copies only
+ * the nodes on the paths to the entries it changes: O(k log32 n) for k
+ * changes instead of a copy of every entry.
+ */
+public final class AssignmentSnapshot {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private final IdInterner ids;
+    private final long version;
+    private final Object[] root;     // inner nodes hold Object[] children, leaves hold entries; never written once published
+    private final int shift;         // bits consumed above the leaf level
+    private final int size;
+
+    private AssignmentSnapshot(IdInterner ids, long version, Object[] root, int shift, int size) {
+        this.ids = ids;
+        this.version = version;
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    /**
+     * The snapshot before any optimization has been published.
+     *
+     * @param ids The interner shared with the volunteer store.
+     * @return An empty snapshot at version 0.
+     */
+    public static AssignmentSnapshot empty(IdInterner ids) {
+        return new AssignmentSnapshot(ids, 0, null, BITS, 0);
+    }
+
+    /**
+     * Gets the result version of this snapshot.
+     *
+     * @return The version (0 before the first publish).
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Looks up one volunteer's published assignment.
+     *
+     * @param volunteerId The volunteer.
+     * @return The entry, or {@code null} if the volunteer has no assignment.
+     */
+    public PublishedAssignment get(String volunteerId) {
+        int dense = ids.lookup(volunteerId);
+        return dense == IdInterner.ABSENT ? null : find(root, shift, dense);
+    }
+
+    /**
+     * Gets the number of assigned volunteers.
+     *
+     * @return The entry count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Visits every entry, in dense-id order.
+     *
+     * @param action Called with each volunteer id and its entry.
+     */
+    public void forEach(BiConsumer<String, PublishedAssignment> action) {
+        if (root != null) visit(root, shift, action);
+    }
+
+    /**
+     * Gets volunteerId → assigned service name, as input for {@link AssignmentDiff}.
+     *
+     * @return A fresh map of service names.
+     */
+    public Map<String, String> serviceNames() {
+        Map<String, String> names = new HashMap<>(size * 2);
+        forEach((id, p) -> names.put(id, p.serviceName()));
+        return names;
+    }
+
+    /**
+     * Builds the next snapshot by applying a diff. Added and moved volunteers
+     * get the new version; everyone else keeps their entry (and ETag).
+     *
+     * @param newVersion The version of the new snapshot.
+     * @param diff       Changes relative to this snapshot.
+     * @return A new snapshot; this one is left untouched.
+     */
+    public AssignmentSnapshot apply(long newVersion, AssignmentDiff diff) {
+        Builder next = new Builder(root, shift, size);
+        for (Assignment a : diff.getAdded()) {
+            next.set(ids.intern(a.getVolunteer().getId()), PublishedAssignment.of(a, newVersion));
+        }
+        for (Assignment a : diff.getMoved()) {
+            next.set(ids.intern(a.getVolunteer().getId()), PublishedAssignment.of(a, newVersion));
+        }
+        for (String id : diff.getRemoved()) {
+            int dense = ids.lookup(id);
+            if (dense != IdInterner.ABSENT) next.set(dense, null);
+        }
+        return new AssignmentSnapshot(ids, newVersion, next.root, next.shift, next.size);
+    }
+
+    /**
+     * Builds the next snapshot from replicated changes (a follower has the
+     * leader's batches, not its diffs). Changed volunteers get the new version.
+     *
+     * @param newVersion The version of the new snapshot.
+     * @param changes    New service per volunteer ({@code null} service = removed).
+     * @param resolve    Builds the assignment for a volunteer id and service name.
+     * @return A new snapshot; this one is left untouched.
+     */
+    public AssignmentSnapshot apply(long newVersion, Collection<AssignmentBatch.Change> changes,
+                                    BiFunction<String, String, Assignment> resolve) {
+        Builder next = new Builder(root, shift, size);
+        for (AssignmentBatch.Change c : changes) {
+            if (c.service() != null) {
+                next.set(ids.intern(c.volunteerId()),
+                        PublishedAssignment.of(resolve.apply(c.volunteerId(), c.service()), newVersion));
+            } else {
+                int dense = ids.lookup(c.volunteerId());
+                if (dense != IdInterner.ABSENT) next.set(dense, null);    // removal of an unknown id
+            }
+        }
+        return new AssignmentSnapshot(ids, newVersion, next.root, next.shift, next.size);
+    }
+
+    private static PublishedAssignment find(Object[] node, int shift, int dense) {
+        if (node == null || (dense >>> shift) >= WIDTH) return null;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(dense >>> level) & MASK];
+            if (node == null) return null;
+        }
+        return (PublishedAssignment) node[dense & MASK];
+    }
+
+    private static void visit(Object[] node, int level, BiConsumer<String, PublishedAssignment> action) {
+        for (Object child : node) {
+            if (child == null) continue;
+            if (level == 0) {
+                PublishedAssignment p = (PublishedAssignment) child;
+                action.accept(p.assignment().getVolunteer().getId(), p);
+            } else {
+                visit((Object[]) child, level - BITS, action);
+            }
+        }
+    }
+
+    /**
+     * Path copy for one publish. A node is copied the first time a change
+     * reaches it and written in place after that, so changes that share a
+     * path share the copy; nodes of the source snapshot are never written.
+     */
+    private static final class Builder {
+        private final Set<Object[]> copied = Collections.newSetFromMap(new IdentityHashMap<>());
+        private Object[] root;
+        private int shift;
+        private int size;
+
+        Builder(Object[] root, int shift, int size) {
+            this.root = root;
+            this.shift = shift;
+            this.size = size;
+        }
+
+        /** Places (or with {@code null}, clears) the entry at {@code dense}. */
+        void set(int dense, PublishedAssignment p) {
+            if (p == null && find(root, shift, dense) == null) return;   // nothing to remove
+            while ((dense >>> shift) >= WIDTH) {      // grow the trie by one level
+                Object[] up = own(null);
+                up[0] = root;
+                root = up;
+                shift += BITS;
+            }
+            root = own(root);
+            Object[] node = root;
+            for (int level = shift; level > 0; level -= BITS) {
+                int i = (dense >>> level) & MASK;
+                Object[] child = own((Object[]) node[i]);
+                node[i] = child;
+                node = child;
+            }
+            int i = dense & MASK;
+            size += (p != null ? 1 : 0) - (node[i] != null ? 1 : 0);
+            node[i] = p;
+        }
+
+        /** The node itself if this build already copied it, else a fresh copy. */
+        private Object[] own(Object[] node) {
+            if (node != null && copied.contains(node)) return node;
+            Object[] copy = (node == null) ? new Object[WIDTH] : node.clone();
+            copied.add(copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package org.example.server.store;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps external volunteer ids to dense ints (0, 1, 2, ...) so that the
+ * stores behind them can be plain arrays instead of String-keyed hash maps.
+ *
+ * Client ids look like {@code "vol" + System.nanoTime()}; for those the
+ * digits are parsed into a {@code long} and looked up in a primitive
+ * open-addressing table, so a lookup never hashes or compares Strings.
+ * Any other id shape falls back to a ConcurrentHashMap.
+ *
+ * Interning new ids is serialized; lookups are lock-free. A reader that
+ * races with a table resize may have probed the table being replaced, so a
+ * miss is re-probed against the current table if the reference changed;
+ * ordinary misses cost one probe and take no lock.
+ */
+public final class IdInterner {
+
+    /** Returned by {@link #lookup(String)} for ids that were never interned. */
+    public static final int ABSENT = -1;
+
+    private static final String NUMERIC_PREFIX = "vol";
+    private static final long EMPTY = Long.MIN_VALUE;   // parsed ids are never negative
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /** Open-addressing table: long key → dense int, linear probing. */
+    private static final class Table {
+        final long[] keys;
+        final int[] values;
+        final int mask;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new int[capacity];
+            mask = capacity - 1;
+            Arrays.fill(keys, EMPTY);
+        }
+    }
+
+    private volatile Table table = new Table(1024);
+    private int tableSize;                               // guarded by this
+
+    private final Map<String, Integer> others = new ConcurrentHashMap<>();
+
+    // dense int → external id; replaced (never shrunk) when it grows
+    private volatile String[] external = new String[1024];
+    private volatile int count;
+
+    /**
+     * Returns the dense int for an id, assigning the next one if it is new.
+     *
+     * @param id The external id.
+     * @return Its dense int.
+     */
+    public int intern(String id) {
+        int found = find(id);
+        if (found != ABSENT) return found;
+
+        synchronized (this) {
+            found = find(id);
+            if (found != ABSENT) return found;
+
+            int dense = count;
+            if (dense == external.length) {
+                external = Arrays.copyOf(external, dense * 2);
+            }
+            external[dense] = id;
+
+            long key = numericKey(id);
+            if (key != EMPTY) {
+                if ((tableSize + 1) * 2 > table.keys.length) resize();
+                insert(table, key, dense);
+                tableSize++;
+            } else {
+                others.put(id, dense);
+            }
+            count = dense + 1;
+            return dense;
+        }
+    }
+
+    /**
+     * Looks up an id without interning it.
+     *
+     * @param id The external id.
+     * @return Its dense int, or {@link #ABSENT}.
+     */
+    public int lookup(String id) {
+        long key = numericKey(id);
+        if (key == EMPTY) return others.getOrDefault(id, ABSENT);
+        Table t;
+        int found;
+        do {
+            t = table;
+            found = find(t, key);
+        } while (found == ABSENT && t != table);   // replaced while we probed: probe the new one
+        return found;
+    }
+
+    /**
+     * Maps a dense int back to the external id.
+     *
+     * @param dense A value returned by {@link #intern(String)}.
+     * @return The external id.
+     */
+    public String externalId(int dense) {
+        return external[dense];
+    }
+
+    /**
+     * Gets the number of interned ids; dense ints are {@code 0 .. size()-1}.
+     *
+     * @return The id count.
+     */
+    public int size() {
+        return count;
+    }
+
+    /* ---------- internals ---------- */
+
+    private int find(String id) {
+        long key = numericKey(id);
+        return key != EMPTY ? find(table, key) : others.getOrDefault(id, ABSENT);
+    }
+
+    private static int find(Table t, long key) {
+        for (int i = slot(key, t.mask); ; i = (i + 1) & t.mask) {
+            long k = (long) KEYS.getAcquire(t.keys, i);
+            if (k == key) return t.values[i];
+            if (k == EMPTY) return ABSENT;
+        }
+    }
+
+    private static void insert(Table t, long key, int value) {
+        int i = slot(key, t.mask);
+        while (t.keys[i] != EMPTY) i = (i + 1) & t.mask;
+        t.values[i] = value;
+        KEYS.setRelease(t.keys, i, key);   // value is visible before the key
+    }
+
+    private void resize() {
+        Table old = table;
+        Table bigger = new Table(old.keys.length * 2);
+        for (int i = 0; i < old.keys.length; i++) {
+            if (old.keys[i] != EMPTY) insert(bigger, old.keys[i], old.values[i]);
+        }
+        table = bigger;
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;       // Fibonacci hashing spreads sequential ids
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * Parses {@code "vol<digits>"} into a long, or returns {@link #EMPTY} for any
+     * other shape (including digit strings that would not round-trip).
+     */
+    private static long numericKey(String id) {
+        int n = id.length();
+        int start = NUMERIC_PREFIX.length();
+        if (n <= start || n > start + 18 || !id.startsWith(NUMERIC_PREFIX)) return EMPTY;
+        if (id.charAt(start) == '0' && n > start + 1) return EMPTY;   // leading zeros
+
+        long v = 0;
+        for (int i = start; i < n; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') return EMPTY;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.server.store;
+
+import org.example.domain.Assignment;
+import org.example.server.network.JsonCodec;
+
+/**
+ * A stored assignment plus the result version it was published in, with its
+ * ETag and GET /assignment response body encoded once at publish time so that
+ * reads are a lookup and a single write.
+ *
+ * @param assignment the volunteer's assignment
+ * @param version    result version in which this assignment last changed
+ * @param etag       quoted strong ETag for {@code version}
+ * @param body       UTF-8 JSON response body
+ */
+public record PublishedAssignment(Assignment assignment, long version, String etag, byte[] body) {
+
+    /**
+     * Identifies this server run's version sequence. Versions restart with
+     * the process (and, on a follower, with its leader), so ETags and
+     * WebSocket resume points carry the epoch to keep a version from an
+     * earlier sequence from matching one from this one.
+     */
+    private static volatile long epoch = System.currentTimeMillis();
+
+    /** @return The current epoch. */
+    public static long epoch() {
+        return epoch;
+    }
+
+    /**
+     * Starts a new epoch, for when published versions are about to go
+     * backwards (a follower bootstrapping from a restarted leader). Entries
+     * encoded before keep their old ETag.
+     *
+     * @return The new epoch.
+     */
+    public static synchronized long newEpoch() {
+        epoch = Math.max(System.currentTimeMillis(), epoch + 1);
+        return epoch;
+    }
+
+    /**
+     * Encodes an assignment for publication.
+     *
+     * @param a       The assignment.
+     * @param version The result version it is published in.
+     * @return The pre-encoded entry.
+     */
+    public static PublishedAssignment of(Assignment a, long version) {
+        byte[] body = JsonCodec.assignmentBody(a.getService().getName());
+        return new PublishedAssignment(a, version, etagFor(version), body);
+    }
+
+    /**
+     * Quoted strong ETag for a version in the current epoch, {@code "<epoch>-<version>"}.
+     *
+     * @param version The version.
+     * @return The ETag, e.g. {@code "1718000000000-42"} including the quotes.
+     */
+    public static String etagFor(long version) {
+        return "\"" + epoch + "-" + version + "\"";
+    }
+
+    /**
+     * Gets the name of the assigned service.
+     *
+     * @return The service name.
+     */
+    public String serviceName() {
+        return assignment.getService().getName();
+    }
+}
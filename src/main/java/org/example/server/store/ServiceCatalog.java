@@ -0,0 +1,114 @@
+package org.example.server.store;
+
+import org.example.domain.Service;
+import org.example.server.network.JsonCodec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The services volunteers can be assigned to, changeable at runtime.
+ *
+ * Copy-on-write like {@link AssignmentSnapshot}: every change builds a new
+ * immutable {@link Snapshot} (with its name index and GET /services body
+ * encoded once) and publishes it with one reference swap, so readers never
+ * lock. Writers are serialized.
+ *
+ * {@link Service} is immutable, so a capacity change replaces the instance.
+ * Volunteers keep the instances they were stored with; the optimizer matches
+ * preferences to the current services by name.
+ */
+public final class ServiceCatalog {
+
+    /**
+     * One version of the catalog.
+     *
+     * @param version  increases with every change
+     * @param services the services, in the order they were added
+     * @param byName   service name → service
+     * @param index    byte-level index for parsing preferences
+     * @param body     UTF-8 GET /services response body
+     */
+    public record Snapshot(long version, List<Service> services, Map<String, Service> byName,
+                           JsonCodec.ServiceIndex index, byte[] body) {
+
+        /** @return The service with this name, or {@code null}. */
+        public Service get(String name) {
+            return byName.get(name);
+        }
+
+        /** @return The quoted strong ETag of this version, e.g. {@code "1718000000000-3"}. */
+        public String etag() {
+            return PublishedAssignment.etagFor(version);
+        }
+
+        static Snapshot of(long version, List<Service> services) {
+            List<Service> list = Collections.unmodifiableList(new ArrayList<>(services));
+            Map<String, Service> byName = new HashMap<>(list.size() * 2);
+            for (Service s : list) byName.put(s.getName(), s);
+            return new Snapshot(version, list, Collections.unmodifiableMap(byName),
+                    new JsonCodec.ServiceIndex(list), JsonCodec.servicesBody(version, list));
+        }
+    }
+
+    private volatile Snapshot current;
+
+    /**
+     * @param initial The services at startup (version 1).
+     */
+    public ServiceCatalog(List<Service> initial) {
+        this.current = Snapshot.of(1, initial);
+    }
+
+    /** @return The current catalog; never changes once returned. */
+    public Snapshot current() {
+        return current;
+    }
+
+    /**
+     * Adds a service.
+     *
+     * @param name     The new service's name.
+     * @param capacity Its capacity.
+     * @return The new catalog, or {@code null} if a service with that name exists.
+     */
+    public synchronized Snapshot add(String name, int capacity) {
+        Snapshot c = current;
+        if (c.byName().containsKey(name)) return null;
+        List<Service> next = new ArrayList<>(c.services());
+        next.add(new Service(name, capacity));
+        current = Snapshot.of(c.version() + 1, next);
+        return current;
+    }
+
+    /**
+     * Changes a service's capacity.
+     *
+     * @param name     The service.
+     * @param capacity The new capacity.
+     * @return The service as it was before, or {@code null} if there is no such service.
+     */
+    public synchronized Service setCapacity(String name, int capacity) {
+        Snapshot c = current;
+        Service before = c.get(name);
+        if (before == null) return null;
+        if (before.getCapacity() == capacity) return before;
+        List<Service> next = new ArrayList<>(c.services());
+        next.set(next.indexOf(before), new Service(name, capacity));
+        current = Snapshot.of(c.version() + 1, next);
+        return before;
+    }
+
+    /**
+     * Replaces the whole catalog (a follower installing the leader's).
+     *
+     * @param version  The leader's catalog version.
+     * @param services The leader's services.
+     */
+    public synchronized void replace(long version, List<Service> services) {
+        current = Snapshot.of(version, services);
+    }
+}
@@ -0,0 +1,229 @@
+package org.example.server.store;
+
+import org.example.domain.Volunteer;
+
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * volunteerId → Volunteer, keyed by the dense ints handed out by an
+ * {@link IdInterner} and stored in a persistent (structurally shared)
+ * 32-way trie.
+ *
+ * A write copies only the O(log32 n) nodes on the path to its slot and
+ * installs the new root with a CAS, so writers never lock and never block
+ * readers. {@link #snapshot()} just reads the current root: it is O(1) and
+ * gives the optimizer a consistent point-in-time view that later
+ * /preferences writes cannot disturb.
+ */
+public final class VolunteerStore {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private final IdInterner ids;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(new Snapshot(null, BITS, 0, 0));
+
+    /**
+     * Constructs an empty store.
+     *
+     * @param ids The interner that maps external ids to slots.
+     */
+    public VolunteerStore(IdInterner ids) {
+        this.ids = ids;
+    }
+
+    /**
+     * Stores (or replaces) a volunteer.
+     *
+     * @param v The volunteer; its id is interned if new.
+     */
+    public void put(Volunteer v) {
+        int dense = ids.intern(v.getId());
+        Snapshot s, next;
+        do {
+            s = current.get();
+            next = s.with(dense, v);
+        } while (!current.compareAndSet(s, next));
+    }
+
+    /**
+     * Removes a volunteer. Its id stays interned, so a later {@link #put}
+     * reuses the slot.
+     *
+     * @param volunteerId The external id.
+     * @return The removed volunteer, or {@code null} if there was none.
+     */
+    public Volunteer remove(String volunteerId) {
+        int dense = ids.lookup(volunteerId);
+        if (dense == IdInterner.ABSENT) return null;
+        Snapshot s, next;
+        Volunteer removed;
+        do {
+            s = current.get();
+            removed = s.get(dense);
+            if (removed == null) return null;
+            next = s.without(dense);
+        } while (!current.compareAndSet(s, next));
+        return removed;
+    }
+
+    /**
+     * Looks up a volunteer in the current state.
+     *
+     * @param volunteerId The external id.
+     * @return The volunteer, or {@code null}.
+     */
+    public Volunteer get(String volunteerId) {
+        int dense = ids.lookup(volunteerId);
+        return dense == IdInterner.ABSENT ? null : current.get().get(dense);
+    }
+
+    /**
+     * Gets a consistent point-in-time view of every volunteer in O(1).
+     *
+     * @return An immutable snapshot.
+     */
+    public Snapshot snapshot() {
+        return current.get();
+    }
+
+    /**
+     * Gets the number of stored volunteers.
+     *
+     * @return The count.
+     */
+    public int size() {
+        return current.get().size();
+    }
+
+    /**
+     * An immutable version of the store. Iterates in dense-id order.
+     */
+    public static final class Snapshot extends AbstractCollection<Volunteer> {
+        private final Object[] root;    // inner nodes hold Object[] children, leaves hold Volunteers
+        private final int shift;        // bits consumed above the leaf level
+        private final int size;
+        private final long version;     // bumped on every write
+
+        private Snapshot(Object[] root, int shift, int size, long version) {
+            this.root = root;
+            this.shift = shift;
+            this.size = size;
+            this.version = version;
+        }
+
+        /**
+         * Gets the write count this snapshot reflects; a newer snapshot of the
+         * same store always has a larger version.
+         *
+         * @return The data version.
+         */
+        public long version() {
+            return version;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Looks up a volunteer by dense id.
+         *
+         * @param dense The interned id.
+         * @return The volunteer, or {@code null}.
+         */
+        public Volunteer get(int dense) {
+            if (root == null || (dense >>> shift) >= WIDTH) return null;
+            Object[] node = root;
+            for (int level = shift; level > 0; level -= BITS) {
+                node = (Object[]) node[(dense >>> level) & MASK];
+                if (node == null) return null;
+            }
+            return (Volunteer) node[dense & MASK];
+        }
+
+        private Snapshot with(int dense, Volunteer v) {
+            Object[] r = root;
+            int sh = shift;
+            while ((dense >>> sh) >= WIDTH) {      // grow the trie by one level
+                Object[] up = new Object[WIDTH];
+                up[0] = r;
+                r = up;
+                sh += BITS;
+            }
+            boolean added = get(dense) == null;
+            return new Snapshot(assoc(r, sh, dense, v), sh, added ? size + 1 : size, version + 1);
+        }
+
+        private Snapshot without(int dense) {
+            return new Snapshot(assoc(root, shift, dense, null), shift, size - 1, version + 1);
+        }
+
+        /** Path copy: returns a new node with {@code v} placed at {@code dense}. */
+        private static Object[] assoc(Object[] node, int level, int dense, Volunteer v) {
+            Object[] copy = (node == null) ? new Object[WIDTH] : node.clone();
+            int i = (dense >>> level) & MASK;
+            if (level == 0) {
+                copy[i] = v;
+            } else {
+                copy[i] = assoc((Object[]) copy[i], level - BITS, dense, v);
+            }
+            return copy;
+        }
+
+        @Override
+        public Iterator<Volunteer> iterator() {
+            return new Iterator<>() {
+                // depth-first over non-empty nodes; each frame is {node, level, nextIndex}
+                private final ArrayDeque<Object[]> stack = new ArrayDeque<>();
+                private Volunteer next;
+
+                {
+                    if (root != null) stack.push(new Object[]{root, shift, 0});
+                    advance();
+                }
+
+                private void advance() {
+                    next = null;
+                    while (!stack.isEmpty()) {
+                        Object[] frame = stack.peek();
+                        Object[] node = (Object[]) frame[0];
+                        int level = (int) frame[1];
+                        int i = (int) frame[2];
+                        if (i == WIDTH) {
+                            stack.pop();
+                            continue;
+                        }
+                        frame[2] = i + 1;
+                        Object child = node[i];
+                        if (child == null) continue;
+                        if (level == 0) {
+                            next = (Volunteer) child;
+                            return;
+                        }
+                        stack.push(new Object[]{child, level - BITS, 0});
+                    }
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public Volunteer next() {
+                    if (next == null) throw new NoSuchElementException();
+                    Volunteer v = next;
+                    advance();
+                    return v;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.bench;
+
+import com.google.gson.Gson;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Microbenchmark: bytes allocated per GET /assignment response body, comparing
+ * the old per-request encoding (Map.of + Gson + UTF-8) with the cached
+ * byte[] stored at publish time.
+ *
+ * Not a unit test (surefire only runs *Test classes). Run after
+ * {@code mvn test-compile} with:
+ * <pre>
+ *   java -cp target/classes:target/test-classes:&lt;gson.jar&gt; org.example.bench.AssignmentResponseBench
+ * </pre>
+ */
+public class AssignmentResponseBench {
+
+    private static final Gson G = new Gson();
+    private static final int VOLUNTEERS = 10_000;
+    private static final int REQUESTS = 2_000_000;
+
+    // keeps results reachable so the JIT cannot drop the work
+    private static long sink;
+
+    public static void main(String[] args) {
+        String[] services = {"Soup Kitchen", "Animal Shelter", "Senior Care", "Beach Cleanup"};
+        Map<String, String> assigned = new ConcurrentHashMap<>();
+        Map<String, byte[]> cached = new ConcurrentHashMap<>();
+        String[] ids = new String[VOLUNTEERS];
+        for (int i = 0; i < VOLUNTEERS; i++) {
+            ids[i] = "vol" + (1_700_000_000_000L + i * 7919L);
+            String svc = services[i % services.length];
+            assigned.put(ids[i], svc);
+            cached.put(ids[i], G.toJson(Map.of("assignment", svc)).getBytes(StandardCharsets.UTF_8));
+        }
+
+        for (int round = 0; round < 3; round++) {   // first rounds are warm-up
+            report("per-request Gson", measure(() -> {
+                for (int i = 0; i < REQUESTS; i++) {
+                    String svc = assigned.get(ids[i % VOLUNTEERS]);
+                    byte[] out = G.toJson(Map.of("assignment", svc)).getBytes(StandardCharsets.UTF_8);
+                    sink += out.length;
+                }
+            }));
+            report("cached byte[]   ", measure(() -> {
+                for (int i = 0; i < REQUESTS; i++) {
+                    byte[] out = cached.get(ids[i % VOLUNTEERS]);
+                    sink += out.length;
+                }
+            }));
+        }
+        System.out.println("(sink " + sink + ")");
+    }
+
+    private record Result(long bytes, long nanos) {}
+
+    private static Result measure(Runnable body) {
+        com.sun.management.ThreadMXBean mx =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().threadId();
+        long a0 = mx.getThreadAllocatedBytes(tid);
+        long t0 = System.nanoTime();
+        body.run();
+        long t1 = System.nanoTime();
+        return new Result(mx.getThreadAllocatedBytes(tid) - a0, t1 - t0);
+    }
+
+    private static void report(String name, Result r) {
+        System.out.printf("%s: %8.1f bytes/request, %6.1f ns/request%n",
+                name, (double) r.bytes() / REQUESTS, (double) r.nanos() / REQUESTS);
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.bench;
+
+import org.example.domain.Assignment;
+import org.example.domain.Service;
+import org.example.domain.Volunteer;
+import org.example.server.cluster.ClusterCoordinator;
+import org.example.server.cluster.ClusterWorker;
+import org.example.server.logic.ApplicationLogic;
+import org.example.server.logic.GeneticAlgorithm;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distributed optimization on one box: spawns worker JVMs
+ * ({@link ClusterWorker}) against an in-process coordinator and compares a
+ * large event's result cost and run time with a local-only run. The last
+ * run kills one worker JVM part-way through to show the coordinator
+ * carries on without it.
+ *
+ * Not a unit test (surefire only runs *Test classes). Run after
+ * {@code mvn test-compile} with:
+ * <pre>
+ *   java -cp target/classes:target/test-classes org.example.bench.ClusterBench [workers=3] [volunteers=300]
+ * </pre>
+ */
+public class ClusterBench {
+
+    public static void main(String[] args) throws Exception {
+        int workerCount = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int volunteerCount = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+
+        Random rnd = new Random(42);
+        List<Service> services = new ArrayList<>();
+        for (int i = 0; i < 40; i++) services.add(new Service("Service " + i, volunteerCount / 40 + 2));
+        List<Volunteer> volunteers = new ArrayList<>();
+        for (int i = 0; i < volunteerCount; i++) {
+            List<Service> prefs = new ArrayList<>();
+            while (prefs.size() < 3) {
+                Service s = services.get((int) Math.min(services.size() - 1, Math.abs(rnd.nextGaussian()) * 10));
+                if (!prefs.contains(s)) prefs.add(s);
+            }
+            volunteers.add(new Volunteer("V" + i, "vol" + i, prefs));
+        }
+
+        report("local only", new ApplicationLogic(), volunteers, services);
+
+        try (ClusterCoordinator coordinator = new ClusterCoordinator(0, 10_000)) {
+            List<Process> workers = new ArrayList<>();
+            String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+            for (int i = 0; i < workerCount; i++) {
+                workers.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        ClusterWorker.class.getName(), "localhost:" + coordinator.port(), "jvm-" + (i + 1))
+                        .redirectErrorStream(true)
+                        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                        .start());
+            }
+            long end = System.currentTimeMillis() + 15_000;
+            while (coordinator.workers() < workerCount && System.currentTimeMillis() < end) Thread.sleep(50);
+            System.out.printf("%d worker JVMs connected%n", coordinator.workers());
+
+            ApplicationLogic distributed = new ApplicationLogic(coordinator);
+            report("distributed", distributed, volunteers, services);
+
+            ScheduledExecutorService killer = Executors.newSingleThreadScheduledExecutor();
+            killer.schedule(() -> workers.get(0).destroyForcibly(), 300, TimeUnit.MILLISECONDS);
+            report("distributed, one JVM killed at 300 ms", distributed, volunteers, services);
+            System.out.printf("workers connected %d, lost %d, solutions received %d%n",
+                    coordinator.workers(), coordinator.workersLost(), coordinator.solutionsReceived());
+
+            killer.shutdown();
+            workers.forEach(Process::destroy);
+        }
+    }
+
+    private static void report(String label, ApplicationLogic logic, List<Volunteer> vols, List<Service> services) {
+        long t0 = System.nanoTime();
+        List<Assignment> result = logic.runOptimization(vols, services);
+        System.out.printf("%-40s cost=%-6d assigned=%d  %.0f ms%n", label, GeneticAlgorithm.costOf(result),
+                result.size(), (System.nanoTime() - t0) / 1e6);
+    }
+}
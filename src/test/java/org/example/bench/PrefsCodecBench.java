@@ -0,0 +1,108 @@
+package org.example.bench;
+
+import com.google.gson.Gson;
+import org.example.domain.Service;
+import org.example.server.network.JsonCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Compares decoding a POST /preferences body and encoding a GET /assignment
+ * body with the previous Gson path against JsonCodec: time and bytes
+ * allocated per operation.
+ *
+ * JMH is not part of this build, so this is a plain warm-up-then-measure
+ * harness. Run after {@code mvn test-compile} with:
+ * <pre>
+ *   java -cp target/classes:target/test-classes:&lt;gson.jar&gt; org.example.bench.PrefsCodecBench
+ * </pre>
+ */
+public class PrefsCodecBench {
+
+    private static final Gson G = new Gson();
+    private static final int OPS = 1_000_000;
+
+    private static final List<Service> SERVICES = List.of(
+            new Service("Soup Kitchen", 6), new Service("Animal Shelter", 4),
+            new Service("Senior Care", 4), new Service("Airport Greeter", 3),
+            new Service("Hackathon Mentor", 4), new Service("Beach Cleanup", 6),
+            new Service("Community Garden", 5), new Service("Library Assistant", 4),
+            new Service("Youth Mentor", 4), new Service("Disaster Relief", 3));
+
+    private static final byte[] BODY = ("{\"volunteerId\":\"vol1718000000123456\",\"name\":\"Alex\","
+            + "\"prefs\":[\"Soup Kitchen\",\"Beach Cleanup\",\"Animal Shelter\","
+            + "\"Community Garden\",\"Youth Mentor\"]}").getBytes(StandardCharsets.UTF_8);
+
+    private record Payload(String volunteerId, String name, List<String> prefs) {}
+
+    private static long sink;
+
+    public static void main(String[] args) throws IOException {
+        JsonCodec.ServiceIndex index = new JsonCodec.ServiceIndex(SERVICES);
+
+        for (int round = 0; round < 3; round++) {   // first rounds are warm-up
+            System.out.println("round " + round);
+            report("decode /preferences  Gson   ", measure(() -> {
+                for (int i = 0; i < OPS; i++) {
+                    String json = new String(new ByteArrayInputStream(BODY).readAllBytes(),
+                            StandardCharsets.UTF_8);
+                    Payload p = G.fromJson(json, Payload.class);
+                    Map<String, Service> byName = SERVICES.stream()
+                            .collect(Collectors.toMap(Service::getName, s -> s));
+                    List<Service> prefs = new ArrayList<>();
+                    for (String name : p.prefs()) {
+                        Service s = byName.get(name);
+                        if (s != null) prefs.add(s);
+                    }
+                    sink += prefs.size();
+                }
+            }));
+            report("decode /preferences  codec  ", measure(() -> {
+                for (int i = 0; i < OPS; i++) {
+                    try {
+                        sink += JsonCodec.readPrefs(new ByteArrayInputStream(BODY), index).prefs().size();
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }));
+            report("encode /assignment   Gson   ", measure(() -> {
+                for (int i = 0; i < OPS; i++) {
+                    sink += G.toJson(Map.of("assignment", "Community Garden"))
+                            .getBytes(StandardCharsets.UTF_8).length;
+                }
+            }));
+            report("encode /assignment   codec  ", measure(() -> {
+                for (int i = 0; i < OPS; i++) {
+                    sink += JsonCodec.assignmentBody("Community Garden").length;
+                }
+            }));
+        }
+        System.out.println("(sink " + sink + ")");
+    }
+
+    private record Result(long bytes, long nanos) {}
+
+    private static Result measure(Runnable body) {
+        com.sun.management.ThreadMXBean mx =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().threadId();
+        long a0 = mx.getThreadAllocatedBytes(tid);
+        long t0 = System.nanoTime();
+        body.run();
+        long t1 = System.nanoTime();
+        return new Result(mx.getThreadAllocatedBytes(tid) - a0, t1 - t0);
+    }
+
+    private static void report(String name, Result r) {
+        System.out.printf("  %s: %7.1f ns/op, %7.1f bytes/op%n",
+                name, (double) r.nanos() / OPS, (double) r.bytes() / OPS);
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.bench;
+
+import org.example.server.store.IdInterner;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimates the heap used to index one million volunteers in the two server
+ * stores (volunteers and assignments): two String-keyed ConcurrentHashMaps
+ * versus one shared IdInterner plus two dense arrays. The id Strings and the
+ * stored values exist in both setups and are excluded.
+ *
+ * Run with a fixed heap so the numbers are stable, e.g.
+ * <pre>
+ *   java -Xms2g -Xmx2g -cp target/classes:target/test-classes org.example.bench.StoreFootprintBench
+ * </pre>
+ */
+public class StoreFootprintBench {
+
+    private static final int N = 1_000_000;
+
+    // holds each structure while it is measured so the JIT cannot consider it dead
+    private static Object keepAlive;
+
+    public static void main(String[] args) {
+        String[] ids = new String[N];
+        for (int i = 0; i < N; i++) ids[i] = "vol" + (1_700_000_000_000_000L + i * 7919L);
+        Object value = new Object();
+
+        long base = usedHeap();
+        Map<String, Object> chm = new ConcurrentHashMap<>();
+        Map<String, Object> chm2 = new ConcurrentHashMap<>();
+        for (String id : ids) {
+            chm.put(id, value);
+            chm2.put(id, value);
+        }
+        keepAlive = new Object[]{chm, chm2};
+        long chmBytes = usedHeap() - base;
+        System.out.printf("2 x ConcurrentHashMap<String,V> : %6.1f MB (%.1f bytes/volunteer)%n",
+                chmBytes / 1e6, (double) chmBytes / N);
+        keepAlive = null;
+        chm = null;
+        chm2 = null;
+
+        base = usedHeap();
+        IdInterner interner = new IdInterner();
+        Object[] slots = new Object[N];
+        Object[] slots2 = new Object[N];
+        for (String id : ids) {
+            int dense = interner.intern(id);
+            slots[dense] = value;
+            slots2[dense] = value;
+        }
+        keepAlive = new Object[]{interner, slots, slots2};
+        long denseBytes = usedHeap() - base;
+        System.out.printf("IdInterner + 2 x Object[]       : %6.1f MB (%.1f bytes/volunteer)%n",
+                denseBytes / 1e6, (double) denseBytes / N);
+
+        System.out.printf("saved per million volunteers    : %6.1f MB%n", (chmBytes - denseBytes) / 1e6);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,144 @@
+package org.example.bench;
+
+import org.example.server.metrics.LatencyHistogram;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load generator: GET /assignment throughput and latency over keep-alive
+ * connections, to compare the two HTTP transports of a running server.
+ *
+ * Each connection runs on its own virtual thread and sends {@code depth}
+ * pipelined requests at a time (1 = plain keep-alive request/response), so
+ * {@code connections * depth} requests are in flight. Before measuring it
+ * stores one volunteer and waits for an optimization, so the reads return
+ * a real assignment.
+ *
+ * Not a unit test (surefire only runs *Test classes). Start the server with
+ * either transport, then run after {@code mvn test-compile}:
+ * <pre>
+ *   java -cp target/classes org.example.server.network.ServerHandler --transport=jdk   (or nio)
+ *   java -cp target/classes:target/test-classes org.example.bench.TransportBench \
+ *        [connections=64] [depth=1] [seconds=10] [port=8080]
+ * </pre>
+ */
+public class TransportBench {
+
+    private static final String HOST = "localhost";
+    private static final String VOLUNTEER = "bench-vol";
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int depth       = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int seconds     = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int port        = args.length > 3 ? Integer.parseInt(args[3]) : 8080;
+
+        seed(port);
+        byte[] request = ("GET /assignment?volunteerId=" + VOLUNTEER + " HTTP/1.1\r\n"
+                + "Host: " + HOST + ":" + port + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] batch = new byte[request.length * depth];
+        for (int i = 0; i < depth; i++) System.arraycopy(request, 0, batch, i * request.length, request.length);
+
+        // warm-up, then the measured run
+        run(port, connections, batch, depth, Math.max(2, seconds / 3), new LatencyHistogram(), new LongAdder());
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder errors = new LongAdder();
+        long done = run(port, connections, batch, depth, seconds, latency, errors);
+
+        System.out.printf("connections=%d depth=%d seconds=%d%n", connections, depth, seconds);
+        System.out.printf("requests=%d (%.0f req/s), non-200=%d%n", done, done / (double) seconds, errors.sum());
+        System.out.printf("latency per batch: p50=%.3f ms  p99=%.3f ms  p99.9=%.3f ms  max=%.3f ms%n",
+                latency.valueAtPercentile(50) / 1e6, latency.valueAtPercentile(99) / 1e6,
+                latency.valueAtPercentile(99.9) / 1e6, latency.valueAtPercentile(100) / 1e6);
+    }
+
+    /** Runs the load for {@code seconds}; returns completed requests. */
+    private static long run(int port, int connections, byte[] batch, int depth, int seconds,
+                            LatencyHistogram latency, LongAdder errors) throws InterruptedException {
+        LongAdder completed = new LongAdder();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < connections; c++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                try (Socket s = new Socket(HOST, port)) {
+                    s.setTcpNoDelay(true);
+                    OutputStream out = s.getOutputStream();
+                    InputStream in = new BufferedInputStream(s.getInputStream(), 16 * 1024);
+                    while (System.nanoTime() < deadline) {
+                        long t0 = System.nanoTime();
+                        out.write(batch);
+                        out.flush();
+                        for (int i = 0; i < depth; i++) {
+                            if (readResponse(in) != 200) errors.increment();
+                        }
+                        latency.record(System.nanoTime() - t0);
+                        completed.add(depth);
+                    }
+                } catch (IOException e) {
+                    errors.increment();
+                }
+            }));
+        }
+        for (Thread t : threads) t.join();
+        return completed.sum();
+    }
+
+    /** Reads one Content-Length response; returns its status. */
+    private static int readResponse(InputStream in) throws IOException {
+        String status = line(in);
+        int length = 0;
+        for (String h; !(h = line(in)).isEmpty(); ) {
+            int colon = h.indexOf(':');
+            if (colon > 0 && h.substring(0, colon).trim().equalsIgnoreCase("Content-Length")) {
+                length = Integer.parseInt(h.substring(colon + 1).trim());
+            }
+        }
+        for (long left = length; left > 0; ) {
+            long n = in.skip(left);
+            if (n <= 0) {
+                if (in.read() < 0) throw new IOException("connection closed mid-body");
+                n = 1;
+            }
+            left -= n;
+        }
+        return Integer.parseInt(status.split(" ")[1]);
+    }
+
+    private static String line(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder(64);
+        for (int b; (b = in.read()) != '\n'; ) {
+            if (b < 0) throw new IOException("connection closed");
+            if (b != '\r') sb.append((char) b);
+        }
+        return sb.toString();
+    }
+
+    /** Stores the bench volunteer and waits until an optimization covers it. */
+    private static void seed(int port) throws IOException {
+        post(port, "/preferences", "{\"volunteerId\":\"" + VOLUNTEER + "\",\"name\":\"Bench\","
+                + "\"prefs\":[\"Soup Kitchen\",\"Senior Care\",\"Beach Cleanup\"]}");
+        post(port, "/optimize?wait=true", "");
+    }
+
+    private static void post(int port, String path, String body) throws IOException {
+        HttpURLConnection c = (HttpURLConnection) URI.create("http://" + HOST + ":" + port + path).toURL().openConnection();
+        c.setRequestMethod("POST");
+        c.setDoOutput(true);
+        try (OutputStream os = c.getOutputStream()) {
+            os.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        if (c.getResponseCode() >= 300) throw new IOException(path + " → " + c.getResponseCode());
+        c.getInputStream().readAllBytes();
+        c.disconnect();
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.tests;
+
+import org.example.domain.AssignmentBatch;
+import org.example.domain.AssignmentBatch.Change;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the binary AssignmentBatch frame format.
+ */
+class AssignmentBatchTest {
+
+    /**
+     * Tests that a batch survives an encode/decode round trip, including removals,
+     * and comes back sorted by volunteer id.
+     */
+    @Test
+    void testRoundTrip() {
+        AssignmentBatch batch = new AssignmentBatch(7, 8, List.of(
+                new Change("vol200", "Beach Cleanup"),
+                new Change("vol100", "Soup Kitchen"),
+                new Change("vol150", null)));
+
+        AssignmentBatch decoded = AssignmentBatch.decode(ByteBuffer.wrap(batch.encode()));
+
+        assertEquals(7L, decoded.getBaseVersion());
+        assertEquals(8L, decoded.getVersion());
+        assertEquals(List.of(
+                new Change("vol100", "Soup Kitchen"),
+                new Change("vol150", null),
+                new Change("vol200", "Beach Cleanup")), decoded.getChanges());
+    }
+
+    /**
+     * Tests that front-coded ids and the service table keep a large batch far
+     * smaller than one JSON message per volunteer.
+     */
+    @Test
+    void testEncodingIsCompact() {
+        List<Change> changes = new ArrayList<>();
+        int jsonBytes = 0;
+        for (int i = 0; i < 1000; i++) {
+            String id = "vol" + (1_700_000_000_000L + i * 7919L);
+            changes.add(new Change(id, "Community Garden"));
+            jsonBytes += ("{\"volunteerId\":\"" + id + "\",\"assignment\":\"Community Garden\",\"version\":1}").length();
+        }
+
+        int binaryBytes = new AssignmentBatch(0, 1, changes).encode().length;
+
+        assertTrue(binaryBytes * 5 < jsonBytes, "binary " + binaryBytes + " vs json " + jsonBytes);
+    }
+
+    /**
+     * Tests that foreign payloads are rejected instead of misread.
+     */
+    @Test
+    void testRejectsGarbage() {
+        assertThrows(IllegalArgumentException.class,
+                () -> AssignmentBatch.decode(ByteBuffer.wrap(new byte[]{'{', '"'})));
+    }
+}
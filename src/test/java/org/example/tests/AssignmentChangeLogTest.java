@@ -0,0 +1,65 @@
+package org.example.tests;
+
+import org.example.domain.AssignmentBatch;
+import org.example.server.store.AssignmentChangeLog;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AssignmentChangeLog.
+ */
+class AssignmentChangeLogTest {
+
+    private static AssignmentBatch batch(long base, long version, AssignmentBatch.Change... changes) {
+        return new AssignmentBatch(base, version, List.of(changes));
+    }
+
+    private static AssignmentBatch.Change change(String id, String service) {
+        return new AssignmentBatch.Change(id, service);
+    }
+
+    /**
+     * Tests that replaying from a version yields one (the last) change per
+     * volunteer changed after it, and nothing from before it.
+     */
+    @Test
+    void testReplaysOnlyMissedChanges() {
+        AssignmentChangeLog log = new AssignmentChangeLog(100);
+        log.append(batch(0, 1, change("v1", "Soup Kitchen"), change("v2", "Beach Cleanup")));
+        log.append(batch(1, 2, change("v1", "Senior Care")));
+        log.append(batch(2, 3, change("v3", "Soup Kitchen"), change("v1", null)));
+
+        AssignmentBatch missed = log.since(1);
+        assertEquals(1, missed.getBaseVersion());
+        assertEquals(3, missed.getVersion());
+        assertEquals(List.of(change("v1", null), change("v3", "Soup Kitchen")), missed.getChanges());
+
+        assertEquals(change("v1", null), log.latest("v1", 1));
+        assertNull(log.latest("v2", 1));
+        assertTrue(log.since(3).getChanges().isEmpty());
+    }
+
+    /**
+     * Tests that the log evicts old batches past its bound and then no
+     * longer claims to cover versions before them, nor versions from the
+     * future (a previous server run).
+     */
+    @Test
+    void testBoundedCoverage() {
+        AssignmentChangeLog log = new AssignmentChangeLog(3);
+        assertTrue(log.covers(0));
+        log.append(batch(0, 1, change("v1", "A"), change("v2", "A")));
+        log.append(batch(1, 2, change("v3", "B")));
+        assertTrue(log.covers(0));
+
+        log.append(batch(2, 3, change("v4", "C")));
+        assertEquals(2, log.size());
+        assertFalse(log.covers(0), "batch 1 was evicted");
+        assertTrue(log.covers(1));
+        assertFalse(log.covers(7), "newer than anything published");
+        assertEquals(List.of(change("v3", "B"), change("v4", "C")), log.since(1).getChanges());
+    }
+}
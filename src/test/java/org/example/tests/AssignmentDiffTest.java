@@ -0,0 +1,59 @@
+package org.example.tests;
+
+import org.example.domain.*;
+import org.example.server.logic.AssignmentDiff;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AssignmentDiff.
+ */
+class AssignmentDiffTest {
+
+    /**
+     * Tests that added, moved and removed volunteers are each detected and
+     * unchanged volunteers are left out.
+     */
+    @Test
+    void testDetectsAddedMovedRemoved() {
+        Service soup = new Service("Soup Kitchen", 2);
+        Service beach = new Service("Beach Cleanup", 2);
+        Volunteer ann = new Volunteer("Ann", "v1", List.of(soup));
+        Volunteer ben = new Volunteer("Ben", "v2", List.of(beach));
+        Volunteer cat = new Volunteer("Cat", "v3", List.of(soup));
+
+        Map<String, String> previous = Map.of(
+                "v1", "Soup Kitchen",     // unchanged
+                "v2", "Soup Kitchen",     // moves to Beach Cleanup
+                "v4", "Beach Cleanup");   // withdrawn
+        List<Assignment> next = List.of(
+                new Assignment(ann, soup),
+                new Assignment(ben, beach),
+                new Assignment(cat, soup));  // new
+
+        AssignmentDiff diff = AssignmentDiff.compute(previous, next);
+
+        assertEquals(List.of(cat), diff.getAdded().stream().map(Assignment::getVolunteer).toList());
+        assertEquals(List.of(ben), diff.getMoved().stream().map(Assignment::getVolunteer).toList());
+        assertEquals(List.of("v4"), diff.getRemoved());
+        assertEquals(3, diff.toChanges().size());
+    }
+
+    /**
+     * Tests that re-publishing the same result yields an empty diff.
+     */
+    @Test
+    void testIdenticalResultIsEmpty() {
+        Service soup = new Service("Soup Kitchen", 2);
+        Volunteer ann = new Volunteer("Ann", "v1", List.of(soup));
+
+        AssignmentDiff diff = AssignmentDiff.compute(
+                Map.of("v1", "Soup Kitchen"), List.of(new Assignment(ann, soup)));
+
+        assertTrue(diff.isEmpty());
+    }
+}
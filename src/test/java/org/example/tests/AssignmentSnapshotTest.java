@@ -0,0 +1,82 @@
+package org.example.tests;
+
+import org.example.domain.*;
+import org.example.server.logic.AssignmentDiff;
+import org.example.server.store.AssignmentSnapshot;
+import org.example.server.store.IdInterner;
+import org.example.server.store.PublishedAssignment;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AssignmentSnapshot.
+ */
+class AssignmentSnapshotTest {
+
+    /**
+     * Tests that applying a diff yields a new snapshot, leaves the old one
+     * untouched, and only re-versions the volunteers that changed.
+     */
+    @Test
+    void testApplyIsCopyOnWrite() {
+        Service soup = new Service("Soup Kitchen", 2);
+        Service beach = new Service("Beach Cleanup", 2);
+        Volunteer ann = new Volunteer("Ann", "v1", List.of(soup));
+        Volunteer ben = new Volunteer("Ben", "v2", List.of(beach));
+
+        AssignmentSnapshot empty = AssignmentSnapshot.empty(new IdInterner());
+        AssignmentSnapshot v1 = empty.apply(1, AssignmentDiff.compute(
+                empty.serviceNames(),
+                List.of(new Assignment(ann, soup), new Assignment(ben, soup))));
+
+        AssignmentSnapshot v2 = v1.apply(2, AssignmentDiff.compute(v1.serviceNames(),
+                List.of(new Assignment(ann, soup), new Assignment(ben, beach))));
+
+        assertEquals(0, empty.size());
+        assertNull(empty.get("v1"));
+        assertEquals("Soup Kitchen", v1.get("v2").serviceName());
+        assertEquals("Beach Cleanup", v2.get("v2").serviceName());
+        assertEquals(1L, v2.get("v1").version());          // unchanged keeps its ETag
+        assertEquals(2L, v2.get("v2").version());
+        assertEquals("\"" + PublishedAssignment.epoch() + "-2\"", v2.get("v2").etag());
+    }
+
+    /**
+     * Tests that snapshots spanning several trie levels keep every entry,
+     * and that changing and removing entries in a later snapshot leaves the
+     * earlier ones as they were.
+     */
+    @Test
+    void testLargeSnapshotsShareNothingVisible() {
+        Service soup = new Service("Soup Kitchen", 5_000);
+        Service beach = new Service("Beach Cleanup", 5_000);
+        List<Assignment> all = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            all.add(new Assignment(new Volunteer("V" + i, "v" + i, List.of(soup, beach)), soup));
+        }
+
+        AssignmentSnapshot empty = AssignmentSnapshot.empty(new IdInterner());
+        AssignmentSnapshot v1 = empty.apply(1, AssignmentDiff.compute(empty.serviceNames(), all));
+
+        List<Assignment> changed = new ArrayList<>(all.subList(0, 2_000));
+        changed.set(1_500, new Assignment(changed.get(1_500).getVolunteer(), beach));
+        AssignmentSnapshot v2 = v1.apply(2, AssignmentDiff.compute(v1.serviceNames(), changed));
+
+        assertEquals(3_000, v1.size());
+        assertEquals(3_000, v1.serviceNames().size());
+        assertEquals("Soup Kitchen", v1.get("v1500").serviceName());
+        assertEquals("Soup Kitchen", v1.get("v2999").serviceName());
+
+        assertEquals(2_000, v2.size());
+        assertEquals(2_000, v2.serviceNames().size());
+        assertEquals("Beach Cleanup", v2.get("v1500").serviceName());
+        assertEquals(2L, v2.get("v1500").version());
+        assertEquals(1L, v2.get("v1499").version());
+        assertNull(v2.get("v2999"));
+        assertNull(v2.get("nobody"));
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.tests;
+
+import org.example.domain.*;
+import org.example.server.logic.CapacityRepair;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CapacityRepair.
+ */
+class CapacityRepairTest {
+
+    private static Map<String, String> byVolunteer(List<Assignment> result) {
+        Map<String, String> out = new HashMap<>();
+        for (Assignment a : result) out.put(a.getVolunteer().getId(), a.getService().getName());
+        return out;
+    }
+
+    /**
+     * Tests that lowering a capacity displaces only the excess, picking the
+     * volunteers whose move costs least, and leaves everyone else in place.
+     */
+    @Test
+    void testDisplacesCheapestMoves() {
+        Service soup = new Service("Soup Kitchen", 3);
+        Service beach = new Service("Beach Cleanup", 2);
+        Service garden = new Service("Community Garden", 2);
+        Volunteer ann = new Volunteer("Ann", "v1", List.of(soup, beach));           // move: rank 0 → 1
+        Volunteer ben = new Volunteer("Ben", "v2", List.of(beach, garden, soup));   // move: rank 2 → 0
+        Volunteer cat = new Volunteer("Cat", "v3", List.of(soup, garden));          // move: rank 0 → 1
+        Volunteer dan = new Volunteer("Dan", "v4", List.of(garden));
+        List<Assignment> published = List.of(
+                new Assignment(ann, soup), new Assignment(ben, soup),
+                new Assignment(cat, soup), new Assignment(dan, garden));
+
+        Service lowered = new Service("Soup Kitchen", 1);
+        CapacityRepair.Result r = CapacityRepair.repair(published,
+                Map.of(soup.getName(), lowered, beach.getName(), beach, garden.getName(), garden));
+
+        assertEquals(2, r.moved());
+        assertEquals(0, r.unassigned());
+        assertEquals(Map.of(
+                "v1", "Beach Cleanup",      // ties with Cat's move; broken by id
+                "v2", "Beach Cleanup",      // cheapest: a better preference
+                "v3", "Soup Kitchen",
+                "v4", "Community Garden"), byVolunteer(r.assignments()));
+    }
+
+    /**
+     * Tests that a volunteer is unassigned only when nobody on the service
+     * has anywhere else to go, and that a result within capacity is returned
+     * as is.
+     */
+    @Test
+    void testUnassignsOnlyWithoutAlternative() {
+        Service soup = new Service("Soup Kitchen", 2);
+        Service beach = new Service("Beach Cleanup", 1);
+        Volunteer ann = new Volunteer("Ann", "v1", List.of(soup));
+        Volunteer ben = new Volunteer("Ben", "v2", List.of(soup, beach));
+        List<Assignment> published = List.of(new Assignment(ann, soup), new Assignment(ben, soup));
+
+        CapacityRepair.Result same = CapacityRepair.repair(published,
+                Map.of(soup.getName(), soup, beach.getName(), beach));
+        assertTrue(same.unchanged());
+        assertSame(published, same.assignments());
+
+        CapacityRepair.Result none = CapacityRepair.repair(published,
+                Map.of(soup.getName(), new Service("Soup Kitchen", 0), beach.getName(), beach));
+        assertEquals(1, none.moved());
+        assertEquals(1, none.unassigned());
+        assertEquals(Map.of("v2", "Beach Cleanup"), byVolunteer(none.assignments()));
+
+        CapacityRepair.Result one = CapacityRepair.repair(published,
+                Map.of(soup.getName(), new Service("Soup Kitchen", 1), beach.getName(), beach));
+        assertEquals(Map.of("v1", "Soup Kitchen", "v2", "Beach Cleanup"), byVolunteer(one.assignments()));
+    }
+}
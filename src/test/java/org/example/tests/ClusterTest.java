@@ -0,0 +1,157 @@
+package org.example.tests;
+
+import org.example.domain.Assignment;
+import org.example.domain.Service;
+import org.example.domain.Volunteer;
+import org.example.server.cluster.ClusterCoordinator;
+import org.example.server.cluster.ClusterWorker;
+import org.example.server.cluster.ProblemCodec;
+import org.example.server.logic.ApplicationLogic;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for distributed optimization: the problem codec, workers joining a
+ * run, and a run surviving workers that lie or disconnect.
+ */
+class ClusterTest {
+
+    private static final List<Service> SERVICES = List.of(
+            new Service("S1", 3), new Service("S2", 3), new Service("S3", 4));
+
+    private static List<Volunteer> volunteers(int n) {
+        List<Volunteer> vols = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            vols.add(new Volunteer("V" + i, "id" + i, List.of(
+                    SERVICES.get(i % 3), SERVICES.get((i + 1) % 3), SERVICES.get((i + 2) % 3))));
+        }
+        return vols;
+    }
+
+    /**
+     * Tests that a problem and a solution survive encoding, including
+     * preference order, the seed and unassigned volunteers.
+     */
+    @Test
+    void testCodecRoundTrip() throws IOException {
+        List<Volunteer> vols = volunteers(4);
+        Map<String, String> seed = Map.of("id0", "S3", "id2", "S1");
+        ProblemCodec.Problem p = ProblemCodec.decode(ProblemCodec.encode(vols, SERVICES, seed));
+
+        assertEquals(SERVICES, p.services());
+        assertEquals(4, p.volunteers().size());
+        assertEquals("id1", p.volunteers().get(1).getId());
+        assertEquals(vols.get(1).getPreferences(), p.volunteers().get(1).getPreferences());
+        assertEquals(seed, p.seed());
+
+        List<String> ids = List.of("id0", "id1", "id2", "id3");
+        byte[] solution = ProblemCodec.encodeSolution(ids, SERVICES, seed);
+        assertEquals(4, solution.length);   // one byte per volunteer
+        assertEquals(seed, ProblemCodec.decodeSolution(solution, ids, SERVICES));
+    }
+
+    /**
+     * Tests that connected workers evolve islands of a run and that the
+     * merged result is complete and within capacity.
+     */
+    @Test
+    void testWorkersJoinRun() throws Exception {
+        try (ClusterCoordinator coordinator = new ClusterCoordinator(0, 5_000);
+             ClusterWorker w1 = new ClusterWorker("localhost", coordinator.port(), "w1");
+             ClusterWorker w2 = new ClusterWorker("localhost", coordinator.port(), "w2")) {
+            w1.start();
+            w2.start();
+            awaitWorkers(coordinator, 2);
+
+            List<Assignment> result = new ApplicationLogic(coordinator).runOptimization(volunteers(10), SERVICES);
+
+            assertEquals(10, result.size());
+            assertTrue(withinCapacity(result));
+            assertTrue(coordinator.solutionsReceived() >= 2, "both islands reported");
+        }
+    }
+
+    /**
+     * Tests that a worker reporting an over-capacity solution is ignored and
+     * that a worker dropping mid-run does not hold the run up.
+     */
+    @Test
+    void testSurvivesLyingAndLostWorkers() throws Exception {
+        try (ClusterCoordinator coordinator = new ClusterCoordinator(0, 30_000)) {
+            Thread liar = fakeWorker(coordinator.port(), true);
+            Thread quitter = fakeWorker(coordinator.port(), false);
+            awaitWorkers(coordinator, 2);
+
+            long t0 = System.nanoTime();
+            List<Assignment> result = new ApplicationLogic(coordinator).runOptimization(volunteers(10), SERVICES);
+            long ms = (System.nanoTime() - t0) / 1_000_000;
+
+            assertEquals(10, result.size());
+            assertTrue(withinCapacity(result), "the liar's solution was not used");
+            assertTrue(ms < 10_000, "did not wait out the lost worker: " + ms + " ms");
+            liar.join(5_000);
+            quitter.join(5_000);
+            assertEquals(2, coordinator.workersLost());
+        }
+    }
+
+    /**
+     * A raw-socket worker: says hello, reads the problem, then either reports
+     * everyone on S1 (over capacity) as its final result, or just hangs up.
+     */
+    private static Thread fakeWorker(int port, boolean lie) {
+        return Thread.ofPlatform().start(() -> {
+            try (Socket s = new Socket("localhost", port)) {
+                DataOutputStream out = new DataOutputStream(s.getOutputStream());
+                DataInputStream in = new DataInputStream(s.getInputStream());
+                frame(out, 1, 0, "fake".getBytes(StandardCharsets.UTF_8));   // HELLO
+
+                in.readByte();                                              // PROBLEM
+                long job = in.readLong();
+                in.readInt();
+                in.readInt();
+                in.readFully(new byte[in.readInt()]);
+                if (lie) {
+                    frame(out, 6, job, new byte[10]);                       // DONE: all on service 0
+                }
+            } catch (IOException ignored) {
+                // the test checks the coordinator's side
+            }
+        });
+    }
+
+    private static void frame(DataOutputStream out, int type, long job, byte[] payload) throws IOException {
+        out.writeByte(type);
+        out.writeLong(job);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.flush();
+    }
+
+    private static void awaitWorkers(ClusterCoordinator c, int n) throws InterruptedException {
+        long end = System.currentTimeMillis() + 5_000;
+        while (c.workers() < n && System.currentTimeMillis() < end) Thread.sleep(10);
+        assertEquals(n, c.workers());
+    }
+
+    private static boolean withinCapacity(List<Assignment> result) {
+        Map<Service, Integer> counts = new HashMap<>();
+        for (Assignment a : result) {
+            if (counts.merge(a.getService(), 1, Integer::sum) > a.getService().getCapacity()) return false;
+        }
+        return true;
+    }
+}
@@ -1,7 +1,9 @@
 package org.example.tests;
 
 import org.example.domain.*;
+import org.example.server.logic.CancellationToken;
 import org.example.server.logic.GeneticAlgorithm;
+import org.example.server.logic.RunCancelledException;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
@@ -115,6 +117,32 @@ class GeneticAlgorithmTest {
         assertTrue(totalCost <= 2); // Best possible is 0, worst is 2
     }
 
+    /**
+     * Tests that a cancelled run stops with its best individual so far, and
+     * that this individual can seed a new run.
+     */
+    @Test
+    void testCancelledRunCarriesBestSoFar() {
+        Service s1 = new Service("S1", 1);
+        Service s2 = new Service("S2", 1);
+        List<Volunteer> volunteers = List.of(
+                new Volunteer("Ann", "id1", List.of(s1, s2)),
+                new Volunteer("Ben", "id2", List.of(s1, s2)));
+
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        GeneticAlgorithm ga = new GeneticAlgorithm(volunteers, List.of(s1, s2));
+        RunCancelledException e = assertThrows(RunCancelledException.class,
+                () -> ga.optimize(token, Map.of()));
+        assertEquals(2, e.getBestSoFar().size());
+
+        // a seeded run starts from that individual and still returns a valid result
+        List<Assignment> seeded = new GeneticAlgorithm(volunteers, List.of(s1, s2))
+                .optimize(CancellationToken.NONE, Map.of("id2", "S1", "id1", "S2"));
+        assertTrue(isValid(seeded));
+        assertEquals(2, seeded.size());
+    }
+
     /**
      * Helper method to validate that the assignments respect service capacity limits.
      *
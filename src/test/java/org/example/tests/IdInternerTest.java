@@ -0,0 +1,80 @@
+package org.example.tests;
+
+import org.example.server.store.IdInterner;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for IdInterner.
+ */
+class IdInternerTest {
+
+    /**
+     * Tests that client-style numeric ids and arbitrary ids both get stable,
+     * dense ints and map back to the original id.
+     */
+    @Test
+    void testDenseAndStable() {
+        IdInterner ids = new IdInterner();
+        int a = ids.intern("vol1718000000000001");
+        int b = ids.intern("alice@example.org");
+        int c = ids.intern("vol007");             // leading zeros take the fallback path
+
+        assertEquals(0, a);
+        assertEquals(1, b);
+        assertEquals(2, c);
+        assertEquals(a, ids.intern("vol1718000000000001"));
+        assertEquals(c, ids.lookup("vol007"));
+        assertEquals("alice@example.org", ids.externalId(b));
+        assertEquals(IdInterner.ABSENT, ids.lookup("vol7"));
+        assertEquals(3, ids.size());
+    }
+
+    /**
+     * Tests that lookups stay correct across several table resizes.
+     */
+    @Test
+    void testSurvivesResize() {
+        IdInterner ids = new IdInterner();
+        for (int i = 0; i < 50_000; i++) {
+            assertEquals(i, ids.intern("vol" + (1_700_000_000_000L + i)));
+        }
+        for (int i = 0; i < 50_000; i += 997) {
+            assertEquals(i, ids.lookup("vol" + (1_700_000_000_000L + i)));
+            assertEquals("vol" + (1_700_000_000_000L + i), ids.externalId(i));
+        }
+    }
+
+    /**
+     * Tests that a lock-free lookup never misses an id interned before it
+     * started, even while another thread keeps resizing the table.
+     */
+    @Test
+    void testLookupDuringResize() throws InterruptedException {
+        IdInterner ids = new IdInterner();
+        AtomicInteger interned = new AtomicInteger();
+        AtomicInteger misses = new AtomicInteger();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 200_000; i++) {
+                ids.intern("vol" + (1_700_000_000_000L + i));
+                interned.set(i + 1);
+            }
+        });
+        Thread reader = new Thread(() -> {
+            while (interned.get() < 200_000) {
+                int upTo = interned.get();
+                if (upTo == 0) continue;
+                int i = upTo - 1;
+                if (ids.lookup("vol" + (1_700_000_000_000L + i)) != i) misses.incrementAndGet();
+            }
+        });
+        writer.start();
+        reader.start();
+        writer.join();
+        reader.join();
+        assertEquals(0, misses.get());
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.tests;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.example.domain.Service;
+import org.example.server.network.JsonCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the hand-written JSON codec.
+ */
+class JsonCodecTest {
+
+    private static final Service SOUP = new Service("Soup Kitchen", 6);
+    private static final Service BEACH = new Service("Beach Cleanup", 6);
+    private static final Service CAFE = new Service("Café Helper", 2);
+    private static final JsonCodec.ServiceIndex INDEX =
+            new JsonCodec.ServiceIndex(List.of(SOUP, BEACH, CAFE));
+
+    private static JsonCodec.Prefs read(String json) throws IOException {
+        return JsonCodec.readPrefs(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), INDEX);
+    }
+
+    /**
+     * Tests that a typical client payload decodes, unknown names are counted but
+     * not resolved, escapes are handled and extra fields are skipped.
+     */
+    @Test
+    void testReadsClientPayload() throws IOException {
+        JsonCodec.Prefs p = read("""
+                { "extra": {"a": [1, 2.5e3, true, null], "b": "x\\"y"},
+                  "volunteerId": "vol123",
+                  "name": "Zo\\u00eb \\"Z\\"",
+                  "prefs": ["Beach Cleanup", "Nope", "Caf\\u00e9 Helper", "Soup Kitchen"] }
+                """);
+
+        assertEquals("vol123", p.volunteerId());
+        assertEquals("Zoë \"Z\"", p.name());
+        assertEquals(List.of(BEACH, CAFE, SOUP), p.prefs());
+        assertEquals(4, p.prefCount());
+    }
+
+    /**
+     * Tests that missing or null fields come back as null / -1 for validation.
+     */
+    @Test
+    void testMissingFields() throws IOException {
+        JsonCodec.Prefs p = read("{\"volunteerId\":null,\"prefs\":null}");
+
+        assertNull(p.volunteerId());
+        assertNull(p.name());
+        assertEquals(-1, p.prefCount());
+        assertEquals(-1, read("{}").prefCount());
+    }
+
+    /**
+     * Tests that malformed bodies are rejected with IllegalArgumentException.
+     */
+    @Test
+    void testRejectsMalformed() {
+        assertThrows(IllegalArgumentException.class, () -> read(""));
+        assertThrows(IllegalArgumentException.class, () -> read("[1,2]"));
+        assertThrows(IllegalArgumentException.class, () -> read("{\"name\":\"unterminated"));
+    }
+
+    /**
+     * Tests that written bodies are valid JSON that Gson reads back unchanged.
+     */
+    @Test
+    void testWritesValidJson() {
+        String tricky = "Quote \" back\\slash\nnewline \u0001 Café 😀";
+        String json = new String(JsonCodec.assignmentBody(tricky), StandardCharsets.UTF_8);
+
+        JsonObject o = new Gson().fromJson(json, JsonObject.class);
+        assertEquals(tricky, o.get("assignment").getAsString());
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.tests;
+
+import org.example.server.metrics.LatencyHistogram;
+import org.example.server.metrics.PrometheusText;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LatencyHistogram and its Prometheus output.
+ */
+class LatencyHistogramTest {
+
+    private static long ms(long v) {
+        return TimeUnit.MILLISECONDS.toNanos(v);
+    }
+
+    /**
+     * Tests that percentiles land within the 12.5% bucket resolution.
+     */
+    @Test
+    void testPercentiles() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) h.record(ms(i));
+
+        assertEquals(1000, h.count());
+        long p50 = h.valueAtPercentile(50);
+        long p99 = h.valueAtPercentile(99);
+        assertTrue(p50 >= ms(500) && p50 <= ms(563), "p50 " + p50);
+        assertTrue(p99 >= ms(990) && p99 <= ms(1114), "p99 " + p99);
+        assertEquals(0, new LatencyHistogram().valueAtPercentile(99));
+    }
+
+    /**
+     * Tests that cumulative counts never include a value above the bound
+     * (a bucket straddling the bound is left out).
+     */
+    @Test
+    void testCountAtOrBelow() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(TimeUnit.MICROSECONDS.toNanos(900));
+        h.record(ms(3));
+        h.record(ms(40));
+        h.record(TimeUnit.DAYS.toNanos(30));   // overflow bucket
+
+        assertEquals(1, h.countAtOrBelow(ms(1)));
+        assertEquals(2, h.countAtOrBelow(ms(5)));
+        assertEquals(3, h.countAtOrBelow(TimeUnit.SECONDS.toNanos(60)));
+        assertEquals(4, h.count());
+    }
+
+    /**
+     * Tests the exposition lines for one label set.
+     */
+    @Test
+    void testPrometheusOutput() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(ms(2));
+        PrometheusText out = new PrometheusText();
+        out.header("x_seconds", "histogram", "Test.");
+        h.writeTo(out, "x_seconds", "endpoint", "/a\"b");
+
+        String text = out.toString();
+        assertTrue(text.contains("# TYPE x_seconds histogram\n"));
+        assertTrue(text.contains("x_seconds_bucket{endpoint=\"/a\\\"b\",le=\"0.001\"} 0\n"));
+        assertTrue(text.contains("x_seconds_bucket{endpoint=\"/a\\\"b\",le=\"0.0025\"} 1\n"));
+        assertTrue(text.contains("x_seconds_bucket{endpoint=\"/a\\\"b\",le=\"+Inf\"} 1\n"));
+        assertTrue(text.contains("x_seconds_sum{endpoint=\"/a\\\"b\"} 0.002\n"));
+        assertTrue(text.contains("x_seconds_count{endpoint=\"/a\\\"b\"} 1\n"));
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.tests;
+
+import org.example.server.log.MpscRing;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the log's MPSC ring buffer.
+ */
+class MpscRingTest {
+
+    /**
+     * Tests FIFO order, rejection when full and slot reuse after polling.
+     */
+    @Test
+    void testBoundedFifo() {
+        MpscRing<Integer> ring = new MpscRing<>(4);
+        assertEquals(4, ring.capacity());
+        for (int i = 0; i < 4; i++) assertTrue(ring.offer(i));
+        assertFalse(ring.offer(99));
+        assertEquals(4, ring.size());
+
+        assertEquals(0, ring.poll());
+        assertTrue(ring.offer(4));
+        for (int i = 1; i <= 4; i++) assertEquals(i, ring.poll());
+        assertNull(ring.poll());
+    }
+
+    /**
+     * Tests that concurrent producers lose nothing and keep their own order.
+     */
+    @Test
+    void testConcurrentProducers() throws InterruptedException {
+        int producers = 4, perProducer = 50_000;
+        MpscRing<long[]> ring = new MpscRing<>(256);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int id = p;
+            Thread t = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    long[] e = {id, i};
+                    while (!ring.offer(e)) Thread.onSpinWait();
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+
+        long[] next = new long[producers];
+        int received = 0;
+        while (received < producers * perProducer) {
+            long[] e = ring.poll();
+            if (e == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            assertEquals(next[(int) e[0]]++, e[1]);
+            received++;
+        }
+        for (Thread t : threads) t.join();
+        assertNull(ring.poll());
+    }
+}
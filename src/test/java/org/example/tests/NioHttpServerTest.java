@@ -0,0 +1,230 @@
+package org.example.tests;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.example.server.network.NioHttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the NIO HTTP transport, over a real socket: request framing,
+ * pipelining, connection handling, limits and chunked responses.
+ */
+class NioHttpServerTest {
+
+    /** A parsed response; header names are lower-cased. */
+    private record Response(int status, Map<String, String> headers, String body) {}
+
+    /**
+     * Starts a server on a free loopback port with three routes:
+     * {@code /echo} answers "query:body", {@code /slow} answers "slow" from
+     * another thread after 200 ms, and {@code /chunked} streams
+     * "hello world" in two chunks.
+     */
+    private static NioHttpServer start() throws IOException {
+        NioHttpServer server = new NioHttpServer(new InetSocketAddress("127.0.0.1", 0), 1);
+        server.createContext("/echo", ex -> {
+            String body = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            respond(ex, ex.getRequestURI().getQuery() + ":" + body);
+        });
+        server.createContext("/slow", ex -> Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(200);
+                respond(ex, "slow");
+            } catch (InterruptedException | IOException e) {
+                ex.close();
+            }
+        }));
+        server.createContext("/chunked", ex -> {
+            ex.sendResponseHeaders(200, 0);
+            try (OutputStream out = ex.getResponseBody()) {
+                out.write("hello".getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                out.write(" world".getBytes(StandardCharsets.US_ASCII));
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private static void respond(HttpExchange ex, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        ex.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Socket connect(NioHttpServer server) throws IOException {
+        Socket s = new Socket("127.0.0.1", server.port());
+        s.setSoTimeout(5_000);
+        return s;
+    }
+
+    private static void send(Socket s, String raw) throws IOException {
+        s.getOutputStream().write(raw.getBytes(StandardCharsets.ISO_8859_1));
+        s.getOutputStream().flush();
+    }
+
+    /** Reads one response, de-chunking the body if needed; null at end of stream. */
+    private static Response read(InputStream in) throws IOException {
+        String status = line(in);
+        if (status == null) return null;
+        Map<String, String> headers = new HashMap<>();
+        for (String h; !(h = line(in)).isEmpty(); ) {
+            int colon = h.indexOf(':');
+            headers.put(h.substring(0, colon).trim().toLowerCase(Locale.ROOT), h.substring(colon + 1).trim());
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        if ("chunked".equals(headers.get("transfer-encoding"))) {
+            for (int n; (n = Integer.parseInt(line(in), 16)) > 0; ) {
+                body.write(in.readNBytes(n));
+                assertEquals("", line(in));
+            }
+            assertEquals("", line(in));
+        } else if (headers.containsKey("content-length")) {
+            body.write(in.readNBytes(Integer.parseInt(headers.get("content-length"))));
+        }
+        return new Response(Integer.parseInt(status.split(" ")[1]), headers,
+                body.toString(StandardCharsets.UTF_8));
+    }
+
+    /** Reads a CRLF-terminated line; null at end of stream before any byte. */
+    private static String line(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int b; (b = in.read()) != '\n'; ) {
+            if (b < 0) return sb.isEmpty() ? null : sb.toString();
+            if (b != '\r') sb.append((char) b);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Tests that requests split across writes (in the header and in the
+     * body) are reassembled, and that pipelined requests are answered in
+     * request order even when the first one completes last.
+     */
+    @Test
+    void testSplitAndPipelinedRequestsAnsweredInOrder() throws Exception {
+        NioHttpServer server = start();
+        try (Socket s = connect(server)) {
+            send(s, "GET /slow HTTP/1.1\r\nHost: t\r\n\r\n"
+                    + "POST /echo?n=2 HTTP/1.1\r\nHost: t\r\nContent-Len");
+            Thread.sleep(50);
+            send(s, "gth: 5\r\n\r\nhe");
+            Thread.sleep(50);
+            send(s, "llo" + "GET /echo?n=3 HTTP/1.1\r\nHost: t\r\n\r\n");
+
+            InputStream in = s.getInputStream();
+            assertEquals("slow", read(in).body());
+            assertEquals("n=2:hello", read(in).body());
+            Response third = read(in);
+            assertEquals(200, third.status());
+            assertEquals("n=3:", third.body());
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Tests that a request with {@code Connection: close} is answered, marked
+     * as closing, and that nothing sent after it on that connection is read.
+     */
+    @Test
+    void testConnectionClose() throws Exception {
+        NioHttpServer server = start();
+        try (Socket s = connect(server)) {
+            send(s, "GET /echo?n=1 HTTP/1.1\r\nHost: t\r\nConnection: close\r\n\r\n"
+                    + "GET /echo?n=2 HTTP/1.1\r\nHost: t\r\n\r\n");
+
+            InputStream in = s.getInputStream();
+            Response r = read(in);
+            assertEquals("n=1:", r.body());
+            assertEquals("close", r.headers().get("connection"));
+            assertEquals(-1, in.read());
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Tests that a header block over the limit gets 431 and a declared body
+     * over the limit gets 413, each closing the connection.
+     */
+    @Test
+    void testOversizedRequestsRejected() throws Exception {
+        NioHttpServer server = start();
+        try {
+            try (Socket s = connect(server)) {
+                // exactly the 16 KiB header limit, never terminated
+                String head = "GET /echo HTTP/1.1\r\nX-Big: ";
+                send(s, head + "a".repeat(16 * 1024 - head.length()));
+
+                InputStream in = s.getInputStream();
+                assertEquals(431, read(in).status());
+                assertEquals(-1, in.read());
+            }
+            try (Socket s = connect(server)) {
+                send(s, "POST /echo HTTP/1.1\r\nHost: t\r\nContent-Length: " + (2 << 20) + "\r\n\r\n");
+
+                InputStream in = s.getInputStream();
+                assertEquals(413, read(in).status());
+                assertEquals(-1, in.read());
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Tests that a chunked upload is refused with 411 (bodies must carry
+     * Content-Length).
+     */
+    @Test
+    void testTransferEncodingRejected() throws Exception {
+        NioHttpServer server = start();
+        try (Socket s = connect(server)) {
+            send(s, "POST /echo HTTP/1.1\r\nHost: t\r\nTransfer-Encoding: chunked\r\n\r\n");
+
+            InputStream in = s.getInputStream();
+            assertEquals(411, read(in).status());
+            assertEquals(-1, in.read());
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Tests that {@code sendResponseHeaders(200, 0)} streams a chunked body
+     * that ends with the last chunk, leaving the connection usable.
+     */
+    @Test
+    void testChunkedResponse() throws Exception {
+        NioHttpServer server = start();
+        try (Socket s = connect(server)) {
+            send(s, "GET /chunked HTTP/1.1\r\nHost: t\r\n\r\n"
+                    + "GET /echo?n=2 HTTP/1.1\r\nHost: t\r\n\r\n");
+
+            InputStream in = s.getInputStream();
+            Response r = read(in);
+            assertEquals(200, r.status());
+            assertEquals("chunked", r.headers().get("transfer-encoding"));
+            assertNull(r.headers().get("content-length"));
+            assertEquals("hello world", r.body());
+            assertEquals("n=2:", read(in).body());
+        } finally {
+            server.stop();
+        }
+    }
+}
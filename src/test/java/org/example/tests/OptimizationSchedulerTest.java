@@ -0,0 +1,132 @@
+package org.example.tests;
+
+import org.example.server.logic.OptimizationScheduler;
+import org.example.server.logic.RunCancelledException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OptimizationScheduler's debouncing.
+ */
+class OptimizationSchedulerTest {
+
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicInteger runs = new AtomicInteger();
+
+    private OptimizationScheduler scheduler(long quietMs, long maxLatencyMs) {
+        return new OptimizationScheduler(quietMs, maxLatencyMs, true, version::get, (token, seed) -> {
+            runs.incrementAndGet();
+            return version.get();
+        });
+    }
+
+    private void write(OptimizationScheduler s) {
+        version.incrementAndGet();
+        s.markDirty();
+    }
+
+    /**
+     * Tests that a burst of writes is optimized once, after the quiet window.
+     */
+    @Test
+    void testBurstRunsOnce() throws InterruptedException {
+        OptimizationScheduler s = scheduler(100, 5_000);
+        for (int i = 0; i < 50; i++) write(s);
+
+        assertFalse(s.isUpToDate());
+        Thread.sleep(400);
+        assertEquals(1, runs.get());
+        assertTrue(s.isUpToDate());
+        assertEquals(50, s.optimizedVersion());
+    }
+
+    /**
+     * Tests that steady writes cannot postpone a run past the latency bound.
+     */
+    @Test
+    void testMaxLatencyBound() throws InterruptedException {
+        OptimizationScheduler s = scheduler(150, 300);
+        long end = System.currentTimeMillis() + 700;
+        while (System.currentTimeMillis() < end) {
+            write(s);
+            Thread.sleep(20);   // always inside the quiet window
+        }
+        assertTrue(runs.get() >= 1, "runs " + runs.get());
+    }
+
+    /**
+     * Tests that a hint runs right away when dirty and is a no-op otherwise.
+     */
+    @Test
+    void testHint() throws Exception {
+        OptimizationScheduler s = scheduler(60_000, 60_000);
+        assertEquals(0L, s.requestRun().get(1, TimeUnit.SECONDS));
+        assertEquals(0, runs.get());
+
+        write(s);
+        write(s);
+        assertEquals(2L, s.requestRun().get(1, TimeUnit.SECONDS));
+        assertEquals(2L, s.requestRun().get(1, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+    }
+
+    /**
+     * Tests that writes handled without a run stop counting as pending, but
+     * only when nothing older is pending with them.
+     */
+    @Test
+    void testAccountedFor() throws Exception {
+        OptimizationScheduler s = scheduler(60_000, 60_000);
+        write(s);
+        s.accountedFor(0, 1);
+        assertTrue(s.isUpToDate());
+        assertEquals(1L, s.requestRun().get(1, TimeUnit.SECONDS));
+        assertEquals(0, runs.get());
+
+        write(s);
+        write(s);
+        s.accountedFor(2, 3);   // version 2 was never optimized
+        assertFalse(s.isUpToDate());
+        assertEquals(1, s.optimizedVersion());
+    }
+
+    /**
+     * Tests that a run over stale data is preempted by a newer one, which
+     * starts from the preempted run's best-so-far.
+     */
+    @Test
+    void testPreemptionSeedsNextRun() throws Exception {
+        List<Map<String, String>> seeds = new CopyOnWriteArrayList<>();
+        OptimizationScheduler s = new OptimizationScheduler(60_000, 60_000, true, version::get, (token, seed) -> {
+            seeds.add(seed);
+            long covered = version.get();
+            if (runs.incrementAndGet() == 1) {
+                long end = System.currentTimeMillis() + 5_000;
+                while (!token.isCancelled() && System.currentTimeMillis() < end) Thread.sleep(5);
+                throw new RunCancelledException(7, Map.of("vol1", "Soup Kitchen"));
+            }
+            return covered;
+        });
+
+        write(s);
+        s.requestRun();
+        Thread.sleep(100);                       // first run is now evolving
+        write(s);
+        long started = System.currentTimeMillis();
+        assertEquals(2L, s.requestRun().get(2, TimeUnit.SECONDS));
+
+        assertTrue(System.currentTimeMillis() - started < 1_000, "preempted promptly");
+        assertEquals(1, s.preempted());
+        assertEquals(1, s.runs());
+        assertEquals(Map.of(), seeds.get(0));
+        assertEquals(Map.of("vol1", "Soup Kitchen"), seeds.get(1));
+    }
+}
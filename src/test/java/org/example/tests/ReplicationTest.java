@@ -0,0 +1,225 @@
+package org.example.tests;
+
+import org.example.domain.Assignment;
+import org.example.domain.AssignmentBatch;
+import org.example.domain.Service;
+import org.example.domain.Volunteer;
+import org.example.server.logic.AssignmentDiff;
+import org.example.server.replication.ReplicationFollower;
+import org.example.server.replication.ReplicationLeader;
+import org.example.server.store.AssignmentSnapshot;
+import org.example.server.store.IdInterner;
+import org.example.server.store.ServiceCatalog;
+import org.example.server.store.VolunteerStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for leader → follower replication of the service catalog,
+ * volunteers and published assignments.
+ */
+class ReplicationTest {
+
+    private static final Service SOUP = new Service("Soup Kitchen", 2);
+    private static final Service BEACH = new Service("Beach Cleanup", 2);
+
+    /** A leader's stores, published the way ServerHandler publishes. */
+    private static final class Leader {
+        final IdInterner ids = new IdInterner();
+        final VolunteerStore volunteers = new VolunteerStore(ids);
+        final AtomicReference<AssignmentSnapshot> assignments = new AtomicReference<>(AssignmentSnapshot.empty(ids));
+        final ServiceCatalog catalog = new ServiceCatalog(List.of(SOUP, BEACH));
+        ReplicationLeader replication;
+
+        void put(Volunteer v) {
+            volunteers.put(v);
+            replication.volunteerChanged(v.getId());
+        }
+
+        void remove(String id) {
+            volunteers.remove(id);
+            replication.volunteerChanged(id);
+        }
+
+        void publish(List<Assignment> result) {
+            AssignmentSnapshot current = assignments.get();
+            AssignmentDiff diff = AssignmentDiff.compute(current.serviceNames(), result);
+            AssignmentSnapshot next = current.apply(current.version() + 1, diff);
+            assignments.set(next);
+            replication.published(new AssignmentBatch(current.version(), next.version(), diff.toChanges()));
+        }
+    }
+
+    /** A follower's replicated state. */
+    private static final class Replica implements ReplicationFollower.Listener {
+        final Map<String, Volunteer> volunteers = new ConcurrentHashMap<>();
+        final Map<String, String> assignments = new ConcurrentHashMap<>();
+        volatile List<Service> services = List.of();
+
+        @Override
+        public void services(long version, List<Service> catalog) {
+            services = catalog;
+        }
+
+        @Override
+        public void volunteer(Volunteer v) {
+            volunteers.put(v.getId(), v);
+        }
+
+        @Override
+        public void volunteerRemoved(String volunteerId) {
+            volunteers.remove(volunteerId);
+        }
+
+        @Override
+        public void assignments(AssignmentBatch batch) {
+            if (batch.getBaseVersion() == 0) assignments.clear();
+            for (AssignmentBatch.Change c : batch.getChanges()) {
+                if (c.service() == null) assignments.remove(c.volunteerId());
+                else assignments.put(c.volunteerId(), c.service());
+            }
+        }
+    }
+
+    private static Service byName(String name) {
+        return SOUP.getName().equals(name) ? SOUP : BEACH;
+    }
+
+    /**
+     * Tests that a follower joining late is bootstrapped with the leader's
+     * state and then applies live catalog, volunteer and assignment changes
+     * in order.
+     */
+    @Test
+    void testBootstrapThenLiveChanges() throws Exception {
+        Leader leader = new Leader();
+        Replica replica = new Replica();
+        Volunteer ann = new Volunteer("Ann", "v1", List.of(SOUP, BEACH));
+        Volunteer ben = new Volunteer("Ben", "v2", List.of(BEACH));
+
+        try (ReplicationLeader replication =
+                     new ReplicationLeader(0, leader.assignments::get, leader.volunteers, leader.catalog)) {
+            leader.replication = replication;
+            leader.put(ann);
+            leader.publish(List.of(new Assignment(ann, SOUP)));
+
+            try (ReplicationFollower follower =
+                         new ReplicationFollower("localhost", replication.port(), ReplicationTest::byName, replica)) {
+                follower.start();
+                await(follower::isInSync);
+                assertEquals(1, follower.appliedVersion());
+                assertEquals("Soup Kitchen", replica.assignments.get("v1"));
+                assertEquals(List.of(SOUP, BEACH), replica.volunteers.get("v1").getPreferences());
+                assertEquals(2, replica.services.get(0).getCapacity());
+
+                leader.catalog.setCapacity("Soup Kitchen", 5);
+                replication.servicesChanged();
+                await(() -> replica.services.get(0).getCapacity() == 5);
+
+                leader.put(ben);
+                leader.publish(List.of(new Assignment(ann, BEACH), new Assignment(ben, BEACH)));
+                leader.publish(List.of(new Assignment(ben, BEACH)));
+                await(() -> follower.appliedVersion() == 3);
+
+                assertEquals(Map.of("v2", "Beach Cleanup"), replica.assignments);
+                assertEquals("Ben", replica.volunteers.get("v2").getName());
+                assertEquals(0, follower.lagVersions());
+
+                leader.remove("v1");
+                await(() -> !replica.volunteers.containsKey("v1"));
+            }
+        }
+    }
+
+    /**
+     * Tests that a follower reconnects after losing its leader and converges
+     * on what was published while it was away, including volunteers removed
+     * meanwhile.
+     */
+    @Test
+    void testResyncAfterLeaderRestart() throws Exception {
+        Leader leader = new Leader();
+        Replica replica = new Replica();
+        Volunteer ann = new Volunteer("Ann", "v1", List.of(SOUP));
+        Volunteer ben = new Volunteer("Ben", "v2", List.of(BEACH));
+
+        ReplicationLeader first = new ReplicationLeader(0, leader.assignments::get, leader.volunteers, leader.catalog);
+        int port = first.port();
+        leader.replication = first;
+        leader.put(ann);
+        leader.put(ben);
+        leader.publish(List.of(new Assignment(ann, SOUP)));
+
+        try (ReplicationFollower follower =
+                     new ReplicationFollower("localhost", port, ReplicationTest::byName, replica)) {
+            follower.start();
+            await(() -> follower.appliedVersion() == 1);
+
+            first.close();
+            await(() -> !follower.isInSync());
+            assertTrue(replica.volunteers.containsKey("v2"));
+            leader.volunteers.remove("v2");                            // not streamed: no follower
+            try (ReplicationLeader second =
+                         new ReplicationLeader(port, leader.assignments::get, leader.volunteers, leader.catalog)) {
+                leader.replication = second;
+                leader.publish(List.of(new Assignment(ann, BEACH)));   // not streamed: no follower yet
+                await(() -> follower.appliedVersion() == 2);
+                assertEquals("Beach Cleanup", replica.assignments.get("v1"));
+                assertTrue(follower.isInSync());
+                assertEquals(List.of("v1"), List.copyOf(replica.volunteers.keySet()));
+            }
+        }
+    }
+
+    /**
+     * Tests that a follower takes the state of a leader that restarted with
+     * fresh (lower) versions, and that the lag is measured against the new
+     * leader's versions rather than the old one's.
+     */
+    @Test
+    void testLeaderRestartWithLowerVersions() throws Exception {
+        Leader before = new Leader();
+        Replica replica = new Replica();
+        Volunteer ann = new Volunteer("Ann", "v1", List.of(SOUP, BEACH));
+
+        ReplicationLeader first = new ReplicationLeader(0, before.assignments::get, before.volunteers, before.catalog);
+        int port = first.port();
+        before.replication = first;
+        before.put(ann);
+        before.publish(List.of(new Assignment(ann, SOUP)));
+        before.publish(List.of(new Assignment(ann, BEACH)));
+        before.publish(List.of(new Assignment(ann, SOUP)));
+
+        try (ReplicationFollower follower =
+                     new ReplicationFollower("localhost", port, ReplicationTest::byName, replica)) {
+            follower.start();
+            await(() -> follower.appliedVersion() == 3);
+
+            first.close();
+            await(() -> !follower.isInSync());
+            Leader after = new Leader();                                  // restarted: versions begin again
+            try (ReplicationLeader second =
+                         new ReplicationLeader(port, after.assignments::get, after.volunteers, after.catalog)) {
+                after.replication = second;
+                after.put(ann);
+                after.publish(List.of(new Assignment(ann, BEACH)));
+                await(() -> follower.isInSync() && follower.appliedVersion() == 1);
+                assertEquals(Map.of("v1", "Beach Cleanup"), replica.assignments);
+                assertEquals(0, follower.lagVersions());
+            }
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long end = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < end) Thread.sleep(10);
+        assertTrue(condition.getAsBoolean(), "timed out");
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.tests;
+
+import org.example.domain.*;
+import org.example.server.store.IdInterner;
+import org.example.server.store.VolunteerStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the persistent VolunteerStore.
+ */
+class VolunteerStoreTest {
+
+    /**
+     * Tests that a snapshot is unaffected by writes made after it was taken.
+     */
+    @Test
+    void testSnapshotIsPointInTime() {
+        Service soup = new Service("Soup Kitchen", 2);
+        VolunteerStore store = new VolunteerStore(new IdInterner());
+        store.put(new Volunteer("Ann", "v1", List.of(soup)));
+
+        VolunteerStore.Snapshot before = store.snapshot();
+        store.put(new Volunteer("Ben", "v2", List.of(soup)));
+        store.put(new Volunteer("Ann B.", "v1", List.of(soup)));   // replace
+
+        assertEquals(1, before.size());
+        assertEquals("Ann", before.iterator().next().getName());
+        assertEquals(2, store.size());
+        assertEquals("Ann B.", store.get("v1").getName());
+        assertTrue(store.snapshot().version() > before.version());
+    }
+
+    /**
+     * Tests that the trie grows past its initial capacity and iterates every
+     * volunteer exactly once, in insertion (dense id) order.
+     */
+    @Test
+    void testGrowsAndIterates() {
+        VolunteerStore store = new VolunteerStore(new IdInterner());
+        for (int i = 0; i < 40_000; i++) {
+            store.put(new Volunteer("V" + i, "vol" + (1_000_000 + i), List.of()));
+        }
+
+        List<String> names = new ArrayList<>();
+        for (Volunteer v : store.snapshot()) names.add(v.getName());
+
+        assertEquals(40_000, names.size());
+        assertEquals("V0", names.get(0));
+        assertEquals("V39999", names.get(39_999));
+        assertEquals("V1025", store.get("vol1001025").getName());
+        assertNull(store.get("vol42"));
+    }
+
+    /**
+     * Tests that a removed volunteer is gone from later snapshots but not
+     * from earlier ones, and can be stored again.
+     */
+    @Test
+    void testRemove() {
+        VolunteerStore store = new VolunteerStore(new IdInterner());
+        store.put(new Volunteer("Ann", "v1", List.of()));
+        store.put(new Volunteer("Ben", "v2", List.of()));
+        VolunteerStore.Snapshot before = store.snapshot();
+
+        assertEquals("Ann", store.remove("v1").getName());
+        assertNull(store.remove("v1"));
+        assertNull(store.remove("nobody"));
+        assertNull(store.get("v1"));
+        assertEquals(1, store.size());
+        assertEquals(2, before.size());
+        assertTrue(store.snapshot().version() > before.version());
+
+        store.put(new Volunteer("Ann", "v1", List.of()));
+        assertEquals(2, store.size());
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.tests;
+
+import org.example.domain.*;
+import org.example.server.logic.Waitlists;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Waitlists.
+ */
+class WaitlistsTest {
+
+    private static final Service SOUP = new Service("Soup Kitchen", 1);
+    private static final Service BEACH = new Service("Beach Cleanup", 1);
+    private static final Service GARDEN = new Service("Community Garden", 2);
+    private static final Map<String, Service> CATALOG = Map.of(
+            SOUP.getName(), SOUP, BEACH.getName(), BEACH, GARDEN.getName(), GARDEN);
+
+    private static Map<String, String> byVolunteer(List<Assignment> promoted) {
+        Map<String, String> out = new HashMap<>();
+        for (Assignment a : promoted) out.put(a.getVolunteer().getId(), a.getService().getName());
+        return out;
+    }
+
+    /**
+     * Tests that a freed slot goes to the volunteer who ranked it highest,
+     * and that the slot they leave is backfilled in turn.
+     */
+    @Test
+    void testPromotesByRankAndCascades() {
+        Volunteer ann = new Volunteer("Ann", "v1", List.of(SOUP));
+        Volunteer ben = new Volunteer("Ben", "v2", List.of(GARDEN, SOUP));           // Soup at rank 1
+        Volunteer cat = new Volunteer("Cat", "v3", List.of(SOUP, BEACH));            // Soup at rank 0
+        Volunteer dan = new Volunteer("Dan", "v4", List.of(BEACH, GARDEN));
+        Map<String, Volunteer> store = new HashMap<>(Map.of("v2", ben, "v3", cat, "v4", dan));
+
+        Waitlists w = new Waitlists();
+        w.place(ann, "Soup Kitchen");
+        w.place(ben, "Community Garden");
+        w.place(cat, "Beach Cleanup");
+        w.place(dan, "Community Garden");
+        assertEquals(1, w.waiting("Soup Kitchen"), "Ben holds his first choice");
+        assertEquals(1, w.waiting("Beach Cleanup"));
+
+        List<Assignment> promoted = w.withdraw("v1", CATALOG, store::get);
+
+        assertEquals(Map.of("v3", "Soup Kitchen", "v4", "Beach Cleanup"), byVolunteer(promoted));
+        assertEquals("v3", promoted.get(0).getVolunteer().getId());
+        assertEquals(1, w.load("Soup Kitchen"));
+        assertEquals(1, w.load("Community Garden"));
+        assertEquals(0, w.waiting("Soup Kitchen") + w.waiting("Beach Cleanup"));
+        assertEquals(3, w.size());
+    }
+
+    /**
+     * Tests that unassigned volunteers wait on all their preferences, that a
+     * volunteer whose preferences changed is re-queued with the new ones
+     * before being promoted, and that withdrawing an unassigned volunteer
+     * promotes nobody.
+     */
+    @Test
+    void testUnassignedAndStaleEntries() {
+        Volunteer ann = new Volunteer("Ann", "v1", List.of(SOUP));
+        Volunteer ben = new Volunteer("Ben", "v2", List.of(SOUP, BEACH));
+        Volunteer cat = new Volunteer("Cat", "v3", List.of(SOUP));
+        Map<String, Volunteer> store = new HashMap<>(Map.of("v2", ben, "v3", cat));
+
+        Waitlists w = new Waitlists();
+        w.place(ann, "Soup Kitchen");
+        w.place(ben, null);
+        w.place(cat, null);
+        assertEquals(2, w.waiting("Soup Kitchen"));
+        assertEquals(1, w.waiting("Beach Cleanup"));
+
+        store.put("v2", new Volunteer("Ben", "v2", List.of(BEACH)));   // no longer wants Soup Kitchen
+        List<Assignment> promoted = w.withdraw("v1", CATALOG, store::get);
+        assertEquals(Map.of("v3", "Soup Kitchen"), byVolunteer(promoted));
+        assertEquals(1, w.waiting("Beach Cleanup"));
+
+        assertTrue(w.withdraw("v2", CATALOG, store::get).isEmpty());
+        assertEquals(0, w.waiting("Beach Cleanup"));
+    }
+
+    /**
+     * Tests that among volunteers who ranked a service the same, the one
+     * whose move lowers the cost most (here: the unassigned one) goes first,
+     * and that a raised capacity is filled from the queue.
+     */
+    @Test
+    void testMarginalCostBreaksTiesOnCapacityRaise() {
+        Volunteer ann = new Volunteer("Ann", "v1", List.of(SOUP, GARDEN));   // holds rank 1
+        Volunteer ben = new Volunteer("Ben", "v2", List.of(SOUP, GARDEN));   // holds nothing
+        Map<String, Volunteer> store = Map.of("v1", ann, "v2", ben);
+
+        Waitlists w = new Waitlists();
+        w.place(ann, "Community Garden");
+        w.place(ben, null);
+        assertEquals(2, w.waiting("Soup Kitchen"));
+
+        Service bigger = new Service("Soup Kitchen", 1);   // Soup Kitchen had no room before
+        Map<String, Service> catalog = Map.of(SOUP.getName(), bigger, GARDEN.getName(), GARDEN);
+        List<Assignment> promoted = w.fill("Soup Kitchen", catalog, store::get);
+        assertEquals(Map.of("v2", "Soup Kitchen"), byVolunteer(promoted), "queued second, gains more");
+        assertEquals(1, w.waiting("Soup Kitchen"));
+    }
+}